@@ -15,20 +15,17 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
-import com.sun.jdi.AbsentInformationException;
 import com.sun.jdi.Location;
 import com.sun.jdi.Method;
 import com.sun.jdi.ReferenceType;
 import com.sun.jdi.VMDisconnectedException;
 import com.sun.jdi.VirtualMachine;
-import com.sun.jdi.event.ClassPrepareEvent;
 import com.sun.jdi.request.BreakpointRequest;
-import com.sun.jdi.request.ClassPrepareRequest;
 import com.sun.jdi.request.EventRequest;
 
 import io.reactivex.Observable;
@@ -46,6 +43,8 @@ public class Breakpoint implements IBreakpoint {
     private String methodSignature = null;
 
     private boolean async = false;
+    private ClassPrepareMultiplexer classPrepareMultiplexer = null;
+    private LineTableCache lineTableCache = null;
 
     Breakpoint(VirtualMachine vm, IEventHub eventHub, String className, int lineNumber) {
         this(vm, eventHub, className, lineNumber, 0, null);
@@ -91,6 +90,8 @@ public class Breakpoint implements IBreakpoint {
     // AutoCloseable
     @Override
     public void close() throws Exception {
+        // The events of the deleted requests may still be queued, they must not resolve to the closed breakpoint.
+        requests().forEach(request -> request.putProperty(IDebugResource.REQUEST_OWNER, null));
         try {
             vm.eventRequestManager().deleteEventRequests(requests());
         } catch (VMDisconnectedException ex) {
@@ -178,54 +179,22 @@ public class Breakpoint implements IBreakpoint {
         this.async = async;
     }
 
+    void setClassPrepareMultiplexer(ClassPrepareMultiplexer classPrepareMultiplexer) {
+        this.classPrepareMultiplexer = classPrepareMultiplexer;
+    }
+
+    void setLineTableCache(LineTableCache lineTableCache) {
+        this.lineTableCache = lineTableCache;
+    }
+
     @Override
     public CompletableFuture<IBreakpoint> install() {
-        // It's possible that different class loaders create new class with the same name.
-        // Here to listen to future class prepare events to handle such case.
-        ClassPrepareRequest classPrepareRequest = vm.eventRequestManager().createClassPrepareRequest();
-        classPrepareRequest.addClassFilter(className);
-        classPrepareRequest.enable();
-        requests.add(classPrepareRequest);
-
-        // Local types also needs to be handled
-        ClassPrepareRequest localClassPrepareRequest = vm.eventRequestManager().createClassPrepareRequest();
-        localClassPrepareRequest.addClassFilter(className + "$*");
-        localClassPrepareRequest.enable();
-        requests.add(localClassPrepareRequest);
-
         CompletableFuture<IBreakpoint> future = new CompletableFuture<>();
-
-        Disposable subscription = eventHub.events()
-                .filter(debugEvent -> debugEvent.event instanceof ClassPrepareEvent
-                        && (classPrepareRequest.equals(debugEvent.event.request())
-                            || localClassPrepareRequest.equals(debugEvent.event.request())))
-                .subscribe(debugEvent -> {
-                    ClassPrepareEvent event = (ClassPrepareEvent) debugEvent.event;
-                    List<BreakpointRequest> newRequests = AsyncJdwpUtils.await(
-                        createBreakpointRequests(event.referenceType(), lineNumber, hitCount, false)
-                    );
-                    requests.addAll(newRequests);
-                    if (!newRequests.isEmpty() && !future.isDone()) {
-                        this.putProperty("verified", true);
-                        future.complete(this);
-                    }
-                });
-        subscriptions.add(subscription);
+        listenToClassPrepare(future);
 
         Runnable resolveRequestsFromExistingClasses = () -> {
             List<ReferenceType> refTypes = vm.classesByName(className);
-            createBreakpointRequests(refTypes, lineNumber, hitCount, true)
-                .whenComplete((newRequests, ex) -> {
-                    if (ex != null) {
-                        return;
-                    }
-
-                    requests.addAll(newRequests);
-                    if (!newRequests.isEmpty() && !future.isDone()) {
-                        this.putProperty("verified", true);
-                        future.complete(this);
-                    }
-                });
+            resolveLoadedTypes(refTypes, future);
         };
 
         if (async()) {
@@ -237,19 +206,65 @@ public class Breakpoint implements IBreakpoint {
         return future;
     }
 
-    private CompletableFuture<List<Location>> collectLocations(ReferenceType refType, int lineNumber) {
-        List<CompletableFuture<List<Location>>> futures = new ArrayList<>();
-        Iterator<Method> iter = refType.methods().iterator();
-        while (iter.hasNext()) {
-            Method method = iter.next();
-            if (async()) {
-                futures.add(AsyncJdwpUtils.supplyAsync(() -> findLocaitonsOfLine(method, lineNumber)));
-            } else {
-                futures.add(CompletableFuture.completedFuture(findLocaitonsOfLine(method, lineNumber)));
+    @Override
+    public CompletableFuture<Boolean> install(List<ReferenceType> loadedTypes, Consumer<IBreakpoint> verifiedListener) {
+        CompletableFuture<IBreakpoint> future = new CompletableFuture<>();
+        listenToClassPrepare(future);
+        return resolveLoadedTypes(loadedTypes, future).thenApply(res -> {
+            if (future.isDone()) {
+                return true;
             }
+
+            future.thenAccept(verifiedListener);
+            return false;
+        });
+    }
+
+    private void listenToClassPrepare(CompletableFuture<IBreakpoint> future) {
+        if (classPrepareMultiplexer == null) {
+            classPrepareMultiplexer = new ClassPrepareMultiplexer(vm, eventHub);
+        }
+        if (lineTableCache == null) {
+            lineTableCache = new LineTableCache();
         }
 
-        return AsyncJdwpUtils.flatAll(futures);
+        // It's possible that different class loaders create new class with the same name.
+        // Here to listen to future class prepare events to handle such case, the local types also needs to be handled.
+        Disposable subscription = classPrepareMultiplexer.subscribe(className, true, type -> {
+            List<BreakpointRequest> newRequests = AsyncJdwpUtils.await(
+                createBreakpointRequests(type, lineNumber, hitCount, false)
+            );
+            requests.addAll(newRequests);
+            if (!newRequests.isEmpty() && !future.isDone()) {
+                this.putProperty("verified", true);
+                future.complete(this);
+            }
+        });
+        subscriptions.add(subscription);
+    }
+
+    private CompletableFuture<Void> resolveLoadedTypes(List<ReferenceType> refTypes, CompletableFuture<IBreakpoint> future) {
+        return createBreakpointRequests(refTypes, lineNumber, hitCount, true)
+            .handle((newRequests, ex) -> {
+                if (ex != null) {
+                    return null;
+                }
+
+                requests.addAll(newRequests);
+                if (!newRequests.isEmpty() && !future.isDone()) {
+                    this.putProperty("verified", true);
+                    future.complete(this);
+                }
+                return null;
+            });
+    }
+
+    private CompletableFuture<List<Location>> collectLocations(ReferenceType refType, int lineNumber) {
+        if (async()) {
+            return AsyncJdwpUtils.supplyAsync(() -> lineTableCache.getLocationsOfLine(refType, lineNumber));
+        }
+
+        return CompletableFuture.completedFuture(lineTableCache.getLocationsOfLine(refType, lineNumber));
     }
 
     private CompletableFuture<List<Location>> collectLocations(List<ReferenceType> refTypes, int lineNumber, boolean includeNestedTypes) {
@@ -267,8 +282,8 @@ public class Breakpoint implements IBreakpoint {
                 return CompletableFuture.completedFuture(newLocations);
             } else if (includeNestedTypes) {
                 // ReferenceType.nestedTypes() will invoke vm.allClasses() to list all loaded classes,
-                // should avoid using nestedTypes for performance.
-                for (ReferenceType nestedType : refType.nestedTypes()) {
+                // so look them up from the types indexed by the class prepare events instead.
+                for (ReferenceType nestedType : classPrepareMultiplexer.getNestedTypes(refType)) {
                     CompletableFuture<List<Location>> nestedLocationsFuture = collectLocations(nestedType, lineNumber);
                     List<Location> nestedLocations = nestedLocationsFuture.join();
                     if (!nestedLocations.isEmpty()) {
@@ -310,17 +325,6 @@ public class Breakpoint implements IBreakpoint {
         return location;
     }
 
-    private List<Location> findLocaitonsOfLine(Method method, int lineNumber) {
-        try {
-            return method.locationsOfLine(lineNumber);
-        } catch (AbsentInformationException e) {
-            // could be AbsentInformationException or ClassNotPreparedException
-            // but both are expected so no need to further handle
-        }
-
-        return Collections.emptyList();
-    }
-
     private CompletableFuture<List<BreakpointRequest>> createBreakpointRequests(ReferenceType refType, int lineNumber, int hitCount,
             boolean includeNestedTypes) {
         return createBreakpointRequests(Arrays.asList(refType), lineNumber, hitCount, includeNestedTypes);
@@ -358,6 +362,7 @@ public class Breakpoint implements IBreakpoint {
                     request.addCountFilter(hitCount);
                 }
                 request.putProperty(IBreakpoint.REQUEST_TYPE, computeRequestType());
+                request.putProperty(IDebugResource.REQUEST_OWNER, this);
                 newRequests.add(request);
             });
 
@@ -0,0 +1,380 @@
+/*******************************************************************************
+* Copyright (c) 2017 Microsoft Corporation and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*
+* Contributors:
+*     Microsoft Corporation - initial API and implementation
+*******************************************************************************/
+
+package com.microsoft.java.debug.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.VMDisconnectedException;
+import com.sun.jdi.VirtualMachine;
+import com.sun.jdi.event.ClassPrepareEvent;
+import com.sun.jdi.event.Event;
+import com.sun.jdi.request.ClassPrepareRequest;
+import com.sun.jdi.request.EventRequest;
+
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+
+/**
+ * Shares the class prepare requests among the breakpoints which wait for their types to be loaded.
+ *
+ * <p>The debuggee evaluates the filter of every class prepare request on every class load. The requests are shared by
+ * the listeners waiting for the same top-level type, i.e. the <code>Name</code> and <code>Name$*</code> requests of
+ * the type. When many types of a package are waiting, a single <code>package.*</code> request replaces theirs. The
+ * wildcard matches the subpackages as well, so it's only worth it for many types, and it's never used for the JDK
+ * packages whose subpackages are busy. The requests only suspend the loading thread.</p>
+ *
+ * <p>The waiting listeners are kept in a trie keyed by the segments of the binary type names, and a prepared type is
+ * resolved against all of them in one pass.</p>
+ *
+ * <p>The prepared types nested in the types waited for along with their nested types are indexed as well, so that
+ * looking them up doesn't list all the loaded classes every time.</p>
+ */
+public class ClassPrepareMultiplexer {
+    private static final Logger logger = Logger.getLogger(Configuration.LOGGER_NAME);
+    // The number of the waiting top-level types of a package above which the package wildcard is used.
+    private static final int WILDCARD_THRESHOLD = 16;
+    private static final String[] JDK_PACKAGE_PREFIXES = {"java.", "javax.", "jdk.", "sun.", "com.sun."};
+
+    private final VirtualMachine vm;
+    private final IEventHub eventHub;
+    private final Node root = new Node();
+    // The listener counts of the waiting top-level types of each package.
+    private final Map<String, Map<String, Integer>> waitingTypes = new HashMap<>();
+    // The requests of each package keyed by their class filters.
+    private final Map<String, Map<String, ClassPrepareRequest>> packageRequests = new HashMap<>();
+    private Disposable eventSubscription;
+
+    public ClassPrepareMultiplexer(VirtualMachine vm, IEventHub eventHub) {
+        this.vm = vm;
+        this.eventHub = eventHub;
+    }
+
+    /**
+     * Listens to the preparation of the given type.
+     *
+     * @param typeName
+     *              the binary name of the type
+     * @param includeNestedTypes
+     *              whether to listen to the preparation of the nested types as well
+     * @param listener
+     *              the listener called on the Event Hub thread with the prepared type
+     * @return the subscription to dispose when the type is no longer waited for
+     */
+    public synchronized Disposable subscribe(String typeName, boolean includeNestedTypes, Consumer<ReferenceType> listener) {
+        Node node = root;
+        for (String segment : split(typeName)) {
+            node = node.children.computeIfAbsent(segment, key -> new Node());
+        }
+        Listener entry = new Listener(listener, includeNestedTypes);
+        node.listeners.add(entry);
+
+        String topLevelName = getTopLevelName(typeName);
+        String packageName = getPackageName(topLevelName);
+        waitingTypes.computeIfAbsent(packageName, key -> new HashMap<>()).merge(topLevelName, 1, Integer::sum);
+        updateRequests(packageName);
+
+        Node target = node;
+        return Disposables.fromAction(() -> unsubscribe(target, entry, packageName, topLevelName));
+    }
+
+    /**
+     * Returns the number of the class prepare requests in use.
+     */
+    public synchronized int getRequestCount() {
+        int count = 0;
+        for (Map<String, ClassPrepareRequest> requests : packageRequests.values()) {
+            count += requests.size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the loaded types nested in the given type, see {@link ReferenceType#nestedTypes()}.
+     *
+     * <p>{@link ReferenceType#nestedTypes()} lists all the loaded classes, so the result is indexed while the type is
+     * waited for along with its nested types, the class prepare events keep it up to date.</p>
+     */
+    public List<ReferenceType> getNestedTypes(ReferenceType type) {
+        Node node;
+        synchronized (this) {
+            node = findNode(type.name());
+            if (node == null || !hasNestedListener(node)) {
+                node = null;
+            } else if (node.nestedTypes != null) {
+                return new ArrayList<>(node.nestedTypes);
+            } else {
+                // Collect the types prepared from now on, while the loaded ones are listed.
+                node.nestedTypes = new ArrayList<>();
+            }
+        }
+
+        List<ReferenceType> nestedTypes = type.nestedTypes();
+        if (node == null) {
+            return nestedTypes;
+        }
+        synchronized (this) {
+            if (node.nestedTypes == null) {
+                // The type is no longer waited for.
+                return nestedTypes;
+            }
+            for (ReferenceType nestedType : nestedTypes) {
+                if (!node.nestedTypes.contains(nestedType)) {
+                    node.nestedTypes.add(nestedType);
+                }
+            }
+            return new ArrayList<>(node.nestedTypes);
+        }
+    }
+
+    /**
+     * Notifies the listeners waiting for the prepared type.
+     */
+    void classPrepared(ReferenceType type) {
+        List<Consumer<ReferenceType>> listeners = indexType(type);
+        for (Consumer<ReferenceType> listener : listeners) {
+            try {
+                listener.accept(type);
+            } catch (RuntimeException e) {
+                // Keep the shared subscription alive for the other listeners.
+                logger.log(Level.SEVERE, String.format("Failed to handle the preparation of %s: %s", type.name(), e.toString()), e);
+            }
+        }
+    }
+
+    /**
+     * Adds the prepared type to the indexed nested types of its enclosing types, and returns the listeners waiting for
+     * it.
+     */
+    private synchronized List<Consumer<ReferenceType>> indexType(ReferenceType type) {
+        List<String> segments = split(type.name());
+        // The nested types are the ones whose remaining segments are all separated by '$'.
+        int nestedStart = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            if (segments.get(i).charAt(0) == '.') {
+                nestedStart = i;
+            }
+        }
+
+        List<Consumer<ReferenceType>> result = new ArrayList<>();
+        Node node = root;
+        for (int i = 0; i < segments.size(); i++) {
+            node = node.children.get(segments.get(i));
+            if (node == null) {
+                break;
+            }
+            boolean isTarget = i == segments.size() - 1;
+            if (!isTarget && i >= nestedStart && node.nestedTypes != null && !node.nestedTypes.contains(type)) {
+                node.nestedTypes.add(type);
+            }
+            if (isTarget || i >= nestedStart) {
+                for (Listener listener : node.listeners) {
+                    if (isTarget || listener.includeNestedTypes) {
+                        result.add(listener.consumer);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private Node findNode(String typeName) {
+        Node node = root;
+        for (String segment : split(typeName)) {
+            node = node.children.get(segment);
+            if (node == null) {
+                return null;
+            }
+        }
+        return node;
+    }
+
+    private static boolean hasNestedListener(Node node) {
+        for (Listener listener : node.listeners) {
+            if (listener.includeNestedTypes) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void unsubscribe(Node node, Listener entry, String packageName, String topLevelName) {
+        if (!node.listeners.remove(entry)) {
+            return;
+        }
+        if (!hasNestedListener(node)) {
+            // The nested types are no longer kept up to date.
+            node.nestedTypes = null;
+        }
+
+        Map<String, Integer> types = waitingTypes.get(packageName);
+        if (types.merge(topLevelName, -1, Integer::sum) == 0) {
+            types.remove(topLevelName);
+        }
+        if (types.isEmpty()) {
+            waitingTypes.remove(packageName);
+        }
+        updateRequests(packageName);
+        if (packageRequests.isEmpty() && eventSubscription != null) {
+            eventSubscription.dispose();
+            eventSubscription = null;
+        }
+    }
+
+    /**
+     * Brings the requests of the package in line with its waiting types. The new requests are created before the
+     * obsolete ones are deleted, so that no class load is missed in between.
+     */
+    private void updateRequests(String packageName) {
+        Map<String, Integer> types = waitingTypes.get(packageName);
+        Map<String, ClassPrepareRequest> requests = packageRequests.computeIfAbsent(packageName, key -> new HashMap<>());
+        Set<String> filters = getClassFilters(packageName, types == null ? Collections.emptySet() : types.keySet(),
+                requests.containsKey(packageName + ".*"));
+        for (String filter : filters) {
+            if (!requests.containsKey(filter)) {
+                requests.put(filter, createRequest(filter));
+            }
+        }
+
+        Iterator<Map.Entry<String, ClassPrepareRequest>> iterator = requests.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, ClassPrepareRequest> request = iterator.next();
+            if (!filters.contains(request.getKey())) {
+                iterator.remove();
+                try {
+                    vm.eventRequestManager().deleteEventRequest(request.getValue());
+                } catch (VMDisconnectedException e) {
+                    // ignore since the requests are gone with the VM.
+                }
+            }
+        }
+        if (requests.isEmpty()) {
+            packageRequests.remove(packageName);
+        }
+    }
+
+    private ClassPrepareRequest createRequest(String filter) {
+        ClassPrepareRequest request = vm.eventRequestManager().createClassPrepareRequest();
+        request.addClassFilter(filter);
+        request.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+        request.putProperty(ClassPrepareMultiplexer.class, this);
+        request.enable();
+        if (eventSubscription == null) {
+            eventSubscription = eventHub.events(ClassPrepareEvent.class).subscribe(debugEvent -> {
+                if (isFirstEvent(debugEvent)) {
+                    classPrepared(((ClassPrepareEvent) debugEvent.event).referenceType());
+                }
+            });
+        }
+        return request;
+    }
+
+    /**
+     * Returns whether the event is the first one of the event set raised by the requests of this multiplexer, the
+     * requests of the nested packages, or the ones being replaced, raise more than one event for the same class.
+     */
+    private boolean isFirstEvent(DebugEvent debugEvent) {
+        for (Event event : debugEvent.eventSet) {
+            EventRequest request = event.request();
+            if (event instanceof ClassPrepareEvent && request != null && request.getProperty(ClassPrepareMultiplexer.class) == this) {
+                return event == debugEvent.event;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the class filters which cover the waiting top-level types of the package and their nested types.
+     *
+     * @param isWildcard
+     *              whether the package wildcard is in use, it's kept until half of the threshold to avoid flapping
+     */
+    static Set<String> getClassFilters(String packageName, Set<String> topLevelNames, boolean isWildcard) {
+        int threshold = isWildcard ? WILDCARD_THRESHOLD / 2 : WILDCARD_THRESHOLD;
+        // The types in the unnamed package can't be matched by a package pattern.
+        if (!packageName.isEmpty() && !isJdkPackage(packageName) && topLevelNames.size() > threshold) {
+            return Collections.singleton(packageName + ".*");
+        }
+
+        Set<String> filters = new LinkedHashSet<>();
+        for (String topLevelName : topLevelNames) {
+            filters.add(topLevelName);
+            filters.add(topLevelName + "$*");
+        }
+        return filters;
+    }
+
+    static boolean isJdkPackage(String packageName) {
+        String name = packageName + ".";
+        for (String prefix : JDK_PACKAGE_PREFIXES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getTopLevelName(String typeName) {
+        int lastDot = typeName.lastIndexOf('.');
+        int firstDollar = typeName.indexOf('$', lastDot + 1);
+        return firstDollar < 0 ? typeName : typeName.substring(0, firstDollar);
+    }
+
+    private static String getPackageName(String typeName) {
+        int lastDot = typeName.lastIndexOf('.');
+        return lastDot < 0 ? "" : typeName.substring(0, lastDot);
+    }
+
+    /**
+     * Splits the binary type name into its segments, each segment but the first keeps its leading separator.
+     */
+    static List<String> split(String typeName) {
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i < typeName.length(); i++) {
+            char c = typeName.charAt(i);
+            if (c == '.' || c == '$') {
+                segments.add(typeName.substring(start, i));
+                start = i;
+            }
+        }
+        segments.add(typeName.substring(start));
+        return segments;
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private final List<Listener> listeners = new ArrayList<>(1);
+        // The loaded nested types, null if they aren't indexed.
+        private List<ReferenceType> nestedTypes;
+    }
+
+    private static final class Listener {
+        private final Consumer<ReferenceType> consumer;
+        private final boolean includeNestedTypes;
+
+        Listener(Consumer<ReferenceType> consumer, boolean includeNestedTypes) {
+            this.consumer = consumer;
+            this.includeNestedTypes = includeNestedTypes;
+        }
+    }
+}
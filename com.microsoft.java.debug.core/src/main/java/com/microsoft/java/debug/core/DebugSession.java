@@ -15,18 +15,28 @@ import java.util.ArrayList;
 import java.util.List;
 
 import com.sun.jdi.ObjectCollectedException;
+import com.sun.jdi.ReferenceType;
 import com.sun.jdi.ThreadReference;
 import com.sun.jdi.VirtualMachine;
 import com.sun.jdi.request.EventRequest;
 import com.sun.jdi.request.EventRequestManager;
 import com.sun.jdi.request.ExceptionRequest;
 
+import io.reactivex.disposables.Disposable;
+
 public class DebugSession implements IDebugSession {
     private VirtualMachine vm;
     private EventHub eventHub = new EventHub();
+    // The class prepare requests shared by all the breakpoints which wait for their types.
+    private ClassPrepareMultiplexer classPrepareMultiplexer;
+    private LineTableCache lineTableCache = new LineTableCache();
+    // The requests of the exception type breakpoints, and their subscriptions to the preparation of the types.
+    private List<EventRequest> exceptionTypeRequests = new ArrayList<>();
+    private List<Disposable> exceptionTypeSubscriptions = new ArrayList<>();
 
     public DebugSession(VirtualMachine virtualMachine) {
         vm = virtualMachine;
+        classPrepareMultiplexer = new ClassPrepareMultiplexer(vm, eventHub);
     }
 
     @Override
@@ -83,12 +93,17 @@ public class DebugSession implements IDebugSession {
 
     @Override
     public IBreakpoint createBreakpoint(String className, int lineNumber, int hitCount, String condition, String logMessage) {
-        return new EvaluatableBreakpoint(vm, this.getEventHub(), className, lineNumber, hitCount, condition, logMessage);
+        EvaluatableBreakpoint breakpoint = new EvaluatableBreakpoint(vm, this.getEventHub(), className, lineNumber, hitCount, condition, logMessage);
+        breakpoint.setClassPrepareMultiplexer(classPrepareMultiplexer);
+        breakpoint.setLineTableCache(lineTableCache);
+        return breakpoint;
     }
 
     @Override
     public IWatchpoint createWatchPoint(String className, String fieldName, String accessType, String condition, int hitCount) {
-        return new Watchpoint(vm, this.getEventHub(), className, fieldName, accessType, condition, hitCount);
+        Watchpoint watchpoint = new Watchpoint(vm, this.getEventHub(), className, fieldName, accessType, condition, hitCount);
+        watchpoint.setClassPrepareMultiplexer(classPrepareMultiplexer);
+        return watchpoint;
     }
 
     @Override
@@ -98,9 +113,26 @@ public class DebugSession implements IDebugSession {
 
     @Override
     public void setExceptionBreakpoints(boolean notifyCaught, boolean notifyUncaught, String[] classFilters, String[] classExclusionFilters) {
+        setExceptionBreakpoints(notifyCaught, notifyUncaught, classFilters, classExclusionFilters, null);
+    }
+
+    @Override
+    public synchronized void setExceptionBreakpoints(boolean notifyCaught, boolean notifyUncaught, String[] classFilters,
+            String[] classExclusionFilters, List<ExceptionTypeBreakpoint> typeBreakpoints) {
         EventRequestManager manager = vm.eventRequestManager();
+        exceptionTypeSubscriptions.forEach(Disposable::dispose);
+        exceptionTypeSubscriptions.clear();
+        manager.deleteEventRequests(exceptionTypeRequests);
+        exceptionTypeRequests.clear();
         ArrayList<ExceptionRequest> legacy = new ArrayList<>(manager.exceptionRequests());
         manager.deleteEventRequests(legacy);
+        if (typeBreakpoints != null) {
+            for (ExceptionTypeBreakpoint typeBreakpoint : typeBreakpoints) {
+                if (typeBreakpoint.notifyCaught || typeBreakpoint.notifyUncaught) {
+                    createExceptionTypeRequests(typeBreakpoint, classFilters, classExclusionFilters);
+                }
+            }
+        }
         // When no exception breakpoints are requested, no need to create an empty exception request.
         if (notifyCaught || notifyUncaught) {
             // from: https://www.javatips.net/api/REPLmode-master/src/jm/mode/replmode/REPLRunner.java
@@ -116,19 +148,43 @@ public class DebugSession implements IDebugSession {
             // See org.eclipse.debug.jdi.tests.AbstractJDITest for the example.
 
             // get only the uncaught exceptions
-            ExceptionRequest request = manager.createExceptionRequest(null, notifyCaught, notifyUncaught);
-            request.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
-            if (classFilters != null) {
-                for (String classFilter : classFilters) {
-                    request.addClassFilter(classFilter);
-                }
+            createExceptionRequest(null, notifyCaught, notifyUncaught, 0, classFilters, classExclusionFilters);
+        }
+    }
+
+    private void createExceptionTypeRequests(ExceptionTypeBreakpoint typeBreakpoint, String[] classFilters, String[] classExclusionFilters) {
+        // The exception types may be loaded later, and by more than one class loader.
+        exceptionTypeSubscriptions.add(classPrepareMultiplexer.subscribe(typeBreakpoint.typeName, false, type -> {
+            createExceptionRequest(type, typeBreakpoint.notifyCaught, typeBreakpoint.notifyUncaught, typeBreakpoint.hitCount,
+                    classFilters, classExclusionFilters);
+        }));
+
+        for (ReferenceType type : vm.classesByName(typeBreakpoint.typeName)) {
+            createExceptionRequest(type, typeBreakpoint.notifyCaught, typeBreakpoint.notifyUncaught, typeBreakpoint.hitCount,
+                    classFilters, classExclusionFilters);
+        }
+    }
+
+    private synchronized void createExceptionRequest(ReferenceType type, boolean notifyCaught, boolean notifyUncaught, int hitCount,
+            String[] classFilters, String[] classExclusionFilters) {
+        ExceptionRequest request = vm.eventRequestManager().createExceptionRequest(type, notifyCaught, notifyUncaught);
+        request.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+        if (hitCount > 0) {
+            request.addCountFilter(hitCount);
+        }
+        if (classFilters != null) {
+            for (String classFilter : classFilters) {
+                request.addClassFilter(classFilter);
             }
-            if (classExclusionFilters != null) {
-                for (String exclusionFilter : classExclusionFilters) {
-                    request.addClassExclusionFilter(exclusionFilter);
-                }
+        }
+        if (classExclusionFilters != null) {
+            for (String exclusionFilter : classExclusionFilters) {
+                request.addClassExclusionFilter(exclusionFilter);
             }
-            request.enable();
+        }
+        request.enable();
+        if (type != null) {
+            exceptionTypeRequests.add(request);
         }
     }
 
@@ -147,6 +203,11 @@ public class DebugSession implements IDebugSession {
         return eventHub;
     }
 
+    @Override
+    public LineTableCache getLineTableCache() {
+        return lineTableCache;
+    }
+
     @Override
     public VirtualMachine getVM() {
         return vm;
@@ -155,6 +216,8 @@ public class DebugSession implements IDebugSession {
     @Override
     public IMethodBreakpoint createFunctionBreakpoint(String className, String functionName, String condition,
             int hitCount) {
-        return new MethodBreakpoint(vm, this.getEventHub(), className, functionName, condition, hitCount);
+        MethodBreakpoint breakpoint = new MethodBreakpoint(vm, this.getEventHub(), className, functionName, condition, hitCount);
+        breakpoint.setClassPrepareMultiplexer(classPrepareMultiplexer);
+        return breakpoint;
     }
 }
@@ -44,6 +44,34 @@ public final class DebugSettings {
     public int limitOfVariablesPerJdwpRequest = 100;
     public int jdwpRequestTimeout = 3000;
     public AsyncMode asyncJDWP = AsyncMode.OFF;
+    /**
+     * Evaluate the simple breakpoint conditions, such as comparisons of primitive variables, and the log messages
+     * which only reference variables through JDI instead of the evaluation provider.
+     */
+    public boolean nativeBreakpointConditions = true;
+    /**
+     * The maximum number of logpoint messages output per second, the messages above it are dropped. Zero means no limit.
+     */
+    public int logpointRateLimit = 0;
+    /**
+     * Resolve the variables of the top frame as soon as a thread stops, before the client asks for them.
+     */
+    public boolean prefetchTopFrameVariables = false;
+    /**
+     * Send the thread start and exit events in periodic batches, and drop the ones of the threads which exit in the
+     * same batch. It keeps the thread churning applications from flooding the client with thread events.
+     */
+    public boolean coalesceThreadEvents = false;
+    /**
+     * Skip the caught exceptions by the class of their catch location, the allowClasses and skipClasses patterns are
+     * the same as the ones of {@link #exceptionFilters}.
+     */
+    public ClassFilters exceptionCatchLocationFilters = new ClassFilters();
+    /**
+     * The maximum number of times per second that the exceptions of one type suspend the debuggee, the exceptions
+     * above it are skipped. Zero means no limit.
+     */
+    public int exceptionRateLimit = 0;
 
     public static DebugSettings getCurrent() {
         return current;
@@ -14,6 +14,7 @@ package com.microsoft.java.debug.core;
 import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationTargetException;
 import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
@@ -45,6 +46,8 @@ import com.sun.jdi.request.MethodEntryRequest;
 import com.sun.jdi.request.StepRequest;
 
 public class DebugUtility {
+    // ThreadReference.isVirtual() is only available in the JDI of JDK 21 and later.
+    private static final java.lang.reflect.Method IS_VIRTUAL_METHOD = findIsVirtualMethod();
     public static final String HOME = "home";
     public static final String OPTIONS = "options";
     public static final String MAIN = "main";
@@ -417,9 +420,7 @@ public class DebugUtility {
         request.addClassFilter(mainClass);
         request.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
 
-        debugSession.getEventHub().events().filter(debugEvent -> {
-            return debugEvent.event instanceof MethodEntryEvent && request.equals(debugEvent.event.request());
-        }).subscribe(debugEvent -> {
+        debugSession.getEventHub().events(request).subscribe(debugEvent -> {
             Method method = ((MethodEntryEvent) debugEvent.event).method();
             if (method.isPublic() && method.isStatic() && method.name().equals("main")
                     && method.signature().equals("([Ljava/lang/String;)V")) {
@@ -469,6 +470,32 @@ public class DebugUtility {
         return new ArrayList<>();
     }
 
+    /**
+     * Returns whether the thread is a virtual thread. It's always false if the debugger doesn't run on JDK 21 or later.
+     *
+     * @param thread
+     *              the thread
+     * @return true if the thread is a virtual thread
+     */
+    public static boolean isVirtualThread(ThreadReference thread) {
+        if (IS_VIRTUAL_METHOD == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL_METHOD.invoke(thread);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            return false;
+        }
+    }
+
+    private static java.lang.reflect.Method findIsVirtualMethod() {
+        try {
+            return ThreadReference.class.getMethod("isVirtual");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
     /**
      * Resume the thread the times as it has been suspended.
      *
@@ -11,12 +11,15 @@
 
 package com.microsoft.java.debug.core;
 
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.sun.jdi.ReferenceType;
 import com.sun.jdi.ThreadReference;
 import com.sun.jdi.VirtualMachine;
 import com.sun.jdi.event.ThreadDeathEvent;
@@ -109,14 +112,22 @@ public class EvaluatableBreakpoint extends Breakpoint implements IEvaluatableBre
 
     @Override
     public CompletableFuture<IBreakpoint> install() {
-        Disposable subscription = eventHub.events()
-            .filter(debugEvent -> debugEvent.event instanceof ThreadDeathEvent)
+        listenToThreadDeath();
+        return super.install();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> install(List<ReferenceType> loadedTypes, Consumer<IBreakpoint> verifiedListener) {
+        listenToThreadDeath();
+        return super.install(loadedTypes, verifiedListener);
+    }
+
+    private void listenToThreadDeath() {
+        Disposable subscription = eventHub.events(ThreadDeathEvent.class)
             .subscribe(debugEvent -> {
                 ThreadReference deathThread = ((ThreadDeathEvent) debugEvent.event).thread();
                 compiledExpressions.remove(deathThread.uniqueID());
             });
         super.subscriptions().add(subscription);
-
-        return super.install();
     }
 }
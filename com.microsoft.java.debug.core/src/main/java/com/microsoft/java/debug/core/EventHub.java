@@ -11,6 +11,8 @@
 
 package com.microsoft.java.debug.core;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import com.sun.jdi.VMDisconnectedException;
@@ -26,19 +28,55 @@ import com.sun.jdi.event.ThreadStartEvent;
 import com.sun.jdi.event.VMDeathEvent;
 import com.sun.jdi.event.VMDisconnectEvent;
 import com.sun.jdi.event.VMStartEvent;
+import com.sun.jdi.request.EventRequest;
 
 import io.reactivex.Observable;
+import io.reactivex.disposables.Disposable;
 import io.reactivex.subjects.PublishSubject;
 
+/**
+ * Dispatches the JDI events to the subscribers.
+ *
+ * <p>Besides the stream of all events, the subscribers are indexed by the event type and by the event request,
+ * so an event only reaches the subscribers that are interested in it instead of running through the filters of
+ * every subscriber. Each event is delivered to the subscribers of all events first, then to the subscribers of its
+ * type, and then to the subscribers of its request.</p>
+ */
 public class EventHub implements IEventHub {
     private static final Logger logger = Logger.getLogger(Configuration.LOGGER_NAME);
     private PublishSubject<DebugEvent> subject = PublishSubject.<DebugEvent>create();
+    private Map<Class<? extends Event>, PublishSubject<DebugEvent>> typeRoutes = new ConcurrentHashMap<>();
+    private Map<EventRequest, PublishSubject<DebugEvent>> requestRoutes = new ConcurrentHashMap<>();
+    private volatile boolean isCompleted = false;
+    private volatile Throwable error = null;
 
     @Override
     public Observable<DebugEvent> events() {
         return subject;
     }
 
+    /**
+     * Gets the observable object for the events of the given type.
+     * @param eventType
+     *              the JDI event interface, such as BreakpointEvent
+     * @return      the observable object for the events of the given type
+     */
+    @Override
+    public Observable<DebugEvent> events(Class<? extends Event> eventType) {
+        return route(typeRoutes, eventType);
+    }
+
+    /**
+     * Gets the observable object for the events raised by the given event request.
+     * @param request
+     *              the event request
+     * @return      the observable object for the events of the given request
+     */
+    @Override
+    public Observable<DebugEvent> events(EventRequest request) {
+        return route(requestRoutes, request);
+    }
+
     private Thread workingThread = null;
     private boolean isClosed = false;
 
@@ -59,7 +97,7 @@ public class EventHub implements IEventHub {
             while (true) {
                 try {
                     if (Thread.interrupted()) {
-                        subject.onComplete();
+                        complete(null);
                         return;
                     }
 
@@ -75,7 +113,7 @@ public class EventHub implements IEventHub {
                         DebugEvent dbgEvent = new DebugEvent();
                         dbgEvent.event = event;
                         dbgEvent.eventSet = set;
-                        subject.onNext(dbgEvent);
+                        publish(dbgEvent);
                         shouldResume &= dbgEvent.shouldResume;
                     }
 
@@ -84,11 +122,11 @@ public class EventHub implements IEventHub {
                     }
                 } catch (InterruptedException e) {
                     isClosed = true;
-                    subject.onComplete();
+                    complete(null);
                     return;
                 } catch (VMDisconnectedException e) {
                     isClosed = true;
-                    subject.onError(e);
+                    complete(e);
                     return;
                 }
             }
@@ -108,13 +146,84 @@ public class EventHub implements IEventHub {
         isClosed = true;
     }
 
+    /**
+     * Delivers the event to the subscribers of all events, of its type and of its request, in that order.
+     */
+    void publish(DebugEvent debugEvent) {
+        subject.onNext(debugEvent);
+
+        Event event = debugEvent.event;
+        if (!typeRoutes.isEmpty()) {
+            for (Map.Entry<Class<? extends Event>, PublishSubject<DebugEvent>> entry : typeRoutes.entrySet()) {
+                if (entry.getKey().isInstance(event)) {
+                    entry.getValue().onNext(debugEvent);
+                }
+            }
+        }
+
+        if (!requestRoutes.isEmpty()) {
+            EventRequest request = event.request();
+            PublishSubject<DebugEvent> requestSubject = request == null ? null : requestRoutes.get(request);
+            if (requestSubject != null) {
+                requestSubject.onNext(debugEvent);
+            }
+        }
+    }
+
+    /**
+     * Terminates all event streams, with the error if it's not null.
+     */
+    void complete(Throwable throwable) {
+        error = throwable;
+        isCompleted = true;
+        terminate(subject, throwable);
+        typeRoutes.values().forEach(route -> terminate(route, throwable));
+        requestRoutes.values().forEach(route -> terminate(route, throwable));
+    }
+
+    private static void terminate(PublishSubject<DebugEvent> route, Throwable throwable) {
+        if (throwable != null) {
+            route.onError(throwable);
+        } else {
+            route.onComplete();
+        }
+    }
+
+    /**
+     * Creates an observable which subscribes to the route of the given key. The route is created by the first
+     * subscriber and removed when its last subscriber is disposed, so the routes of the deleted requests don't pile up.
+     */
+    private <K> Observable<DebugEvent> route(Map<K, PublishSubject<DebugEvent>> routes, K key) {
+        return Observable.create(emitter -> {
+            Disposable[] inner = new Disposable[1];
+            routes.compute(key, (k, route) -> {
+                PublishSubject<DebugEvent> target = route != null ? route : PublishSubject.<DebugEvent>create();
+                inner[0] = target.subscribe(emitter::onNext, emitter::tryOnError, emitter::onComplete);
+                return target;
+            });
+            emitter.setCancellable(() -> routes.computeIfPresent(key, (k, route) -> {
+                inner[0].dispose();
+                return route.hasObservers() ? route : null;
+            }));
+
+            // The routes created after the hub is completed never receive events, terminate them right away.
+            if (isCompleted) {
+                if (error != null) {
+                    emitter.tryOnError(error);
+                } else {
+                    emitter.onComplete();
+                }
+            }
+        });
+    }
+
     /**
      * Gets the observable object for breakpoint events.
      * @return      the observable object for breakpoint events
      */
     @Override
     public Observable<DebugEvent> breakpointEvents() {
-        return this.events().filter(debugEvent -> debugEvent.event instanceof BreakpointEvent);
+        return this.events(BreakpointEvent.class);
     }
 
     /**
@@ -123,8 +232,7 @@ public class EventHub implements IEventHub {
      */
     @Override
     public Observable<DebugEvent> threadEvents() {
-        return this.events().filter(debugEvent -> debugEvent.event instanceof ThreadStartEvent
-                || debugEvent.event instanceof ThreadDeathEvent);
+        return Observable.merge(this.events(ThreadStartEvent.class), this.events(ThreadDeathEvent.class));
     }
 
     /**
@@ -133,7 +241,7 @@ public class EventHub implements IEventHub {
      */
     @Override
     public  Observable<DebugEvent> exceptionEvents() {
-        return this.events().filter(debugEvent -> debugEvent.event instanceof ExceptionEvent);
+        return this.events(ExceptionEvent.class);
     }
 
     /**
@@ -142,7 +250,7 @@ public class EventHub implements IEventHub {
      */
     @Override
     public Observable<DebugEvent> stepEvents() {
-        return this.events().filter(debugEvent -> debugEvent.event instanceof StepEvent);
+        return this.events(StepEvent.class);
     }
 
     /**
@@ -151,8 +259,6 @@ public class EventHub implements IEventHub {
      */
     @Override
     public Observable<DebugEvent> vmEvents() {
-        return this.events().filter(debugEvent -> debugEvent.event instanceof VMStartEvent
-                || debugEvent.event instanceof VMDisconnectEvent
-                || debugEvent.event instanceof VMDeathEvent);
+        return Observable.merge(this.events(VMStartEvent.class), this.events(VMDisconnectEvent.class), this.events(VMDeathEvent.class));
     }
 }
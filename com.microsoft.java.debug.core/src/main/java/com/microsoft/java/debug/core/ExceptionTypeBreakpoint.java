@@ -0,0 +1,32 @@
+/*******************************************************************************
+* Copyright (c) 2017 Microsoft Corporation and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*
+* Contributors:
+*     Microsoft Corporation - initial API and implementation
+*******************************************************************************/
+
+package com.microsoft.java.debug.core;
+
+/**
+ * An exception breakpoint for one exception type and its subtypes.
+ */
+public class ExceptionTypeBreakpoint {
+    public String typeName;
+    public boolean notifyCaught;
+    public boolean notifyUncaught;
+    public int hitCount;
+
+    /**
+     * Constructor.
+     */
+    public ExceptionTypeBreakpoint(String typeName, boolean notifyCaught, boolean notifyUncaught, int hitCount) {
+        this.typeName = typeName;
+        this.notifyCaught = notifyCaught;
+        this.notifyUncaught = notifyUncaught;
+        this.hitCount = hitCount;
+    }
+}
@@ -11,7 +11,11 @@
 
 package com.microsoft.java.debug.core;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import com.sun.jdi.ReferenceType;
 
 public interface IBreakpoint extends IDebugResource {
 
@@ -33,6 +37,21 @@ public interface IBreakpoint extends IDebugResource {
 
     CompletableFuture<IBreakpoint> install();
 
+    /**
+     * Installs the breakpoint with the loaded types of its class, which the caller looked up once for all the
+     * breakpoints of the class.
+     *
+     * @param loadedTypes
+     *              the loaded types of the class
+     * @param verifiedListener
+     *              called when the breakpoint is verified by a type loaded after the loaded types are resolved
+     * @return the future completed once the loaded types are resolved, with whether the breakpoint is verified
+     */
+    default CompletableFuture<Boolean> install(List<ReferenceType> loadedTypes, Consumer<IBreakpoint> verifiedListener) {
+        install().thenAccept(verifiedListener);
+        return CompletableFuture.completedFuture(false);
+    }
+
     void putProperty(Object key, Object value);
 
     Object getProperty(Object key);
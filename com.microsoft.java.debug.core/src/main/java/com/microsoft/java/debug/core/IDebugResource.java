@@ -18,6 +18,11 @@ import com.sun.jdi.request.EventRequest;
 import io.reactivex.disposables.Disposable;
 
 public interface IDebugResource extends AutoCloseable {
+    /**
+     * The property key of the event requests which refers to the resource that created them.
+     */
+    String REQUEST_OWNER = "request_owner";
+
     List<EventRequest> requests();
 
     List<Disposable> subscriptions();
@@ -36,6 +36,13 @@ public interface IDebugSession {
 
     void setExceptionBreakpoints(boolean notifyCaught, boolean notifyUncaught, String[] classFilters, String[] classExclusionFilters);
 
+    /**
+     * Sets the exception breakpoints for all exceptions, and the breakpoints for the given exception types. The
+     * requests of a type are created once the type is prepared.
+     */
+    void setExceptionBreakpoints(boolean notifyCaught, boolean notifyUncaught, String[] classFilters, String[] classExclusionFilters,
+            List<ExceptionTypeBreakpoint> typeBreakpoints);
+
     IMethodBreakpoint createFunctionBreakpoint(String className, String functionName, String condition, int hitCount);
 
     Process process();
@@ -44,5 +51,10 @@ public interface IDebugSession {
 
     IEventHub getEventHub();
 
+    /**
+     * Returns the line tables of the loaded types, shared by the breakpoints of the session.
+     */
+    LineTableCache getLineTableCache();
+
     VirtualMachine getVM();
 }
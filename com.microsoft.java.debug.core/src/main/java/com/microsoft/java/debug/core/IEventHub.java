@@ -12,6 +12,8 @@
 package com.microsoft.java.debug.core;
 
 import com.sun.jdi.VirtualMachine;
+import com.sun.jdi.event.Event;
+import com.sun.jdi.request.EventRequest;
 
 import io.reactivex.Observable;
 
@@ -20,6 +22,10 @@ public interface IEventHub extends AutoCloseable {
 
     Observable<DebugEvent> events();
 
+    Observable<DebugEvent> events(Class<? extends Event> eventType);
+
+    Observable<DebugEvent> events(EventRequest request);
+
     Observable<DebugEvent> breakpointEvents();
 
     Observable<DebugEvent> threadEvents();
@@ -0,0 +1,88 @@
+/*******************************************************************************
+* Copyright (c) 2017 Microsoft Corporation and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*
+* Contributors:
+*     Microsoft Corporation - initial API and implementation
+*******************************************************************************/
+
+package com.microsoft.java.debug.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sun.jdi.AbsentInformationException;
+import com.sun.jdi.ClassNotPreparedException;
+import com.sun.jdi.Location;
+import com.sun.jdi.ReferenceType;
+
+/**
+ * The line tables of the loaded types, indexed by line number.
+ *
+ * <p>The line table of a type is fetched once with {@link ReferenceType#allLineLocations()}, instead of asking every
+ * method of the type for the locations of every line looked up. The line tables of a type change when the type is
+ * redefined, so they must be invalidated after hot code replace.</p>
+ */
+public class LineTableCache {
+    private final Map<ReferenceType, Map<Integer, List<Location>>> lineTables = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the locations of the given line in all the methods of the type, the same as the ones returned by
+     * {@link com.sun.jdi.Method#locationsOfLine(int)} for each method.
+     */
+    public List<Location> getLocationsOfLine(ReferenceType type, int lineNumber) {
+        Map<Integer, List<Location>> lineTable = lineTables.get(type);
+        if (lineTable == null) {
+            try {
+                lineTable = lineTables.computeIfAbsent(type, key -> buildLineTable(key));
+            } catch (ClassNotPreparedException e) {
+                // The type will be looked up again once it's prepared.
+                return Collections.emptyList();
+            }
+        }
+        return lineTable.getOrDefault(lineNumber, Collections.emptyList());
+    }
+
+    /**
+     * Drops the line tables of the given types and of their nested types, e.g. after they're redefined.
+     */
+    public void invalidate(Collection<String> typeNames) {
+        lineTables.keySet().removeIf(type -> {
+            String name = type.name();
+            for (int end = name.indexOf('$'); end > 0; end = name.indexOf('$', end + 1)) {
+                if (typeNames.contains(name.substring(0, end))) {
+                    return true;
+                }
+            }
+            return typeNames.contains(name);
+        });
+    }
+
+    public void invalidateAll() {
+        lineTables.clear();
+    }
+
+    private static Map<Integer, List<Location>> buildLineTable(ReferenceType type) {
+        List<Location> locations;
+        try {
+            locations = type.allLineLocations();
+        } catch (AbsentInformationException e) {
+            // The type is compiled without line numbers, there is nothing to find.
+            return Collections.emptyMap();
+        }
+
+        Map<Integer, List<Location>> lineTable = new HashMap<>();
+        for (Location location : locations) {
+            lineTable.computeIfAbsent(location.lineNumber(), key -> new ArrayList<>(1)).add(location);
+        }
+        return lineTable;
+    }
+}
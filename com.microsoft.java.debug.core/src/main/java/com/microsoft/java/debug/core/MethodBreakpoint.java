@@ -26,9 +26,7 @@ import com.sun.jdi.ReferenceType;
 import com.sun.jdi.ThreadReference;
 import com.sun.jdi.VMDisconnectedException;
 import com.sun.jdi.VirtualMachine;
-import com.sun.jdi.event.ClassPrepareEvent;
 import com.sun.jdi.event.ThreadDeathEvent;
-import com.sun.jdi.request.ClassPrepareRequest;
 import com.sun.jdi.request.EventRequest;
 import com.sun.jdi.request.MethodEntryRequest;
 
@@ -51,6 +49,7 @@ public class MethodBreakpoint implements IMethodBreakpoint, IEvaluatableBreakpoi
 
     private List<EventRequest> requests = Collections.synchronizedList(new ArrayList<>());
     private List<Disposable> subscriptions = new ArrayList<>();
+    private ClassPrepareMultiplexer classPrepareMultiplexer = null;
 
     public MethodBreakpoint(VirtualMachine vm, IEventHub eventHub, String className, String functionName,
             String condition, int hitCount) {
@@ -78,6 +77,8 @@ public class MethodBreakpoint implements IMethodBreakpoint, IEvaluatableBreakpoi
 
     @Override
     public void close() throws Exception {
+        // The events of the deleted requests may still be queued, they must not resolve to the closed breakpoint.
+        requests().forEach(request -> request.putProperty(IDebugResource.REQUEST_OWNER, null));
         try {
             vm.eventRequestManager().deleteEventRequests(requests());
         } catch (VMDisconnectedException ex) {
@@ -181,10 +182,13 @@ public class MethodBreakpoint implements IMethodBreakpoint, IEvaluatableBreakpoi
         this.async = async;
     }
 
+    void setClassPrepareMultiplexer(ClassPrepareMultiplexer classPrepareMultiplexer) {
+        this.classPrepareMultiplexer = classPrepareMultiplexer;
+    }
+
     @Override
     public CompletableFuture<IMethodBreakpoint> install() {
-        Disposable subscription = eventHub.events()
-                .filter(debugEvent -> debugEvent.event instanceof ThreadDeathEvent)
+        Disposable subscription = eventHub.events(ThreadDeathEvent.class)
                 .subscribe(debugEvent -> {
                     ThreadReference deathThread = ((ThreadDeathEvent) debugEvent.event).thread();
                     compiledExpressions.remove(deathThread.uniqueID());
@@ -192,32 +196,27 @@ public class MethodBreakpoint implements IMethodBreakpoint, IEvaluatableBreakpoi
 
         subscriptions.add(subscription);
 
+        if (classPrepareMultiplexer == null) {
+            classPrepareMultiplexer = new ClassPrepareMultiplexer(vm, eventHub);
+        }
+
         // It's possible that different class loaders create new class with the same
         // name.
         // Here to listen to future class prepare events to handle such case.
-        ClassPrepareRequest classPrepareRequest = vm.eventRequestManager().createClassPrepareRequest();
-        classPrepareRequest.addClassFilter(className);
-        classPrepareRequest.enable();
-        requests.add(classPrepareRequest);
-
         CompletableFuture<IMethodBreakpoint> future = new CompletableFuture<>();
-        subscription = eventHub.events()
-                .filter(debugEvent -> debugEvent.event instanceof ClassPrepareEvent
-                        && (classPrepareRequest.equals(debugEvent.event.request())))
-                .subscribe(debugEvent -> {
-                    ClassPrepareEvent event = (ClassPrepareEvent) debugEvent.event;
-                    Optional<MethodEntryRequest> createdRequest = AsyncJdwpUtils.await(
-                        createMethodEntryRequest(event.referenceType())
-                    );
-                    if (createdRequest.isPresent()) {
-                        MethodEntryRequest methodEntryRequest = createdRequest.get();
-                        requests.add(methodEntryRequest);
-                        if (!future.isDone()) {
-                            this.putProperty("verified", true);
-                            future.complete(this);
-                        }
-                    }
-                });
+        subscription = classPrepareMultiplexer.subscribe(className, false, type -> {
+            Optional<MethodEntryRequest> createdRequest = AsyncJdwpUtils.await(
+                createMethodEntryRequest(type)
+            );
+            if (createdRequest.isPresent()) {
+                MethodEntryRequest methodEntryRequest = createdRequest.get();
+                requests.add(methodEntryRequest);
+                if (!future.isDone()) {
+                    this.putProperty("verified", true);
+                    future.complete(this);
+                }
+            }
+        });
         subscriptions.add(subscription);
 
         Runnable createRequestsFromLoadedClasses = () -> {
@@ -263,6 +262,7 @@ public class MethodBreakpoint implements IMethodBreakpoint, IEvaluatableBreakpoi
 
             request.addClassFilter(type);
             request.setSuspendPolicy(EventRequest.SUSPEND_EVENT_THREAD);
+            request.putProperty(IDebugResource.REQUEST_OWNER, this);
             if (hitCount > 0) {
                 request.addCountFilter(hitCount);
             }
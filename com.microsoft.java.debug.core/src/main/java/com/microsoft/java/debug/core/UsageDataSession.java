@@ -26,6 +26,7 @@ import com.microsoft.java.debug.core.adapter.ErrorCode;
 import com.microsoft.java.debug.core.protocol.JsonUtils;
 import com.microsoft.java.debug.core.protocol.Messages.Request;
 import com.microsoft.java.debug.core.protocol.Messages.Response;
+import com.microsoft.java.debug.core.protocol.Requests.SetBreakpointArguments;
 import com.sun.jdi.event.Event;
 
 public class UsageDataSession {
@@ -76,7 +77,7 @@ public class UsageDataSession {
     /**
      * Record usage data from request.
      */
-    public void recordRequest(Request request) {
+    public synchronized void recordRequest(Request request) {
         try {
             requestEventMap.put(request.seq, new RequestEvent(request, System.currentTimeMillis()));
 
@@ -86,15 +87,26 @@ public class UsageDataSession {
             // bp count
             if ("setBreakpoints".equals(request.command)) {
                 String fileIdentifier = "unknown file";
-                JsonElement pathElement = request.arguments.get("source").getAsJsonObject().get("path");
-                JsonElement nameElement = request.arguments.get("source").getAsJsonObject().get("name");
-                if (pathElement != null) {
-                    fileIdentifier = pathElement.getAsString();
-                } else if (nameElement != null) {
-                    fileIdentifier = nameElement.getAsString();
+                int bpCount;
+                if (request.typedArguments instanceof SetBreakpointArguments) {
+                    SetBreakpointArguments bpArguments = (SetBreakpointArguments) request.typedArguments;
+                    if (bpArguments.source.path != null) {
+                        fileIdentifier = bpArguments.source.path;
+                    } else if (bpArguments.source.name != null) {
+                        fileIdentifier = bpArguments.source.name;
+                    }
+                    bpCount = bpArguments.breakpoints.length;
+                } else {
+                    JsonElement pathElement = request.arguments.get("source").getAsJsonObject().get("path");
+                    JsonElement nameElement = request.arguments.get("source").getAsJsonObject().get("name");
+                    if (pathElement != null) {
+                        fileIdentifier = pathElement.getAsString();
+                    } else if (nameElement != null) {
+                        fileIdentifier = nameElement.getAsString();
+                    }
+                    bpCount = request.arguments.get("breakpoints").getAsJsonArray().size();
                 }
                 String filenameHash = AdapterUtils.getSHA256HexDigest(fileIdentifier);
-                int bpCount = request.arguments.get("breakpoints").getAsJsonArray().size();
                 breakpointCountMap.put(filenameHash, breakpointCountMap.getOrDefault(filenameHash, 0) + bpCount);
             }
         } catch (Throwable e) {
@@ -105,7 +117,7 @@ public class UsageDataSession {
     /**
      * Record usage data from response.
      */
-    public void recordResponse(Response response) {
+    public synchronized void recordResponse(Response response) {
         try {
             long responseMillis = System.currentTimeMillis();
             long requestMillis = responseMillis;
@@ -203,7 +215,7 @@ public class UsageDataSession {
     /**
      * Record counts for each user errors encountered.
      */
-    public void recordUserError(ErrorCode errorCode) {
+    public synchronized void recordUserError(ErrorCode errorCode) {
         try {
             String errorCodeStr = errorCode.name();
             userErrorCount.put(errorCodeStr, userErrorCount.getOrDefault(errorCodeStr, 0) + 1);
@@ -26,9 +26,7 @@ import com.sun.jdi.ReferenceType;
 import com.sun.jdi.ThreadReference;
 import com.sun.jdi.VMDisconnectedException;
 import com.sun.jdi.VirtualMachine;
-import com.sun.jdi.event.ClassPrepareEvent;
 import com.sun.jdi.event.ThreadDeathEvent;
-import com.sun.jdi.request.ClassPrepareRequest;
 import com.sun.jdi.request.EventRequest;
 import com.sun.jdi.request.WatchpointRequest;
 
@@ -50,6 +48,7 @@ public class Watchpoint implements IWatchpoint, IEvaluatableBreakpoint {
     // IDebugResource
     private List<EventRequest> requests = new ArrayList<>();
     private List<Disposable> subscriptions = new ArrayList<>();
+    private ClassPrepareMultiplexer classPrepareMultiplexer = null;
 
     Watchpoint(VirtualMachine vm, IEventHub eventHub, String className, String fieldName) {
         this(vm, eventHub, className, fieldName, "write");
@@ -85,6 +84,8 @@ public class Watchpoint implements IWatchpoint, IEvaluatableBreakpoint {
 
     @Override
     public void close() throws Exception {
+        // The events of the deleted requests may still be queued, they must not resolve to the closed breakpoint.
+        requests().forEach(request -> request.putProperty(IDebugResource.REQUEST_OWNER, null));
         try {
             vm.eventRequestManager().deleteEventRequests(requests());
         } catch (VMDisconnectedException ex) {
@@ -151,35 +152,34 @@ public class Watchpoint implements IWatchpoint, IEvaluatableBreakpoint {
         return propertyMap.get(key);
     }
 
+    void setClassPrepareMultiplexer(ClassPrepareMultiplexer classPrepareMultiplexer) {
+        this.classPrepareMultiplexer = classPrepareMultiplexer;
+    }
+
     @Override
     public CompletableFuture<IWatchpoint> install() {
-        Disposable subscription = eventHub.events()
-            .filter(debugEvent -> debugEvent.event instanceof ThreadDeathEvent)
+        Disposable subscription = eventHub.events(ThreadDeathEvent.class)
             .subscribe(debugEvent -> {
                 ThreadReference deathThread = ((ThreadDeathEvent) debugEvent.event).thread();
                 compiledExpressions.remove(deathThread.uniqueID());
             });
         subscriptions.add(subscription);
 
+        if (classPrepareMultiplexer == null) {
+            classPrepareMultiplexer = new ClassPrepareMultiplexer(vm, eventHub);
+        }
+
         // It's possible that different class loaders create new class with the same name.
         // Here to listen to future class prepare events to handle such case.
-        ClassPrepareRequest classPrepareRequest = vm.eventRequestManager().createClassPrepareRequest();
-        classPrepareRequest.addClassFilter(className);
-        classPrepareRequest.enable();
-        requests.add(classPrepareRequest);
-
         CompletableFuture<IWatchpoint> future = new CompletableFuture<>();
-        subscription = eventHub.events()
-            .filter(debugEvent -> debugEvent.event instanceof ClassPrepareEvent && (classPrepareRequest.equals(debugEvent.event.request())))
-            .subscribe(debugEvent -> {
-                ClassPrepareEvent event = (ClassPrepareEvent) debugEvent.event;
-                List<WatchpointRequest> watchpointRequests = createWatchpointRequests(event.referenceType());
-                requests.addAll(watchpointRequests);
-                if (!watchpointRequests.isEmpty() && !future.isDone()) {
-                    this.putProperty("verified", true);
-                    future.complete(this);
-                }
-            });
+        subscription = classPrepareMultiplexer.subscribe(className, false, type -> {
+            List<WatchpointRequest> watchpointRequests = createWatchpointRequests(type);
+            requests.addAll(watchpointRequests);
+            if (!watchpointRequests.isEmpty() && !future.isDone()) {
+                this.putProperty("verified", true);
+                future.complete(this);
+            }
+        });
         subscriptions.add(subscription);
 
         List<EventRequest> watchpointRequests = new ArrayList<>();
@@ -213,6 +213,7 @@ public class Watchpoint implements IWatchpoint, IEvaluatableBreakpoint {
 
         watchpointRequests.forEach(request -> {
             request.setSuspendPolicy(WatchpointRequest.SUSPEND_EVENT_THREAD);
+            request.putProperty(IDebugResource.REQUEST_OWNER, this);
             if (hitCount > 0) {
                 request.addCountFilter(hitCount);
             }
@@ -15,18 +15,26 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import com.microsoft.java.debug.core.AsyncJdwpUtils;
 import com.microsoft.java.debug.core.Configuration;
 import com.microsoft.java.debug.core.IBreakpoint;
 import com.microsoft.java.debug.core.IMethodBreakpoint;
 import com.microsoft.java.debug.core.IWatchpoint;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.VMDisconnectedException;
+import com.sun.jdi.VirtualMachine;
 
 public class BreakpointManager implements IBreakpointManager {
     private static final Logger logger = Logger.getLogger(Configuration.LOGGER_NAME);
@@ -155,6 +163,76 @@ public class BreakpointManager implements IBreakpointManager {
         return breakpointMap.values().toArray(new IBreakpoint[0]);
     }
 
+    @Override
+    public void installBreakpoints(VirtualMachine vm, IBreakpoint[] breakpoints, Consumer<List<IBreakpoint>> verifiedListener) {
+        Map<String, List<IBreakpoint>> breakpointsByClass = new LinkedHashMap<>();
+        for (IBreakpoint breakpoint : breakpoints) {
+            if (breakpoint.className() != null) {
+                breakpointsByClass.computeIfAbsent(breakpoint.className(), key -> new ArrayList<>()).add(breakpoint);
+            }
+        }
+
+        // The classes are looked up in parallel in async mode, and the breakpoints of each class are all started before
+        // waiting for any of them, so that their JDWP requests are pipelined.
+        List<CompletableFuture<List<IBreakpoint>>> futures = new ArrayList<>();
+        for (Map.Entry<String, List<IBreakpoint>> entry : breakpointsByClass.entrySet()) {
+            Supplier<CompletableFuture<List<IBreakpoint>>> installClassBreakpoints =
+                () -> installBreakpoints(vm, entry.getKey(), entry.getValue(), verifiedListener);
+            if (entry.getValue().get(0).async()) {
+                futures.add(AsyncJdwpUtils.supplyAsync(installClassBreakpoints).thenCompose(future -> future));
+            } else {
+                futures.add(installClassBreakpoints.get());
+            }
+        }
+
+        AsyncJdwpUtils.flatAll(futures).thenAccept(verified -> {
+            if (!verified.isEmpty()) {
+                verifiedListener.accept(verified);
+            }
+        });
+    }
+
+    /**
+     * Installs the breakpoints of the class, and returns the future of the ones verified by its loaded types.
+     */
+    private CompletableFuture<List<IBreakpoint>> installBreakpoints(VirtualMachine vm, String className, List<IBreakpoint> breakpoints,
+            Consumer<List<IBreakpoint>> verifiedListener) {
+        List<ReferenceType> loadedTypes;
+        try {
+            loadedTypes = vm.classesByName(className);
+        } catch (VMDisconnectedException e) {
+            // ignore since installing breakpoints is meaningless when JVM is terminated.
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, String.format("Install breakpoint exception: %s", e.toString()), e);
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>(breakpoints.size());
+        for (IBreakpoint breakpoint : breakpoints) {
+            CompletableFuture<Boolean> future;
+            try {
+                future = breakpoint.install(loadedTypes, bp -> verifiedListener.accept(Collections.singletonList(bp)));
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            futures.add(future.exceptionally(e -> {
+                logger.log(Level.SEVERE, String.format("Install breakpoint exception: %s", e.toString()), e);
+                return false;
+            }));
+        }
+
+        return AsyncJdwpUtils.all(futures).thenApply(results -> {
+            List<IBreakpoint> verified = new ArrayList<>();
+            for (int i = 0; i < results.size(); i++) {
+                if (results.get(i)) {
+                    verified.add(breakpoints.get(i));
+                }
+            }
+            return verified;
+        });
+    }
+
     @Override
     public IWatchpoint[] setWatchpoints(IWatchpoint[] changedWatchpoints) {
         List<IWatchpoint> result = new ArrayList<>();
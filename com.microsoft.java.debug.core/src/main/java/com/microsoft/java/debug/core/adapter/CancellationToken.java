@@ -0,0 +1,113 @@
+/*******************************************************************************
+* Copyright (c) 2017 Microsoft Corporation and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*
+* Contributors:
+*     Microsoft Corporation - initial API and implementation
+*******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.microsoft.java.debug.core.Configuration;
+
+/**
+ * The cancellation state of a protocol request. It's cancelled by the DAP <code>cancel</code> request, and observed by
+ * the request handlers to stop the pending JDWP round-trips and in-debuggee invocations as early as possible.
+ */
+public class CancellationToken {
+    private static final Logger logger = Logger.getLogger(Configuration.LOGGER_NAME);
+
+    /**
+     * The token which is never cancelled.
+     */
+    public static final CancellationToken NONE = new CancellationToken() {
+        @Override
+        public void cancel() {
+            // The shared token can't be cancelled.
+        }
+
+        @Override
+        public Registration onCancel(Runnable callback) {
+            // Don't retain the callbacks since they will never run.
+            return () -> { };
+        }
+    };
+
+    private volatile boolean cancelled = false;
+    private final List<Runnable> callbacks = new CopyOnWriteArrayList<>();
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Cancels the token and runs the registered callbacks. Cancelling a token more than once has no effect.
+     */
+    public void cancel() {
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+        }
+
+        for (Runnable callback : callbacks) {
+            runCallback(callback);
+        }
+        callbacks.clear();
+    }
+
+    /**
+     * Registers a callback to run when the token is cancelled. The callback runs immediately if the token
+     * has already been cancelled.
+     *
+     * @param callback
+     *              the callback to abort the pending work
+     * @return the registration which removes the callback when it's closed
+     */
+    public Registration onCancel(Runnable callback) {
+        synchronized (this) {
+            if (!cancelled) {
+                callbacks.add(callback);
+                return () -> callbacks.remove(callback);
+            }
+        }
+
+        runCallback(callback);
+        return () -> { };
+    }
+
+    /**
+     * Throws a {@link CancellationException} if the token has been cancelled.
+     */
+    public void throwIfCancelled() {
+        if (cancelled) {
+            throw new CancellationException("The request is cancelled.");
+        }
+    }
+
+    private static void runCallback(Runnable callback) {
+        try {
+            callback.run();
+        } catch (Exception e) {
+            logger.log(Level.WARNING, String.format("Failed to run the cancellation callback: %s", e.toString()), e);
+        }
+    }
+
+    /**
+     * The handle of a registered cancellation callback.
+     */
+    public interface Registration extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -16,11 +16,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.microsoft.java.debug.core.Configuration;
 import com.microsoft.java.debug.core.adapter.handler.AttachRequestHandler;
+import com.microsoft.java.debug.core.adapter.handler.CancelRequestHandler;
 import com.microsoft.java.debug.core.adapter.handler.CompletionsHandler;
 import com.microsoft.java.debug.core.adapter.handler.ConfigurationDoneRequestHandler;
 import com.microsoft.java.debug.core.adapter.handler.DataBreakpointInfoRequestHandler;
@@ -46,11 +48,16 @@ import com.microsoft.java.debug.core.adapter.handler.StackTraceRequestHandler;
 import com.microsoft.java.debug.core.adapter.handler.StepRequestHandler;
 import com.microsoft.java.debug.core.adapter.handler.ThreadsRequestHandler;
 import com.microsoft.java.debug.core.adapter.handler.VariablesRequestHandler;
+import com.microsoft.java.debug.core.adapter.variables.StackFrameReference;
+import com.microsoft.java.debug.core.adapter.variables.VariableProxy;
 import com.microsoft.java.debug.core.protocol.IProtocolServer;
 import com.microsoft.java.debug.core.protocol.JsonUtils;
 import com.microsoft.java.debug.core.protocol.Messages;
 import com.microsoft.java.debug.core.protocol.Requests.Arguments;
 import com.microsoft.java.debug.core.protocol.Requests.Command;
+import com.microsoft.java.debug.core.protocol.Requests.EvaluateArguments;
+import com.microsoft.java.debug.core.protocol.Requests.InlineValuesArguments;
+import com.microsoft.java.debug.core.protocol.Requests.VariablesArguments;
 
 public class DebugAdapter implements IDebugAdapter {
     private static final Logger logger = Logger.getLogger(Configuration.LOGGER_NAME);
@@ -69,17 +76,64 @@ public class DebugAdapter implements IDebugAdapter {
         initialize();
     }
 
+    @Override
+    public void requestReceived(Messages.Request request) {
+        if (!Command.CANCEL.getName().equals(request.command)) {
+            debugContext.getCancellationTokens().putIfAbsent(request.seq, new CancellationToken());
+        }
+    }
+
+    @Override
+    public Long getThreadId(Messages.Request request) {
+        Command command = Command.parse(request.command);
+        Arguments arguments = request.typedArguments != null ? request.typedArguments
+                : JsonUtils.fromJson(request.arguments, command.getArgumentType());
+        int id;
+        if (arguments instanceof VariablesArguments) {
+            id = ((VariablesArguments) arguments).variablesReference;
+        } else if (arguments instanceof EvaluateArguments) {
+            id = ((EvaluateArguments) arguments).frameId;
+        } else if (arguments instanceof InlineValuesArguments) {
+            id = ((InlineValuesArguments) arguments).frameId;
+        } else {
+            return null;
+        }
+
+        Object object = debugContext.getRecyclableIdPool().getObjectById(id);
+        if (object instanceof StackFrameReference) {
+            return ((StackFrameReference) object).getThread().uniqueID();
+        } else if (object instanceof VariableProxy) {
+            return ((VariableProxy) object).getThreadId();
+        }
+
+        return null;
+    }
+
+    @Override
+    public void flushOutput() {
+        debugContext.getLogpointEngine().flush();
+    }
+
     @Override
     public CompletableFuture<Messages.Response> dispatchRequest(Messages.Request request) {
+        // The token is registered when the request is received, the request cancelled while it was queued is dropped.
+        CancellationToken token = debugContext.getCancellationTokens().computeIfAbsent(request.seq, seq -> new CancellationToken());
+        if (token.isCancelled()) {
+            debugContext.getCancellationTokens().remove(request.seq);
+            return CompletableFuture.completedFuture(createCancelledResponse(request));
+        }
+
         Messages.Response response = new Messages.Response();
         response.request_seq = request.seq;
         response.command = request.command;
         response.success = true;
 
         Command command = Command.parse(request.command);
-        Arguments cmdArgs = JsonUtils.fromJson(request.arguments, command.getArgumentType());
+        Arguments cmdArgs = request.typedArguments != null ? request.typedArguments
+                : JsonUtils.fromJson(request.arguments, command.getArgumentType());
 
         if (debugContext.isVmTerminated() && command != Command.DISCONNECT) {
+            debugContext.getCancellationTokens().remove(request.seq);
             return CompletableFuture.completedFuture(response);
         }
         List<IDebugRequestHandler> handlers = this.debugContext.getLaunchMode() == LaunchMode.DEBUG
@@ -88,22 +142,41 @@ public class DebugAdapter implements IDebugAdapter {
             CompletableFuture<Messages.Response> future = CompletableFuture.completedFuture(response);
             for (IDebugRequestHandler handler : handlers) {
                 future = future.thenCompose((res) -> {
-                    return handler.handle(command, cmdArgs, res, debugContext);
+                    token.throwIfCancelled();
+                    return handler.handle(command, cmdArgs, res, debugContext, token);
                 });
             }
-            return future;
+            return future.handle((res, ex) -> {
+                debugContext.getCancellationTokens().remove(request.seq);
+                if (token.isCancelled()) {
+                    return createCancelledResponse(request);
+                } else if (ex != null) {
+                    throw ex instanceof CompletionException ? (CompletionException) ex : new CompletionException(ex);
+                }
+
+                return res;
+            });
         } else {
+            debugContext.getCancellationTokens().remove(request.seq);
             final String errorMessage = String.format("Unrecognized request: { _request: %s }", request.command);
             logger.log(Level.SEVERE, errorMessage);
             return AdapterUtils.createAsyncErrorResponse(response, ErrorCode.UNRECOGNIZED_REQUEST_FAILURE, errorMessage);
         }
     }
 
+    private static Messages.Response createCancelledResponse(Messages.Request request) {
+        // Per the protocol, the cancelled request responds with the message "cancelled".
+        Messages.Response cancelled = new Messages.Response(request.seq, request.command);
+        AdapterUtils.setErrorResponse(cancelled, ErrorCode.REQUEST_CANCELLED, "cancelled");
+        return cancelled;
+    }
+
     private void initialize() {
         // Register request handlers.
         // When there are multiple handlers registered for the same request, follow the rule "first register, first execute".
         registerHandler(new InitializeRequestHandler());
         registerHandler(new LaunchRequestHandler());
+        registerHandler(new CancelRequestHandler());
 
         // DEBUG node only
         registerHandlerForDebug(new AttachRequestHandler());
@@ -18,6 +18,7 @@ import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.microsoft.java.debug.core.DebugSettings;
 import com.microsoft.java.debug.core.IDebugSession;
@@ -33,6 +34,7 @@ public class DebugAdapterContext implements IDebugAdapterContext {
     private static final int MAX_CACHE_ITEMS = 10000;
     private final StepFilters defaultFilters = new StepFilters();
     private Map<String, String> sourceMappingCache = Collections.synchronizedMap(new LRUCache<>(MAX_CACHE_ITEMS));
+    private Map<Integer, CancellationToken> cancellationTokens = new ConcurrentHashMap<>();
     private IProviderContext providerContext;
     private IProtocolServer server;
 
@@ -69,10 +71,15 @@ public class DebugAdapterContext implements IDebugAdapterContext {
     private IBreakpointManager breakpointManager = new BreakpointManager();
     private IStepResultManager stepResultManager = new StepResultManager();
     private ThreadCache threadCache = new ThreadCache();
+    private ToStringCache toStringCache = new ToStringCache();
+    private TopFramePrefetcher topFramePrefetcher = new TopFramePrefetcher();
+    private ExceptionEventFilter exceptionEventFilter = new ExceptionEventFilter();
+    private LogpointEngine logpointEngine;
 
     public DebugAdapterContext(IProtocolServer server, IProviderContext providerContext) {
         this.providerContext = providerContext;
         this.server = server;
+        this.logpointEngine = new LogpointEngine(server);
     }
 
     @Override
@@ -208,6 +215,11 @@ public class DebugAdapterContext implements IDebugAdapterContext {
         return sourceMappingCache;
     }
 
+    @Override
+    public Map<Integer, CancellationToken> getCancellationTokens() {
+        return cancellationTokens;
+    }
+
     @Override
     public void setDebuggeeEncoding(Charset encoding) {
         debuggeeEncoding = encoding;
@@ -364,6 +376,26 @@ public class DebugAdapterContext implements IDebugAdapterContext {
         return this.threadCache;
     }
 
+    @Override
+    public ToStringCache getToStringCache() {
+        return this.toStringCache;
+    }
+
+    @Override
+    public TopFramePrefetcher getTopFramePrefetcher() {
+        return this.topFramePrefetcher;
+    }
+
+    @Override
+    public LogpointEngine getLogpointEngine() {
+        return this.logpointEngine;
+    }
+
+    @Override
+    public ExceptionEventFilter getExceptionEventFilter() {
+        return this.exceptionEventFilter;
+    }
+
     @Override
     public boolean asyncJDWP() {
         return DebugSettings.getCurrent().asyncJDWP == AsyncMode.ON;
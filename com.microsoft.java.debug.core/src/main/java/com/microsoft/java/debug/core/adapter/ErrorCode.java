@@ -33,6 +33,7 @@ public enum ErrorCode {
     RESTARTFRAME_FAILURE(1016),
     COMPLETIONS_FAILURE(1017),
     EXCEPTION_INFO_FAILURE(1018),
+    REQUEST_CANCELLED(1019),
     EVALUATION_COMPILE_ERROR(2001),
     EVALUATE_NOT_SUSPENDED_THREAD(2002),
     HCR_FAILURE(3001);
@@ -0,0 +1,147 @@
+/*******************************************************************************
+* Copyright (c) 2017 Microsoft Corporation and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*
+* Contributors:
+*     Microsoft Corporation - initial API and implementation
+*******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.microsoft.java.debug.core.DebugSettings;
+import com.microsoft.java.debug.core.protocol.Requests.ClassFilters;
+import com.sun.jdi.Location;
+import com.sun.jdi.event.ExceptionEvent;
+
+/**
+ * Decides whether an exception event suspends the debuggee, before anything is sent to the client.
+ *
+ * <p>The exception requests can only filter the exceptions by their throw location. This filter runs on the Event
+ * Hub thread and additionally skips the exceptions of the types set to never break, the exceptions of the types which
+ * keep the mode of the default filters when those filters would not break, the caught exceptions whose catch location
+ * is filtered by {@link DebugSettings#exceptionCatchLocationFilters}, and the exceptions of a type above
+ * {@link DebugSettings#exceptionRateLimit} per second.</p>
+ */
+public class ExceptionEventFilter {
+    private volatile Set<String> skippedTypes = Collections.emptySet();
+    private volatile Set<String> breakableTypes = null;
+    private volatile DefaultModeTypes defaultModeTypes = new DefaultModeTypes(Collections.emptySet(), false, false);
+    private final Map<String, RateWindow> rateWindows = new HashMap<>();
+
+    /**
+     * Sets the exception types which never break, their subtypes are not affected.
+     */
+    public void setSkippedTypes(Collection<String> typeNames) {
+        skippedTypes = new HashSet<>(typeNames);
+    }
+
+    /**
+     * Sets the only exception types which may break, or null if all the types may break. Their subtypes are not affected.
+     */
+    public void setBreakableTypes(Collection<String> typeNames) {
+        breakableTypes = typeNames == null ? null : new HashSet<>(typeNames);
+    }
+
+    /**
+     * Sets the exception types which only break as the default exception filters do, their subtypes are not affected.
+     */
+    public void setDefaultModeTypes(Collection<String> typeNames, boolean notifyCaught, boolean notifyUncaught) {
+        defaultModeTypes = new DefaultModeTypes(new HashSet<>(typeNames), notifyCaught, notifyUncaught);
+    }
+
+    /**
+     * Returns whether the exception event should suspend the debuggee.
+     */
+    public boolean shouldBreak(ExceptionEvent event) {
+        String typeName = event.exception().referenceType().name();
+        Set<String> breakable = breakableTypes;
+        if (skippedTypes.contains(typeName) || (breakable != null && !breakable.contains(typeName))) {
+            return false;
+        }
+
+        Location catchLocation = event.catchLocation();
+        DefaultModeTypes defaultMode = defaultModeTypes;
+        if (defaultMode.typeNames.contains(typeName) && !(catchLocation == null ? defaultMode.notifyUncaught : defaultMode.notifyCaught)) {
+            return false;
+        }
+
+        ClassFilters catchFilters = DebugSettings.getCurrent().exceptionCatchLocationFilters;
+        if (catchLocation != null && catchFilters != null && !isAllowed(catchLocation.declaringType().name(), catchFilters)) {
+            return false;
+        }
+
+        return tryAcquire(typeName, DebugSettings.getCurrent().exceptionRateLimit);
+    }
+
+    private synchronized boolean tryAcquire(String typeName, int rateLimit) {
+        if (rateLimit <= 0) {
+            return true;
+        }
+
+        long now = System.currentTimeMillis();
+        RateWindow window = rateWindows.computeIfAbsent(typeName, key -> new RateWindow());
+        if (now - window.start >= 1000) {
+            window.start = now;
+            window.count = 0;
+        }
+        return ++window.count <= rateLimit;
+    }
+
+    /**
+     * Applies the class filters the same way as the filters of the event requests. All the allowed patterns have to
+     * match, and none of the skipped ones.
+     */
+    static boolean isAllowed(String className, ClassFilters filters) {
+        if (filters.allowClasses != null) {
+            for (String pattern : filters.allowClasses) {
+                if (!matches(pattern, className)) {
+                    return false;
+                }
+            }
+        }
+        if (filters.skipClasses != null) {
+            for (String pattern : filters.skipClasses) {
+                if (matches(pattern, className)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String pattern, String className) {
+        if (pattern.startsWith("*")) {
+            return className.endsWith(pattern.substring(1));
+        } else if (pattern.endsWith("*")) {
+            return className.startsWith(pattern.substring(0, pattern.length() - 1));
+        }
+        return className.equals(pattern);
+    }
+
+    private static final class DefaultModeTypes {
+        private final Set<String> typeNames;
+        private final boolean notifyCaught;
+        private final boolean notifyUncaught;
+
+        private DefaultModeTypes(Set<String> typeNames, boolean notifyCaught, boolean notifyUncaught) {
+            this.typeNames = typeNames;
+            this.notifyCaught = notifyCaught;
+            this.notifyUncaught = notifyUncaught;
+        }
+    }
+
+    private static final class RateWindow {
+        private long start;
+        private int count;
+    }
+}
@@ -11,9 +11,13 @@
 
 package com.microsoft.java.debug.core.adapter;
 
+import java.util.List;
+import java.util.function.Consumer;
+
 import com.microsoft.java.debug.core.IBreakpoint;
 import com.microsoft.java.debug.core.IMethodBreakpoint;
 import com.microsoft.java.debug.core.IWatchpoint;
+import com.sun.jdi.VirtualMachine;
 
 public interface IBreakpointManager {
 
@@ -45,6 +49,20 @@ public interface IBreakpointManager {
      */
     IBreakpoint[] setBreakpoints(String source, IBreakpoint[] breakpoints, boolean sourceModified);
 
+    /**
+     * Installs the breakpoints to the debuggee in a batch. The breakpoints are grouped by class, so that the loaded types
+     * of each class are looked up only once for all its breakpoints.
+     *
+     * @param vm
+     *              the debuggee VM
+     * @param breakpoints
+     *              the breakpoints to install
+     * @param verifiedListener
+     *              called once with all the breakpoints verified by the loaded types, and later with each breakpoint
+     *              verified by a type loaded afterwards
+     */
+    void installBreakpoints(VirtualMachine vm, IBreakpoint[] breakpoints, Consumer<List<IBreakpoint>> verifiedListener);
+
     /**
      * Update the watchpoint list. If the requested watchpoint already registered in the breakpoint manager,
      * reuse the cached one. Otherwise register the requested watchpoint as a new watchpoint.
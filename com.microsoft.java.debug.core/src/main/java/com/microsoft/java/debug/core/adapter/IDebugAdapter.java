@@ -17,4 +17,26 @@ import com.microsoft.java.debug.core.protocol.Messages;
 
 public interface IDebugAdapter {
     CompletableFuture<Messages.Response> dispatchRequest(Messages.Request request);
+
+    /**
+     * Notifies the adapter that the request is received and waits to be dispatched, so that it can be cancelled before
+     * it's dispatched. It's called on the reader thread and must return quickly.
+     */
+    default void requestReceived(Messages.Request request) {
+    }
+
+    /**
+     * Returns the id of the thread whose frame or variable the request refers to, or null if the request doesn't refer
+     * to a known frame or variable. It's called before the request is dispatched.
+     */
+    default Long getThreadId(Messages.Request request) {
+        return null;
+    }
+
+    /**
+     * Sends the output buffered by the adapter, such as the batched logpoint messages. It's called before the events
+     * which end the output of a run, so that the output is not shown after them.
+     */
+    default void flushOutput() {
+    }
 }
@@ -85,6 +85,11 @@ public interface IDebugAdapterContext {
 
     Map<String, String> getSourceLookupCache();
 
+    /**
+     * Returns the cancellation tokens of the requests being handled, keyed by the request sequence number.
+     */
+    Map<Integer, CancellationToken> getCancellationTokens();
+
     void setDebuggeeEncoding(Charset encoding);
 
     Charset getDebuggeeEncoding();
@@ -141,6 +146,14 @@ public interface IDebugAdapterContext {
 
     ThreadCache getThreadCache();
 
+    ToStringCache getToStringCache();
+
+    TopFramePrefetcher getTopFramePrefetcher();
+
+    LogpointEngine getLogpointEngine();
+
+    ExceptionEventFilter getExceptionEventFilter();
+
     boolean asyncJDWP();
 
     boolean isLocalDebugging();
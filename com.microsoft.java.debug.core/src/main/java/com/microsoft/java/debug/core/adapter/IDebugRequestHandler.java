@@ -27,4 +27,12 @@ public interface IDebugRequestHandler {
 
     CompletableFuture<Response> handle(Command command, Arguments arguments, Response response, IDebugAdapterContext context);
 
+    /**
+     * Handles the request with a cancellation token. The handlers which perform long-running work, such as JDWP round-trips
+     * or in-debuggee invocations, can override it to stop the work when the client cancels the request.
+     */
+    default CompletableFuture<Response> handle(Command command, Arguments arguments, Response response, IDebugAdapterContext context,
+            CancellationToken cancellationToken) {
+        return handle(command, arguments, response, context);
+    }
 }
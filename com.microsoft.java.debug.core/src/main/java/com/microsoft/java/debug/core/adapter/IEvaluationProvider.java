@@ -11,7 +11,10 @@
 
 package com.microsoft.java.debug.core.adapter;
 
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 import com.microsoft.java.debug.core.IEvaluatableBreakpoint;
 import com.sun.jdi.ObjectReference;
@@ -52,6 +55,19 @@ public interface IEvaluationProvider extends IProvider {
      */
     CompletableFuture<Value> evaluate(String expression, ObjectReference thisContext, ThreadReference thread);
 
+    /**
+     * Evaluate the expression in the context of the specified stack frame, and abort the evaluation when the token is cancelled.
+     *
+     * @param expression The expression to be evaluated
+     * @param thread The suspended thread the evaluation will be executed at
+     * @param depth The stack frame depth in the suspended thread
+     * @param cancellationToken The token to abort the evaluation
+     * @return the evaluation result future, which is completed with a CancellationException if the evaluation is aborted
+     */
+    default CompletableFuture<Value> evaluate(String expression, ThreadReference thread, int depth, CancellationToken cancellationToken) {
+        return runCancellable(thread, cancellationToken, () -> evaluate(expression, thread, depth));
+    }
+
     /**
      * Evaluate the conditional breakpoint or logpoint at the given thread and return the promise which is to be resolved/rejected when
      * the evaluation finishes.
@@ -76,6 +92,18 @@ public interface IEvaluationProvider extends IProvider {
     CompletableFuture<Value> invokeMethod(ObjectReference thisContext, String methodName, String methodSignature,
             Value[] args, ThreadReference thread, boolean invokeSuper);
 
+    /**
+     * Invoke the specified method with the given arguments at this object and the given thread, and abort the invocation when
+     * the token is cancelled. See {@link #invokeMethod(ObjectReference, String, String, Value[], ThreadReference, boolean)}.
+     * @param cancellationToken The token to abort the invocation
+     * @return The result of invoking the method, which is completed with a CancellationException if the invocation is aborted
+     */
+    default CompletableFuture<Value> invokeMethod(ObjectReference thisContext, String methodName, String methodSignature,
+            Value[] args, ThreadReference thread, boolean invokeSuper, CancellationToken cancellationToken) {
+        return runCancellable(thread, cancellationToken,
+            () -> invokeMethod(thisContext, methodName, methodSignature, args, thread, invokeSuper));
+    }
+
     /**
      * Call this method when the thread is to be resumed by user, it will first cancel ongoing evaluation tasks on specified thread and
      * ensure the inner states is cleaned.
@@ -83,4 +111,26 @@ public interface IEvaluationProvider extends IProvider {
      * @param thread the JDI thread reference where the evaluation task is executing at
      */
     void clearState(ThreadReference thread);
+
+    private CompletableFuture<Value> runCancellable(ThreadReference thread, CancellationToken cancellationToken,
+            Supplier<CompletableFuture<Value>> task) {
+        if (cancellationToken.isCancelled()) {
+            CompletableFuture<Value> cancelled = new CompletableFuture<>();
+            cancelled.completeExceptionally(new CancellationException("The request is cancelled."));
+            return cancelled;
+        }
+
+        // Clearing the state terminates the ongoing evaluation on the thread and resumes the waiting future.
+        CancellationToken.Registration registration = cancellationToken.onCancel(() -> clearState(thread));
+        return task.get().handle((value, ex) -> {
+            registration.close();
+            if (cancellationToken.isCancelled()) {
+                throw new CancellationException("The request is cancelled.");
+            } else if (ex != null) {
+                throw ex instanceof CompletionException ? (CompletionException) ex : new CompletionException(ex);
+            }
+
+            return value;
+        });
+    }
 }
@@ -12,6 +12,7 @@
 package com.microsoft.java.debug.core.adapter;
 
 import com.microsoft.java.debug.core.adapter.variables.StackFrameReference;
+import com.sun.jdi.IncompatibleThreadStateException;
 import com.sun.jdi.StackFrame;
 import com.sun.jdi.ThreadReference;
 
@@ -24,6 +25,26 @@ public interface IStackFrameManager {
      */
     StackFrame getStackFrame(StackFrameReference ref);
 
+    /**
+     * Get the stackframes starting from the specified depth and length, only the frames not fetched during the
+     * current stop of the thread are fetched from jdi.
+     *
+     * @param thread the jdi thread
+     * @param start the index of the first frame. Index 0 represents the current frame.
+     * @param length the number of frames
+     * @return the stackframes
+     */
+    StackFrame[] getStackFrames(ThreadReference thread, int start, int length);
+
+    /**
+     * Get the number of the stackframes in the specified thread, it's fetched once per stop of the thread.
+     *
+     * @param thread the jdi thread
+     * @return the number of the stackframes
+     * @throws IncompatibleThreadStateException if the thread is not suspended
+     */
+    int getFrameCount(ThreadReference thread) throws IncompatibleThreadStateException;
+
     /**
      * Refresh all stackframes from jdi thread.
      *
@@ -48,4 +69,9 @@ public interface IStackFrameManager {
      * @param thread the jdi thread
      */
     void clearStackFrames(ThreadReference thread);
+
+    /**
+     * Clear the stackframes cache of all the threads.
+     */
+    void clearAllStackFrames();
 }
@@ -13,11 +13,24 @@ package com.microsoft.java.debug.core.adapter;
 
 import java.util.HashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+/**
+ * Maps the values to the generated int ids.
+ *
+ * <p>The ids are kept in an open addressing table keyed by the primitive id. The lookups by id don't take any lock,
+ * they read the published table, while the updates are serialized on the collection.</p>
+ */
 public class IdCollection<T> {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final Entry<?> REMOVED = new Entry<>(0, null);
+
     private int startId;
     private AtomicInteger nextId;
-    private HashMap<Integer, T> idMap;
+    private volatile AtomicReferenceArray<Entry<T>> idTable;
+    private int size;
+    // The number of the removed slots, they keep the probe sequences of the other ids until the table is rebuilt.
+    private int removed;
     private HashMap<T, Integer> reverseMap;
 
     public IdCollection() {
@@ -32,16 +45,18 @@ public class IdCollection<T> {
     public IdCollection(int startId) {
         this.startId = startId;
         this.nextId = new AtomicInteger(startId);
-        this.idMap = new HashMap<>();
+        this.idTable = new AtomicReferenceArray<>(INITIAL_CAPACITY);
         this.reverseMap = new HashMap<>();
     }
 
     /**
      * Reset the id to the initial start number.
      */
-    public void reset() {
+    public synchronized void reset() {
         this.nextId.set(this.startId);
-        this.idMap.clear();
+        this.idTable = new AtomicReferenceArray<>(INITIAL_CAPACITY);
+        this.size = 0;
+        this.removed = 0;
         this.reverseMap.clear();
     }
 
@@ -49,13 +64,27 @@ public class IdCollection<T> {
      * Create a new id if the id doesn't exist for the given value.
      * Otherwise return the existing id.
      */
-    public int create(T value) {
+    public synchronized int create(T value) {
         if (this.reverseMap.containsKey(value)) {
             return this.reverseMap.get(value);
         }
         int id = this.nextId.getAndIncrement();
-        this.idMap.put(id, value);
-        this.reverseMap.put(value, id);
+        put(id, value);
+        return id;
+    }
+
+    /**
+     * Restore a removed id for the given value, so that the value keeps the id it had before. A new id is created if
+     * the id is in use by another value.
+     */
+    public synchronized int restore(int id, T value) {
+        if (this.reverseMap.containsKey(value)) {
+            return this.reverseMap.get(value);
+        }
+        if (id >= this.nextId.get() || get(id) != null) {
+            return create(value);
+        }
+        put(id, value);
         return id;
     }
 
@@ -63,17 +92,96 @@ public class IdCollection<T> {
      * Get the original value by the id.
      */
     public T get(int id) {
-        return this.idMap.get(id);
+        AtomicReferenceArray<Entry<T>> table = this.idTable;
+        int mask = table.length() - 1;
+        for (int index = hash(id) & mask; ; index = (index + 1) & mask) {
+            Entry<T> entry = table.get(index);
+            if (entry == null) {
+                return null;
+            } else if (entry != REMOVED && entry.id == id) {
+                return entry.value;
+            }
+        }
     }
 
     /**
      * Remove the id from the id collection.
      */
-    public T remove(int id) {
-        T target = this.idMap.remove(id);
-        if (target != null) {
-            this.reverseMap.remove(target);
+    @SuppressWarnings("unchecked")
+    public synchronized T remove(int id) {
+        AtomicReferenceArray<Entry<T>> table = this.idTable;
+        int mask = table.length() - 1;
+        for (int index = hash(id) & mask; ; index = (index + 1) & mask) {
+            Entry<T> entry = table.get(index);
+            if (entry == null) {
+                return null;
+            } else if (entry != REMOVED && entry.id == id) {
+                table.set(index, (Entry<T>) REMOVED);
+                this.size--;
+                this.removed++;
+                this.reverseMap.remove(entry.value);
+                return entry.value;
+            }
+        }
+    }
+
+    private void put(int id, T value) {
+        // Keep at least a quarter of the slots empty, so that the probes stay short and always end.
+        if ((this.size + this.removed + 1) * 4 > this.idTable.length() * 3) {
+            rebuild();
+        }
+        if (insert(this.idTable, new Entry<>(id, value))) {
+            this.removed--;
+        }
+        this.size++;
+        this.reverseMap.put(value, id);
+    }
+
+    private void rebuild() {
+        int capacity = INITIAL_CAPACITY;
+        while ((this.size + 1) * 2 > capacity) {
+            capacity <<= 1;
+        }
+        AtomicReferenceArray<Entry<T>> oldTable = this.idTable;
+        AtomicReferenceArray<Entry<T>> newTable = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < oldTable.length(); i++) {
+            Entry<T> entry = oldTable.get(i);
+            if (entry != null && entry != REMOVED) {
+                insert(newTable, entry);
+            }
+        }
+        this.removed = 0;
+        // Publish the new table, the readers of the old one still see a consistent snapshot.
+        this.idTable = newTable;
+    }
+
+    /**
+     * Inserts the entry into the first free slot of its probe sequence, and returns whether it took a removed slot.
+     */
+    private static <T> boolean insert(AtomicReferenceArray<Entry<T>> table, Entry<T> entry) {
+        int mask = table.length() - 1;
+        int index = hash(entry.id) & mask;
+        while (table.get(index) != null && table.get(index) != REMOVED) {
+            index = (index + 1) & mask;
+        }
+        boolean reused = table.get(index) == REMOVED;
+        table.set(index, entry);
+        return reused;
+    }
+
+    private static int hash(int id) {
+        // Spread the sequential ids over the table.
+        int h = id * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static final class Entry<T> {
+        private final int id;
+        private final T value;
+
+        Entry(int id, T value) {
+            this.id = id;
+            this.value = value;
         }
-        return target;
     }
 }
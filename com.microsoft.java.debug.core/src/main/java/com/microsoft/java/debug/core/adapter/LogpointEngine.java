@@ -0,0 +1,262 @@
+/*******************************************************************************
+* Copyright (c) 2017 Microsoft Corporation and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*
+* Contributors:
+*     Microsoft Corporation - initial API and implementation
+*******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.microsoft.java.debug.core.DebugSettings;
+import com.microsoft.java.debug.core.protocol.Events;
+import com.microsoft.java.debug.core.protocol.IProtocolServer;
+import com.microsoft.java.debug.core.protocol.ProtocolExecutors;
+import com.sun.jdi.AbsentInformationException;
+import com.sun.jdi.Field;
+import com.sun.jdi.IncompatibleThreadStateException;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.PrimitiveValue;
+import com.sun.jdi.StringReference;
+import com.sun.jdi.ThreadReference;
+import com.sun.jdi.Value;
+
+/**
+ * Formats and outputs the log messages of the logpoints.
+ *
+ * <p>The log message templates are parsed once and shared by all the breakpoints and threads that use them. When all
+ * the placeholders of a template are plain variables or <code>this.field</code> references whose values are primitives,
+ * boxed primitives, strings or null, the message is formatted by reading the values through JDI, so the suspended thread
+ * can be resumed right away without compiling or invoking anything in the debuggee. The formatted lines are batched
+ * into one output event per flush interval, and an optional rate limit drops the messages above
+ * {@link DebugSettings#logpointRateLimit} per second and reports how many were dropped.</p>
+ */
+public class LogpointEngine {
+    private static final int MAX_CACHE_ITEMS = 1000;
+    private static final long FLUSH_DELAY_MILLIS = 20;
+    private static final int MAX_BATCH_LENGTH = 16 * 1024;
+    private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{(.*?)\\}");
+    private static final Pattern VARIABLE_PATTERN = Pattern.compile("(this\\s*\\.\\s*)?(\\p{javaJavaIdentifierStart}\\p{javaJavaIdentifierPart}*)");
+    private static final Template UNSUPPORTED = new Template(null, null, null);
+    private static final Map<String, Template> templates = Collections.synchronizedMap(new LRUCache<>(MAX_CACHE_ITEMS));
+
+    private final IProtocolServer server;
+    private final StringBuilder batch = new StringBuilder();
+    private final Object flushLock = new Object();
+    private ScheduledFuture<?> flushTask;
+    private long droppedCount = 0;
+    private long windowStart = 0;
+    private int windowCount = 0;
+
+    public LogpointEngine(IProtocolServer server) {
+        this.server = server;
+    }
+
+    /**
+     * Formats the log message at the top stack frame of the suspended thread.
+     *
+     * @param logMessage
+     *              the log message template of the logpoint
+     * @param thread
+     *              the suspended thread
+     * @return the formatted message, or <code>null</code> if it can't be formatted natively
+     */
+    public static String format(String logMessage, ThreadReference thread) {
+        Template template = templates.computeIfAbsent(logMessage, LogpointEngine::parse);
+        if (template == UNSUPPORTED) {
+            return null;
+        }
+
+        try {
+            NativeConditionEvaluator.Context context = new NativeConditionEvaluator.Context(thread);
+            StringBuilder message = new StringBuilder(template.literals[0]);
+            for (int i = 0; i < template.names.length; i++) {
+                Value value = template.fieldOnly[i] ? context.getField(template.names[i], true) : context.getVariable(template.names[i]);
+                message.append(toText(value)).append(template.literals[i + 1]);
+            }
+            return message.toString();
+        } catch (NativeConditionEvaluator.UnsupportedConditionException | IncompatibleThreadStateException | AbsentInformationException
+                | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Takes a permit of the rate limit for a logpoint hit. The hits above the limit are counted as dropped, and the
+     * caller should resume the thread without evaluating the log message.
+     *
+     * @return <code>true</code> if the log message of the hit should be output
+     */
+    public synchronized boolean tryAcquire() {
+        int limit = DebugSettings.getCurrent().logpointRateLimit;
+        if (limit <= 0) {
+            return true;
+        }
+
+        long now = System.nanoTime();
+        if (now - windowStart >= TimeUnit.SECONDS.toNanos(1)) {
+            windowStart = now;
+            windowCount = 0;
+        }
+
+        if (windowCount < limit) {
+            windowCount++;
+            return true;
+        }
+
+        droppedCount++;
+        scheduleFlush();
+        return false;
+    }
+
+    /**
+     * Adds a line to the pending output. The pending lines are sent as one output event when the flush interval
+     * elapses or the batch grows large.
+     *
+     * @param message
+     *              the log message
+     */
+    public void log(String message) {
+        synchronized (this) {
+            batch.append(message).append(System.lineSeparator());
+            if (batch.length() < MAX_BATCH_LENGTH) {
+                scheduleFlush();
+                return;
+            }
+        }
+
+        flush();
+    }
+
+    /**
+     * Sends the pending lines immediately. The protocol server calls it before the stopped, terminated and exited events
+     * so the output keeps its order. The flushes are serialized, so it also returns only after a batch being sent by a
+     * concurrent flush has been sent.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            String output;
+            synchronized (this) {
+                if (flushTask != null) {
+                    flushTask.cancel(false);
+                    flushTask = null;
+                }
+
+                if (droppedCount > 0) {
+                    batch.append(String.format("[Logpoint] %d log messages were dropped because of the rate limit of %d messages per second.%s",
+                            droppedCount, DebugSettings.getCurrent().logpointRateLimit, System.lineSeparator()));
+                    droppedCount = 0;
+                }
+
+                if (batch.length() == 0) {
+                    return;
+                }
+                output = batch.toString();
+                batch.setLength(0);
+            }
+
+            // Send outside the lock of the batch, so the logpoint hits are not blocked by the protocol output.
+            server.sendEvent(Events.OutputEvent.createConsoleOutput(output));
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushTask == null) {
+            flushTask = ProtocolExecutors.scheduler.schedule(this::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static Template parse(String logMessage) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<Boolean> fieldOnly = new ArrayList<>();
+        Matcher matcher = PLACEHOLDER_PATTERN.matcher(logMessage);
+        int start = 0;
+        while (matcher.find()) {
+            Matcher variable = VARIABLE_PATTERN.matcher(matcher.group(1).trim());
+            if (!variable.matches()) {
+                return UNSUPPORTED;
+            }
+            literals.add(logMessage.substring(start, matcher.start()));
+            names.add(variable.group(2));
+            fieldOnly.add(variable.group(1) != null);
+            start = matcher.end();
+        }
+        literals.add(logMessage.substring(start));
+
+        // The evaluation provider compiles the literals into a format string literal, keep the same output for
+        // the format specifiers and escape sequences by leaving them to the provider.
+        for (String literal : literals) {
+            if (literal.indexOf('%') >= 0 || literal.indexOf('\\') >= 0 || literal.indexOf('"') >= 0) {
+                return UNSUPPORTED;
+            }
+        }
+
+        boolean[] fieldOnlyArray = new boolean[fieldOnly.size()];
+        for (int i = 0; i < fieldOnlyArray.length; i++) {
+            fieldOnlyArray[i] = fieldOnly.get(i);
+        }
+        return new Template(literals.toArray(new String[0]), names.toArray(new String[0]), fieldOnlyArray);
+    }
+
+    private static String toText(Value value) {
+        if (value == null) {
+            return "null";
+        } else if (value instanceof StringReference) {
+            return ((StringReference) value).value();
+        } else if (value instanceof PrimitiveValue) {
+            return String.valueOf(NativeConditionEvaluator.toJavaValue(value));
+        } else if (value instanceof ObjectReference && isBoxedPrimitive(((ObjectReference) value).referenceType().name())) {
+            // The toString of the boxed primitives prints the wrapped value.
+            ObjectReference object = (ObjectReference) value;
+            Field field = object.referenceType().fieldByName("value");
+            return String.valueOf(NativeConditionEvaluator.toJavaValue(object.getValue(field)));
+        }
+
+        // The other objects require invoking toString in the debuggee.
+        throw new NativeConditionEvaluator.UnsupportedConditionException();
+    }
+
+    private static boolean isBoxedPrimitive(String typeName) {
+        switch (typeName) {
+            case "java.lang.Boolean":
+            case "java.lang.Byte":
+            case "java.lang.Character":
+            case "java.lang.Short":
+            case "java.lang.Integer":
+            case "java.lang.Long":
+            case "java.lang.Float":
+            case "java.lang.Double":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * A parsed log message, the placeholders are between the literals.
+     */
+    private static class Template {
+        final String[] literals;
+        final String[] names;
+        final boolean[] fieldOnly;
+
+        Template(String[] literals, String[] names, boolean[] fieldOnly) {
+            this.literals = literals;
+            this.names = names;
+            this.fieldOnly = fieldOnly;
+        }
+    }
+}
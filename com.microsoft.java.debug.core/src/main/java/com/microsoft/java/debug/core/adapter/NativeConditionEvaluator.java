@@ -0,0 +1,470 @@
+/*******************************************************************************
+* Copyright (c) 2017 Microsoft Corporation and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*
+* Contributors:
+*     Microsoft Corporation - initial API and implementation
+*******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.sun.jdi.AbsentInformationException;
+import com.sun.jdi.BooleanValue;
+import com.sun.jdi.ByteValue;
+import com.sun.jdi.CharValue;
+import com.sun.jdi.DoubleValue;
+import com.sun.jdi.Field;
+import com.sun.jdi.FloatValue;
+import com.sun.jdi.IncompatibleThreadStateException;
+import com.sun.jdi.IntegerValue;
+import com.sun.jdi.LocalVariable;
+import com.sun.jdi.LongValue;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.ShortValue;
+import com.sun.jdi.StackFrame;
+import com.sun.jdi.StringReference;
+import com.sun.jdi.ThreadReference;
+import com.sun.jdi.Value;
+
+/**
+ * Evaluates the simple breakpoint conditions by reading the variables through JDI, without compiling the expression
+ * or invoking any method in the debuggee.
+ *
+ * <p>The supported conditions are comparisons of primitive locals and fields with literals or with each other, null checks,
+ * <code>equals</code> between strings and string literals, boolean variables, and their combinations with
+ * <code>!</code>, <code>&amp;&amp;</code>, <code>||</code> and parentheses. The names are resolved to the visible
+ * local variables first, and then to the fields of the declaring type of the current method, as the Java compiler does.
+ * The evaluator returns <code>null</code> whenever the condition or the runtime values are out of this subset, and the
+ * caller should fall back to the evaluation provider, which also reports the errors to the user.</p>
+ */
+public final class NativeConditionEvaluator {
+    private static final int MAX_CACHE_ITEMS = 1000;
+    private static final Node UNSUPPORTED = context -> {
+        throw new UnsupportedConditionException();
+    };
+    private static final Map<String, Node> parsedConditions = Collections.synchronizedMap(new LRUCache<>(MAX_CACHE_ITEMS));
+
+    private NativeConditionEvaluator() {
+    }
+
+    /**
+     * Evaluates the condition at the top stack frame of the suspended thread.
+     *
+     * @param condition
+     *              the breakpoint condition
+     * @param thread
+     *              the suspended thread
+     * @return the result of the condition, or <code>null</code> if it can't be evaluated natively
+     */
+    public static Boolean evaluate(String condition, ThreadReference thread) {
+        Node node = parsedConditions.computeIfAbsent(condition, NativeConditionEvaluator::parse);
+        if (node == UNSUPPORTED) {
+            return null;
+        }
+
+        try {
+            Object result = node.evaluate(new Context(thread));
+            return result instanceof Boolean ? (Boolean) result : null;
+        } catch (UnsupportedConditionException | IncompatibleThreadStateException | AbsentInformationException
+                | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    private static Node parse(String condition) {
+        try {
+            Parser parser = new Parser(tokenize(condition));
+            Node node = parser.parseOr();
+            return parser.atEnd() ? node : UNSUPPORTED;
+        } catch (UnsupportedConditionException e) {
+            return UNSUPPORTED;
+        }
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int pos = 0;
+        while (pos < text.length()) {
+            char ch = text.charAt(pos);
+            if (Character.isWhitespace(ch)) {
+                pos++;
+            } else if (ch == '"' || ch == '\'') {
+                int end = text.indexOf(ch, pos + 1);
+                // The escape sequences are not supported.
+                if (end < 0 || text.substring(pos, end).indexOf('\\') >= 0) {
+                    throw new UnsupportedConditionException();
+                }
+                tokens.add(text.substring(pos, end + 1));
+                pos = end + 1;
+            } else if (Character.isJavaIdentifierStart(ch) || Character.isDigit(ch)) {
+                int end = pos + 1;
+                while (end < text.length() && (Character.isJavaIdentifierPart(text.charAt(end))
+                        || (Character.isDigit(ch) && text.charAt(end) == '.'))) {
+                    end++;
+                }
+                tokens.add(text.substring(pos, end));
+                pos = end;
+            } else {
+                String operator = text.startsWith("==", pos) || text.startsWith("!=", pos) || text.startsWith("<=", pos)
+                        || text.startsWith(">=", pos) || text.startsWith("&&", pos) || text.startsWith("||", pos)
+                        ? text.substring(pos, pos + 2) : String.valueOf(ch);
+                if (!"==".equals(operator) && !"!=".equals(operator) && !"<=".equals(operator) && !">=".equals(operator)
+                        && !"&&".equals(operator) && !"||".equals(operator) && "<>!().-".indexOf(ch) < 0) {
+                    throw new UnsupportedConditionException();
+                }
+                tokens.add(operator);
+                pos += operator.length();
+            }
+        }
+        return tokens;
+    }
+
+    static Object toJavaValue(Value value) {
+        if (value == null || value instanceof ObjectReference) {
+            return value;
+        } else if (value instanceof BooleanValue) {
+            return ((BooleanValue) value).value();
+        } else if (value instanceof IntegerValue) {
+            return ((IntegerValue) value).value();
+        } else if (value instanceof LongValue) {
+            return ((LongValue) value).value();
+        } else if (value instanceof CharValue) {
+            return ((CharValue) value).value();
+        } else if (value instanceof ShortValue) {
+            return (int) ((ShortValue) value).value();
+        } else if (value instanceof ByteValue) {
+            return (int) ((ByteValue) value).value();
+        } else if (value instanceof FloatValue) {
+            return ((FloatValue) value).value();
+        } else if (value instanceof DoubleValue) {
+            return ((DoubleValue) value).value();
+        }
+
+        throw new UnsupportedConditionException();
+    }
+
+    private static boolean isNumeric(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Float || value instanceof Double
+                || value instanceof Character;
+    }
+
+    private static Number toNumber(Object value) {
+        return value instanceof Character ? (int) ((Character) value).charValue() : (Number) value;
+    }
+
+    /**
+     * Compares the two operands with the binary numeric promotion of Java.
+     */
+    private static boolean compareNumbers(String operator, Object left, Object right) {
+        Number leftNumber = toNumber(left);
+        Number rightNumber = toNumber(right);
+        if (leftNumber instanceof Double || rightNumber instanceof Double) {
+            double l = leftNumber.doubleValue();
+            double r = rightNumber.doubleValue();
+            return compare(operator, l == r, l < r, l > r);
+        } else if (leftNumber instanceof Float || rightNumber instanceof Float) {
+            float l = leftNumber.floatValue();
+            float r = rightNumber.floatValue();
+            return compare(operator, l == r, l < r, l > r);
+        }
+
+        int result = Long.compare(leftNumber.longValue(), rightNumber.longValue());
+        return compare(operator, result == 0, result < 0, result > 0);
+    }
+
+    private static boolean compare(String operator, boolean equal, boolean less, boolean greater) {
+        switch (operator) {
+            case "==":
+                return equal;
+            case "!=":
+                return !equal;
+            case "<":
+                return less;
+            case "<=":
+                return less || equal;
+            case ">":
+                return greater;
+            case ">=":
+                return greater || equal;
+            default:
+                throw new UnsupportedConditionException();
+        }
+    }
+
+    private static Object evaluateComparison(String operator, Object left, Object right) {
+        if (isNumeric(left) && isNumeric(right)) {
+            return compareNumbers(operator, left, right);
+        } else if (!"==".equals(operator) && !"!=".equals(operator)) {
+            throw new UnsupportedConditionException();
+        } else if (left instanceof Boolean && right instanceof Boolean) {
+            return left.equals(right) == "==".equals(operator);
+        } else if ((left == null || left instanceof ObjectReference) && (right == null || right instanceof ObjectReference)) {
+            // The mirrors of the same object are equal.
+            return Objects.equals(left, right) == "==".equals(operator);
+        }
+
+        // The string literals, and the boxing between primitives and objects are left to the evaluation provider.
+        throw new UnsupportedConditionException();
+    }
+
+    private static Object evaluateEquals(Object target, Object argument) {
+        String text = target instanceof StringLiteral ? ((StringLiteral) target).value
+                : (target instanceof StringReference ? ((StringReference) target).value() : null);
+        if (text == null) {
+            // A null target throws NullPointerException, and other types may override equals.
+            throw new UnsupportedConditionException();
+        }
+
+        if (argument instanceof StringLiteral) {
+            return text.equals(((StringLiteral) argument).value);
+        } else if (argument instanceof StringReference) {
+            return text.equals(((StringReference) argument).value());
+        }
+        // String.equals is false for null and for the other types.
+        return false;
+    }
+
+    private static Object parseLiteral(String token) {
+        if (token.startsWith("\"")) {
+            return new StringLiteral(token.substring(1, token.length() - 1));
+        } else if (token.startsWith("'")) {
+            if (token.length() != 3) {
+                throw new UnsupportedConditionException();
+            }
+            return token.charAt(1);
+        }
+
+        try {
+            char suffix = Character.toLowerCase(token.charAt(token.length() - 1));
+            String digits = Character.isLetter(suffix) ? token.substring(0, token.length() - 1) : token;
+            if (digits.matches("-?0\\d+")) {
+                // The octal literals are not supported.
+                throw new UnsupportedConditionException();
+            } else if (suffix == 'l') {
+                return Long.parseLong(digits);
+            } else if (suffix == 'f') {
+                return Float.parseFloat(digits);
+            } else if (suffix == 'd' || digits.indexOf('.') >= 0) {
+                return Double.parseDouble(digits);
+            } else if (Character.isDigit(suffix)) {
+                return Integer.parseInt(digits);
+            }
+        } catch (NumberFormatException e) {
+            // Hex, octal and binary literals are not supported.
+        }
+
+        throw new UnsupportedConditionException();
+    }
+
+    private interface Node {
+        Object evaluate(Context context) throws IncompatibleThreadStateException, AbsentInformationException;
+    }
+
+    private static class StringLiteral {
+        final String value;
+
+        StringLiteral(String value) {
+            this.value = value;
+        }
+    }
+
+    static class UnsupportedConditionException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        UnsupportedConditionException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * The state of one evaluation, the top frame is fetched on demand.
+     */
+    static class Context {
+        private final ThreadReference thread;
+        private StackFrame frame;
+
+        Context(ThreadReference thread) {
+            this.thread = thread;
+        }
+
+        StackFrame getFrame() throws IncompatibleThreadStateException {
+            if (frame == null) {
+                frame = thread.frame(0);
+            }
+            return frame;
+        }
+
+        Value getVariable(String name) throws IncompatibleThreadStateException, AbsentInformationException {
+            LocalVariable local = getFrame().visibleVariableByName(name);
+            if (local != null) {
+                return getFrame().getValue(local);
+            }
+
+            return getField(name, false);
+        }
+
+        Value getField(String name, boolean instanceOnly) throws IncompatibleThreadStateException {
+            // The field is resolved against the declaring type of the method, the same as the compiler.
+            ReferenceType declaringType = getFrame().location().declaringType();
+            Field field = declaringType.fieldByName(name);
+            if (field == null || (instanceOnly && field.isStatic())
+                    || (field.isPrivate() && !field.declaringType().equals(declaringType))) {
+                throw new UnsupportedConditionException();
+            } else if (field.isStatic()) {
+                return declaringType.getValue(field);
+            }
+
+            ObjectReference thisObject = getFrame().thisObject();
+            if (thisObject == null) {
+                throw new UnsupportedConditionException();
+            }
+            return thisObject.getValue(field);
+        }
+    }
+
+    /**
+     * A recursive descent parser of the supported subset.
+     */
+    private static class Parser {
+        private final List<String> tokens;
+        private int index = 0;
+
+        Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        boolean atEnd() {
+            return index == tokens.size();
+        }
+
+        private String peek() {
+            return index < tokens.size() ? tokens.get(index) : null;
+        }
+
+        private String next() {
+            if (atEnd()) {
+                throw new UnsupportedConditionException();
+            }
+            return tokens.get(index++);
+        }
+
+        private void expect(String token) {
+            if (!token.equals(next())) {
+                throw new UnsupportedConditionException();
+            }
+        }
+
+        Node parseOr() {
+            Node left = parseAnd();
+            while ("||".equals(peek())) {
+                next();
+                Node first = left;
+                Node second = parseAnd();
+                left = context -> asBoolean(first.evaluate(context)) || asBoolean(second.evaluate(context));
+            }
+            return left;
+        }
+
+        private Node parseAnd() {
+            Node left = parseUnary();
+            while ("&&".equals(peek())) {
+                next();
+                Node first = left;
+                Node second = parseUnary();
+                left = context -> asBoolean(first.evaluate(context)) && asBoolean(second.evaluate(context));
+            }
+            return left;
+        }
+
+        private Node parseUnary() {
+            if ("!".equals(peek())) {
+                next();
+                Node operand = parseUnary();
+                return context -> !asBoolean(operand.evaluate(context));
+            }
+            return parseComparison();
+        }
+
+        private Node parseComparison() {
+            Node left = parseOperand();
+            String operator = peek();
+            if ("==".equals(operator) || "!=".equals(operator) || "<".equals(operator) || "<=".equals(operator)
+                    || ">".equals(operator) || ">=".equals(operator)) {
+                next();
+                Node right = parseOperand();
+                return context -> evaluateComparison(operator, left.evaluate(context), right.evaluate(context));
+            }
+            return left;
+        }
+
+        private Node parseOperand() {
+            String token = next();
+            Node operand;
+            if ("(".equals(token)) {
+                operand = parseOr();
+                expect(")");
+            } else if ("-".equals(token)) {
+                String literal = next();
+                Object value = parseLiteral("-" + literal);
+                if (!(value instanceof Number)) {
+                    throw new UnsupportedConditionException();
+                }
+                operand = context -> value;
+            } else if ("true".equals(token) || "false".equals(token)) {
+                boolean value = Boolean.parseBoolean(token);
+                operand = context -> value;
+            } else if ("null".equals(token)) {
+                operand = context -> null;
+            } else if ("this".equals(token)) {
+                expect(".");
+                String name = parseIdentifier();
+                operand = context -> toJavaValue(context.getField(name, true));
+            } else if (Character.isJavaIdentifierStart(token.charAt(0))) {
+                String name = token;
+                operand = context -> toJavaValue(context.getVariable(name));
+            } else {
+                Object value = parseLiteral(token);
+                operand = context -> value;
+            }
+
+            if (".".equals(peek())) {
+                next();
+                if (!"equals".equals(next())) {
+                    throw new UnsupportedConditionException();
+                }
+                expect("(");
+                Node target = operand;
+                Node argument = parseOr();
+                expect(")");
+                return context -> evaluateEquals(target.evaluate(context), argument.evaluate(context));
+            }
+
+            return operand;
+        }
+
+        private String parseIdentifier() {
+            String token = next();
+            if (!Character.isJavaIdentifierStart(token.charAt(0)) || "this".equals(token)) {
+                throw new UnsupportedConditionException();
+            }
+            return token;
+        }
+
+        private static boolean asBoolean(Object value) {
+            if (!(value instanceof Boolean)) {
+                throw new UnsupportedConditionException();
+            }
+            return (Boolean) value;
+        }
+    }
+}
@@ -13,9 +13,16 @@ package com.microsoft.java.debug.core.adapter;
 
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -24,20 +31,60 @@ import com.microsoft.java.debug.core.DebugException;
 import com.microsoft.java.debug.core.UsageDataSession;
 import com.microsoft.java.debug.core.protocol.AbstractProtocolServer;
 import com.microsoft.java.debug.core.protocol.Events.DebugEvent;
+import com.microsoft.java.debug.core.protocol.Events.ExitedEvent;
 import com.microsoft.java.debug.core.protocol.Events.StoppedEvent;
+import com.microsoft.java.debug.core.protocol.Events.TerminatedEvent;
+import com.microsoft.java.debug.core.protocol.IProtocolServer;
 import com.microsoft.java.debug.core.protocol.Messages;
+import com.microsoft.java.debug.core.protocol.Requests.Arguments;
+import com.microsoft.java.debug.core.protocol.Requests.Command;
+import com.microsoft.java.debug.core.protocol.Requests.ContinueArguments;
+import com.microsoft.java.debug.core.protocol.Requests.ExceptionInfoArguments;
+import com.microsoft.java.debug.core.protocol.Requests.PauseArguments;
+import com.microsoft.java.debug.core.protocol.Requests.StackTraceArguments;
+import com.microsoft.java.debug.core.protocol.Requests.StepArguments;
 import com.sun.jdi.VMDisconnectedException;
 
 public class ProtocolServer extends AbstractProtocolServer {
     private static final Logger logger = Logger.getLogger(Configuration.LOGGER_NAME);
+    private static final boolean CONCURRENT_DISPATCH = Boolean.getBoolean("debug.dap.concurrentDispatch");
+
+    /**
+     * The requests which only need to be ordered with the other requests of the same thread.
+     */
+    private static final Set<Command> THREAD_SCOPED_COMMANDS = EnumSet.of(Command.NEXT, Command.STEPIN, Command.STEPOUT,
+            Command.CONTINUE, Command.PAUSE, Command.STACKTRACE, Command.EXCEPTIONINFO);
+    /**
+     * The requests which may invoke methods in the thread of their frame or variable, they're ordered with the other
+     * requests of that thread. They're global requests if the frame or variable is unknown.
+     */
+    private static final Set<Command> FRAME_SCOPED_COMMANDS = EnumSet.of(Command.VARIABLES, Command.EVALUATE,
+            Command.INLINEVALUES);
+    /**
+     * The read-only requests which can run concurrently with any other non-global request.
+     */
+    private static final Set<Command> CONCURRENT_COMMANDS = EnumSet.of(Command.THREADS, Command.SCOPES, Command.SOURCE,
+            Command.COMPLETIONS, Command.DATABREAKPOINTINFO, Command.PROCESSID);
+    /**
+     * The thread-scoped requests which resume the thread, the StoppedEvent must be sent after their responses.
+     */
+    private static final Set<Command> RESUMING_COMMANDS = EnumSet.of(Command.NEXT, Command.STEPIN, Command.STEPOUT,
+            Command.CONTINUE);
 
     private IDebugAdapter debugAdapter;
     private UsageDataSession usageDataSession = new UsageDataSession();
+    private final boolean concurrentDispatch;
 
     private Object lock = new Object();
-    private boolean isDispatchingRequest = false;
+    private int pendingGatingRequests = 0;
     private ConcurrentLinkedQueue<DebugEvent> eventQueue = new ConcurrentLinkedQueue<>();
 
+    // The ordering state of the concurrent dispatch mode, it's only accessed by the serial dispatchRequest calls.
+    private CompletableFuture<Void> globalBarrier = CompletableFuture.completedFuture(null);
+    private List<CompletableFuture<Void>> requestsSinceBarrier = new ArrayList<>();
+    // The entries are removed once the requests complete, so it's accessed by the completing threads as well.
+    private Map<Long, CompletableFuture<Void>> lastRequestOfThread = new ConcurrentHashMap<>();
+
     /**
      * Constructs a protocol server instance based on the given input stream and output stream.
      * @param input
@@ -48,8 +95,14 @@ public class ProtocolServer extends AbstractProtocolServer {
      *              provider context for a series of provider implementation
      */
     public ProtocolServer(InputStream input, OutputStream output, IProviderContext context) {
+        this(input, output, server -> new DebugAdapter(server, context), CONCURRENT_DISPATCH);
+    }
+
+    ProtocolServer(InputStream input, OutputStream output, Function<IProtocolServer, IDebugAdapter> adapterFactory,
+            boolean concurrentDispatch) {
         super(input, output);
-        debugAdapter = new DebugAdapter(this, context);
+        this.concurrentDispatch = concurrentDispatch;
+        debugAdapter = adapterFactory.apply(this);
     }
 
     /**
@@ -83,6 +136,11 @@ public class ProtocolServer extends AbstractProtocolServer {
 
     @Override
     public void sendEvent(DebugEvent event) {
+        if (event instanceof StoppedEvent || event instanceof TerminatedEvent || event instanceof ExitedEvent) {
+            // Send the pending output such as the logpoint messages first, it was produced before the thread stopped or the program ended.
+            debugAdapter.flushOutput();
+        }
+
         // See the two bugs https://github.com/Microsoft/java-debug/issues/134 and https://github.com/Microsoft/vscode/issues/58327,
         // it requires the java-debug to send the StoppedEvent after ContinueResponse/StepResponse is received by DA.
         if (event instanceof StoppedEvent) {
@@ -94,12 +152,12 @@ public class ProtocolServer extends AbstractProtocolServer {
     }
 
     /**
-     * If the the dispatcher is idle, then send the event to the DA immediately.
-     * Else add the new event to an eventQueue first and send them when dispatcher becomes idle again.
+     * If no request which may resume the threads is being dispatched, then send the event to the DA immediately.
+     * Else add the new event to an eventQueue first and send them when these requests are completed.
      */
     private void sendEventLater(DebugEvent event) {
         synchronized (lock) {
-            if (this.isDispatchingRequest) {
+            if (this.pendingGatingRequests > 0) {
                 this.eventQueue.offer(event);
             } else {
                 super.sendEvent(event);
@@ -107,58 +165,176 @@ public class ProtocolServer extends AbstractProtocolServer {
         }
     }
 
+    private void beginGatingRequest() {
+        synchronized (lock) {
+            this.pendingGatingRequests++;
+        }
+    }
+
+    private void endGatingRequest() {
+        synchronized (lock) {
+            this.pendingGatingRequests--;
+            if (this.pendingGatingRequests > 0) {
+                return;
+            }
+
+            while (this.eventQueue.peek() != null) {
+                super.sendEvent(this.eventQueue.poll());
+            }
+        }
+    }
+
     @Override
     protected void dispatchRequest(Messages.Request request) {
         usageDataSession.recordRequest(request);
+        if (concurrentDispatch) {
+            scheduleRequest(request);
+            return;
+        }
+
+        beginGatingRequest();
         try {
-            synchronized (lock) {
-                this.isDispatchingRequest = true;
-            }
+            processRequest(request).join();
+        } finally {
+            endGatingRequest();
+        }
+    }
 
-            debugAdapter.dispatchRequest(request).thenCompose((response) -> {
-                CompletableFuture<Void> future = new CompletableFuture<>();
-                if (response != null) {
-                    sendResponse(response);
-                    future.complete(null);
-                } else {
-                    future.completeExceptionally(new DebugException("The request dispatcher should not return null response.",
-                            ErrorCode.UNKNOWN_FAILURE.getId()));
-                }
-                return future;
-            }).exceptionally((ex) -> {
-                Messages.Response response = new Messages.Response(request.seq, request.command);
-                if (ex instanceof CompletionException && ex.getCause() != null) {
-                    ex = ex.getCause();
-                }
+    @Override
+    protected boolean dispatchUrgentRequest(Messages.Request request) {
+        // The cancel request must not wait behind the request it cancels.
+        if (!Command.CANCEL.getName().equals(request.command)) {
+            // Register the request before it's queued, so that it can be cancelled while it's waiting.
+            debugAdapter.requestReceived(request);
+            return false;
+        }
 
-                if (ex instanceof VMDisconnectedException) {
-                    // mark it success to avoid reporting error on VSCode.
-                    response.success = true;
-                    sendResponse(response);
-                } else {
-                    String exceptionMessage = ex.getMessage() != null ? ex.getMessage() : ex.toString();
-                    ErrorCode errorCode = ex instanceof DebugException ? ErrorCode.parse(((DebugException) ex).getErrorCode()) : ErrorCode.UNKNOWN_FAILURE;
-                    boolean isUserError = ex instanceof DebugException && ((DebugException) ex).isUserError();
-                    if (isUserError) {
-                        usageDataSession.recordUserError(errorCode);
-                    } else {
-                        logger.log(Level.SEVERE, String.format("[error response][%s]: %s", request.command, exceptionMessage), ex);
+        usageDataSession.recordRequest(request);
+        processRequest(request);
+        return true;
+    }
+
+    /**
+     * Runs the request concurrently with the requests dispatched before, and only keeps the order required
+     * by the protocol. The requests of the same thread run in order, and the global requests such as
+     * setBreakpoints and configurationDone wait for all previous requests and block all subsequent requests.
+     */
+    private void scheduleRequest(Messages.Request request) {
+        Command command = Command.parse(request.command);
+        Long threadId = getThreadId(command, request);
+        boolean isGlobal = !CONCURRENT_COMMANDS.contains(command) && threadId == null;
+        boolean isGating = isGlobal || RESUMING_COMMANDS.contains(command);
+
+        requestsSinceBarrier.removeIf(CompletableFuture::isDone);
+        CompletableFuture<Void> predecessor;
+        if (isGlobal) {
+            requestsSinceBarrier.add(globalBarrier);
+            predecessor = CompletableFuture.allOf(requestsSinceBarrier.toArray(new CompletableFuture<?>[0]));
+        } else if (threadId != null) {
+            predecessor = lastRequestOfThread.getOrDefault(threadId, globalBarrier);
+        } else {
+            predecessor = globalBarrier;
+        }
+
+        if (isGating) {
+            beginGatingRequest();
+        }
+
+        CompletableFuture<Void> future = predecessor.thenComposeAsync(res -> processRequest(request), getDispatcher())
+                .whenComplete((res, ex) -> {
+                    if (isGating) {
+                        endGatingRequest();
                     }
+                });
 
-                    sendResponse(AdapterUtils.setErrorResponse(response,
-                            errorCode,
-                            exceptionMessage));
-                }
-                return null;
-            }).join();
-        } finally {
-            synchronized (lock) {
-                this.isDispatchingRequest = false;
+        if (isGlobal) {
+            globalBarrier = future;
+            requestsSinceBarrier.clear();
+            lastRequestOfThread.clear();
+        } else {
+            requestsSinceBarrier.add(future);
+            if (threadId != null) {
+                lastRequestOfThread.put(threadId, future);
+                // Forget the thread once its last request completes, unless a later request of the thread replaced it.
+                future.whenComplete((res, ex) -> lastRequestOfThread.remove(threadId, future));
             }
+        }
+    }
 
-            while (this.eventQueue.peek() != null) {
-                super.sendEvent(this.eventQueue.poll());
-            }
+    private Long getThreadId(Command command, Messages.Request request) {
+        if (THREAD_SCOPED_COMMANDS.contains(command)) {
+            return getThreadId(request.typedArguments);
+        } else if (FRAME_SCOPED_COMMANDS.contains(command)) {
+            return debugAdapter.getThreadId(request);
         }
+
+        return null;
+    }
+
+    private static Long getThreadId(Arguments arguments) {
+        if (arguments instanceof StepArguments) {
+            return ((StepArguments) arguments).threadId;
+        } else if (arguments instanceof ContinueArguments) {
+            return ((ContinueArguments) arguments).threadId;
+        } else if (arguments instanceof PauseArguments) {
+            return ((PauseArguments) arguments).threadId;
+        } else if (arguments instanceof StackTraceArguments) {
+            return ((StackTraceArguments) arguments).threadId;
+        } else if (arguments instanceof ExceptionInfoArguments) {
+            return ((ExceptionInfoArguments) arguments).threadId;
+        }
+
+        return null;
+    }
+
+    /**
+     * Dispatches the request to the debug adapter and sends the response.
+     * @return a future which is completed after the response is sent, it never completes exceptionally
+     */
+    private CompletableFuture<Void> processRequest(Messages.Request request) {
+        CompletableFuture<Messages.Response> responseFuture;
+        try {
+            responseFuture = debugAdapter.dispatchRequest(request);
+        } catch (Exception e) {
+            responseFuture = new CompletableFuture<>();
+            responseFuture.completeExceptionally(e);
+        }
+
+        return responseFuture.thenCompose((response) -> {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            if (response != null) {
+                sendResponse(response);
+                future.complete(null);
+            } else {
+                future.completeExceptionally(new DebugException("The request dispatcher should not return null response.",
+                        ErrorCode.UNKNOWN_FAILURE.getId()));
+            }
+            return future;
+        }).exceptionally((ex) -> {
+            Messages.Response response = new Messages.Response(request.seq, request.command);
+            if (ex instanceof CompletionException && ex.getCause() != null) {
+                ex = ex.getCause();
+            }
+
+            if (ex instanceof VMDisconnectedException) {
+                // mark it success to avoid reporting error on VSCode.
+                response.success = true;
+                sendResponse(response);
+            } else {
+                String exceptionMessage = ex.getMessage() != null ? ex.getMessage() : ex.toString();
+                ErrorCode errorCode = ex instanceof DebugException ? ErrorCode.parse(((DebugException) ex).getErrorCode()) : ErrorCode.UNKNOWN_FAILURE;
+                boolean isUserError = ex instanceof DebugException && ((DebugException) ex).isUserError();
+                if (isUserError) {
+                    usageDataSession.recordUserError(errorCode);
+                } else {
+                    logger.log(Level.SEVERE, String.format("[error response][%s]: %s", request.command, exceptionMessage), ex);
+                }
+
+                sendResponse(AdapterUtils.setErrorResponse(response,
+                        errorCode,
+                        exceptionMessage));
+            }
+            return null;
+        });
     }
 }
@@ -11,10 +11,8 @@
 
 package com.microsoft.java.debug.core.adapter;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -28,13 +26,19 @@ import java.util.Set;
  * <p>It is thread-safe, the duplicate object will not be stored, an object can be referenced by multiple owners, it is
  * removed only when user explicitly calls removeObjectById or all the owners has been removed.</p>
  *
+ * <p>The ids of the objects recycled with their owner are retired rather than forgotten, an equal object added by the
+ * same owner later gets its retired id back. This keeps the ids stable across the recycling, e.g. the variables of a
+ * thread keep their ids across steps as long as they refer to the same values.</p>
+ *
  * @param <O> the owner class type
  * @param <V> the object type
  */
 public class RecyclableObjectPool<O, V> {
     private final IdCollection<V> objectCollection = new IdCollection<>();
-    private final Map<V, Set<O>> referenceMap = new HashMap<>();
-    private final Map<V, Integer> objectIdMap = new HashMap<>();
+    private final Map<V, PooledObject<O>> objectMap = new HashMap<>();
+    // The objects referenced by each owner, so that recycling an owner only visits its own objects.
+    private final Map<O, Set<V>> ownerIndex = new HashMap<>();
+    private final Map<O, Map<V, Integer>> retiredIdMap = new HashMap<>();
 
     /**
      * Add an object into this pool, if the object is already added, the original id will be used, it will also create a
@@ -52,32 +56,30 @@ public class RecyclableObjectPool<O, V> {
             throw new IllegalArgumentException("Null object cannot be added.");
         }
         synchronized (this) {
-            if (!referenceMap.containsKey(object)) {
+            PooledObject<O> pooled = objectMap.get(object);
+            if (pooled == null) {
                 // the object is new
-                Set<O> owners = new HashSet<>(1);
-                owners.add(owner);
-                referenceMap.put(object, owners);
-                int id = objectCollection.create(object);
-                objectIdMap.put(object, id);
-                return id;
-            } else {
-                // the object is already in this pool
-                referenceMap.get(object).add(owner);
-                return objectIdMap.get(object);
+                Map<V, Integer> retiredIds = retiredIdMap.get(owner);
+                Integer retiredId = retiredIds == null ? null : retiredIds.remove(object);
+                int id = retiredId == null ? objectCollection.create(object) : objectCollection.restore(retiredId, object);
+                pooled = new PooledObject<>(id);
+                objectMap.put(object, pooled);
+            }
+            if (pooled.owners.add(owner)) {
+                ownerIndex.computeIfAbsent(owner, key -> new HashSet<>()).add(object);
             }
+            return pooled.id;
         }
     }
 
     /**
-     * Get the object by object id.
+     * Get the object by object id. It doesn't take the lock of the pool.
      *
      * @param id the object id.
      * @return the object, null if the object cannot be found.
      */
     public V getObjectById(int id) {
-        synchronized (this) {
-            return objectCollection.get(id);
-        }
+        return objectCollection.get(id);
     }
 
     /**
@@ -92,14 +94,21 @@ public class RecyclableObjectPool<O, V> {
             if (object == null)  {
                 return false;
             }
-            referenceMap.remove(object);
-            objectIdMap.remove(object);
+            PooledObject<O> pooled = objectMap.remove(object);
+            for (O owner : pooled.owners) {
+                Set<V> owned = ownerIndex.get(owner);
+                owned.remove(object);
+                if (owned.isEmpty()) {
+                    ownerIndex.remove(owner);
+                }
+            }
             return true;
         }
     }
 
     /**
-     * Remove a group of objects with the owner, the objects which only refers this owner will be removed.
+     * Remove a group of objects with the owner, the objects which only refers this owner will be removed and their ids
+     * are retired for the owner.
      *
      * @param owner the owner.
      * @return true if any object is removed.
@@ -109,19 +118,38 @@ public class RecyclableObjectPool<O, V> {
             throw new IllegalArgumentException("owner cannot be null.");
         }
         synchronized (this) {
-            List<V> recycling = new ArrayList<>();
-            referenceMap.forEach((key, value) -> {
-                if (value.remove(owner)) {
-                    if (value.isEmpty()) {
-                        recycling.add(key);
-                    }
+            Set<V> owned = ownerIndex.remove(owner);
+            if (owned == null) {
+                return false;
+            }
+
+            // Only the ids of the last recycled group are retired.
+            Map<V, Integer> retiredIds = new HashMap<>();
+            for (V object : owned) {
+                PooledObject<O> pooled = objectMap.get(object);
+                pooled.owners.remove(owner);
+                if (pooled.owners.isEmpty()) {
+                    objectMap.remove(object);
+                    this.objectCollection.remove(pooled.id);
+                    retiredIds.put(object, pooled.id);
                 }
-            });
-            for (V recycled : recycling) {
-                this.objectCollection.remove(objectIdMap.remove(recycled));
-                referenceMap.remove(recycled);
             }
-            return !recycling.isEmpty();
+            if (retiredIds.isEmpty()) {
+                return false;
+            }
+            retiredIdMap.put(owner, retiredIds);
+            return true;
+        }
+    }
+
+    /**
+     * Forget the retired ids of the owner, e.g. when the owner is gone.
+     *
+     * @param owner the owner.
+     */
+    public void removeRetiredIds(O owner) {
+        synchronized (this) {
+            retiredIdMap.remove(owner);
         }
     }
 
@@ -131,8 +159,18 @@ public class RecyclableObjectPool<O, V> {
     public void removeAllObjects() {
         synchronized (this) {
             this.objectCollection.reset();
-            this.referenceMap.clear();
-            this.objectIdMap.clear();
+            this.objectMap.clear();
+            this.ownerIndex.clear();
+            this.retiredIdMap.clear();
+        }
+    }
+
+    private static final class PooledObject<O> {
+        private final int id;
+        private final Set<O> owners = new HashSet<>(1);
+
+        PooledObject(int id) {
+            this.id = id;
         }
     }
 }
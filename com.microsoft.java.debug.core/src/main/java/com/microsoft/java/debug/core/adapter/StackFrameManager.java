@@ -11,56 +11,102 @@
 
 package com.microsoft.java.debug.core.adapter;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 import com.microsoft.java.debug.core.adapter.variables.StackFrameReference;
 import com.sun.jdi.IncompatibleThreadStateException;
+import com.sun.jdi.InvalidStackFrameException;
 import com.sun.jdi.StackFrame;
 import com.sun.jdi.ThreadReference;
 
+/**
+ * The stack frames of the suspended threads.
+ *
+ * <p>The frames are only valid until their thread resumes, so they're kept per stop of the thread. Only the requested
+ * frames are fetched, and the frame count is fetched once per stop. The frames of a stop are dropped as soon as the
+ * thread is seen running again, i.e. when it's cleared on resume, or when the cached frames have been invalidated
+ * by JDI, e.g. by a method invocation on the thread.</p>
+ */
 public class StackFrameManager implements IStackFrameManager {
-    private Map<Long, StackFrame[]> threadStackFrameMap = new HashMap<>();
+    private Map<Long, StopFrames> threadStackFrameMap = new HashMap<>();
 
     @Override
     public synchronized StackFrame getStackFrame(StackFrameReference ref) {
         ThreadReference thread = ref.getThread();
         int depth = ref.getDepth();
-        StackFrame[] frames = threadStackFrameMap.get(thread.uniqueID());
-        return frames == null || frames.length < depth ? null : frames[depth];
+        StopFrames stopFrames = getStopFrames(thread);
+        StackFrame frame = stopFrames.get(depth);
+        if (frame == null) {
+            try {
+                frame = thread.frame(depth);
+                stopFrames.put(depth, new StackFrame[] {frame});
+            } catch (IncompatibleThreadStateException | IndexOutOfBoundsException e) {
+                return null;
+            }
+        }
+        return frame;
     }
 
     @Override
-    public synchronized StackFrame[] reloadStackFrames(ThreadReference thread) {
-        return threadStackFrameMap.compute(thread.uniqueID(), (key, old) -> {
+    public synchronized StackFrame[] getStackFrames(ThreadReference thread, int start, int length) {
+        StopFrames stopFrames = getStopFrames(thread);
+        // Only fetch the part of the window which is not cached yet.
+        int end = start + length;
+        int missingStart = start;
+        while (missingStart < end && stopFrames.get(missingStart) != null) {
+            missingStart++;
+        }
+        int missingEnd = end;
+        while (missingEnd > missingStart && stopFrames.get(missingEnd - 1) != null) {
+            missingEnd--;
+        }
+        if (missingStart < missingEnd) {
             try {
-                if (old == null || old.length == 0) {
-                    return thread.frames().toArray(new StackFrame[0]);
-                } else {
-                    return thread.frames(0, old.length).toArray(new StackFrame[0]);
-                }
-            } catch (IncompatibleThreadStateException e) {
+                StackFrame[] newFrames = thread.frames(missingStart, missingEnd - missingStart).toArray(new StackFrame[0]);
+                stopFrames.put(missingStart, newFrames);
+            } catch (IncompatibleThreadStateException | IndexOutOfBoundsException e) {
                 return new StackFrame[0];
             }
-        });
+        }
+        return stopFrames.get(start, length);
     }
 
     @Override
-    public synchronized StackFrame[] reloadStackFrames(ThreadReference thread, int start, int length) {
-        long threadId = thread.uniqueID();
-        StackFrame[] old = threadStackFrameMap.get(threadId);
+    public synchronized int getFrameCount(ThreadReference thread) throws IncompatibleThreadStateException {
+        StopFrames stopFrames = getStopFrames(thread);
+        // The count can only be trusted while there are cached frames to tell whether the thread has run since.
+        if (stopFrames.frameCount < 0 || stopFrames.isEmpty()) {
+            stopFrames.frameCount = thread.frameCount();
+        }
+        return stopFrames.frameCount;
+    }
+
+    @Override
+    public synchronized StackFrame[] reloadStackFrames(ThreadReference thread) {
+        StopFrames old = threadStackFrameMap.remove(thread.uniqueID());
         try {
-            StackFrame[] newFrames = thread.frames(start, length).toArray(new StackFrame[0]);
-            if (old == null || (start == 0 && length == old.length)) {
-                threadStackFrameMap.put(threadId, newFrames);
+            StackFrame[] frames;
+            if (old == null || old.isEmpty()) {
+                frames = thread.frames().toArray(new StackFrame[0]);
             } else {
-                int maxLength = Math.max(old.length, start + length);
-                StackFrame[] totalFrames = new StackFrame[maxLength];
-                System.arraycopy(old, 0, totalFrames, 0, old.length);
-                System.arraycopy(newFrames, 0, totalFrames, start, length);
-                threadStackFrameMap.put(threadId, totalFrames);
+                frames = thread.frames(0, old.frames.length).toArray(new StackFrame[0]);
             }
+            StopFrames stopFrames = getStopFrames(thread);
+            stopFrames.put(0, frames);
+            return frames;
+        } catch (IncompatibleThreadStateException | IndexOutOfBoundsException e) {
+            return new StackFrame[0];
+        }
+    }
 
+    @Override
+    public synchronized StackFrame[] reloadStackFrames(ThreadReference thread, int start, int length) {
+        StopFrames stopFrames = getStopFrames(thread);
+        try {
+            StackFrame[] newFrames = thread.frames(start, length).toArray(new StackFrame[0]);
+            stopFrames.put(start, newFrames);
             return newFrames;
         } catch (IncompatibleThreadStateException | IndexOutOfBoundsException  e) {
             return new StackFrame[0];
@@ -71,4 +117,71 @@ public class StackFrameManager implements IStackFrameManager {
     public synchronized void clearStackFrames(ThreadReference thread) {
         threadStackFrameMap.remove(thread.uniqueID());
     }
+
+    @Override
+    public synchronized void clearAllStackFrames() {
+        threadStackFrameMap.clear();
+    }
+
+    private StopFrames getStopFrames(ThreadReference thread) {
+        StopFrames stopFrames = threadStackFrameMap.get(thread.uniqueID());
+        if (stopFrames == null || !stopFrames.isValid()) {
+            stopFrames = new StopFrames();
+            threadStackFrameMap.put(thread.uniqueID(), stopFrames);
+        }
+        return stopFrames;
+    }
+
+    /**
+     * The frames fetched during one stop of a thread, the frames which are not requested yet are null.
+     */
+    private static final class StopFrames {
+        private StackFrame[] frames = new StackFrame[0];
+        private int frameCount = -1;
+
+        StackFrame get(int depth) {
+            return depth < frames.length ? frames[depth] : null;
+        }
+
+        StackFrame[] get(int start, int length) {
+            return Arrays.copyOfRange(frames, start, start + length);
+        }
+
+        void put(int start, StackFrame[] newFrames) {
+            if (start + newFrames.length > frames.length) {
+                frames = Arrays.copyOf(frames, start + newFrames.length);
+            }
+            System.arraycopy(newFrames, 0, frames, start, newFrames.length);
+        }
+
+        boolean isEmpty() {
+            return getAnyFrame() == null;
+        }
+
+        /**
+         * Returns whether the frames are still valid. JDI invalidates the frames locally once the thread resumes, so
+         * checking one of them doesn't need a round trip to the debuggee.
+         */
+        boolean isValid() {
+            StackFrame frame = getAnyFrame();
+            if (frame == null) {
+                return true;
+            }
+            try {
+                frame.thread();
+                return true;
+            } catch (InvalidStackFrameException e) {
+                return false;
+            }
+        }
+
+        private StackFrame getAnyFrame() {
+            for (StackFrame frame : frames) {
+                if (frame != null) {
+                    return frame;
+                }
+            }
+            return null;
+        }
+    }
 }
@@ -17,11 +17,33 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
+import com.microsoft.java.debug.core.DebugUtility;
 import com.sun.jdi.ThreadReference;
 
+/**
+ * The live threads of the debuggee indexed by their unique ids.
+ *
+ * <p>Once the thread events are tracked, the threads are fetched from the VM only once and then kept up to date by
+ * {@link #addThread} and {@link #addDeathThread}. The threads are ordered by their ids, i.e. by the order in which
+ * the debugger has seen them.</p>
+ *
+ * <p>The virtual threads are kept apart from the platform threads, since there may be far more of them. The
+ * virtual threads which reported a debug event are remembered as event threads, so that the suspended ones can be
+ * listed along with the platform threads.</p>
+ */
 public class ThreadCache {
-    private List<ThreadReference> allThreads = new ArrayList<>();
+    private Map<Long, ThreadReference> allThreads = new ConcurrentSkipListMap<>();
+    private Map<Long, ThreadReference> virtualThreads = new ConcurrentSkipListMap<>();
+    private Map<Long, ThreadReference> eventThreads = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(java.util.Map.Entry<Long, ThreadReference> eldest) {
+            return this.size() > 1000;
+        }
+    });
+    private volatile boolean isTracking = false;
+    private volatile boolean isUpToDate = false;
     private Map<Long, String> threadNameMap = new ConcurrentHashMap<>();
     private Map<Long, Boolean> deathThreads = Collections.synchronizedMap(new LinkedHashMap<>() {
         @Override
@@ -30,23 +52,105 @@ public class ThreadCache {
         }
     });
 
+    /**
+     * Marks that the thread start and death events are tracked from now on, the threads are fetched from the VM once
+     * more and then maintained by the events.
+     */
+    public void startTracking() {
+        isTracking = true;
+        isUpToDate = false;
+    }
+
+    /**
+     * Returns whether the cached threads are maintained by the thread events, so they don't need to be fetched again.
+     */
+    public boolean isUpToDate() {
+        return isUpToDate;
+    }
+
+    /**
+     * Sets the threads fetched from the VM.
+     */
     public synchronized void resetThreads(List<ThreadReference> threads) {
-        allThreads.clear();
-        allThreads.addAll(threads);
+        if (!isTracking) {
+            allThreads.clear();
+            virtualThreads.clear();
+        }
+        // The threads started meanwhile are added by their events, so there is nothing to remove while tracking.
+        for (ThreadReference thread : threads) {
+            addThread(thread);
+        }
+        isUpToDate = isTracking;
+    }
+
+    /**
+     * Returns the live platform threads ordered by their ids.
+     */
+    public List<ThreadReference> getThreads() {
+        return new ArrayList<>(allThreads.values());
+    }
+
+    /**
+     * Returns the live virtual threads ordered by their ids.
+     */
+    public List<ThreadReference> getVirtualThreads() {
+        return new ArrayList<>(virtualThreads.values());
+    }
+
+    public int getVirtualThreadCount() {
+        return virtualThreads.size();
     }
 
-    public synchronized List<ThreadReference> getThreads() {
-        return allThreads;
+    public boolean isVirtualThread(long threadId) {
+        return virtualThreads.containsKey(threadId);
     }
 
-    public synchronized ThreadReference getThread(long threadId) {
-        for (ThreadReference thread : allThreads) {
-            if (threadId == thread.uniqueID()) {
-                return thread;
-            }
+    public ThreadReference getThread(long threadId) {
+        ThreadReference thread = allThreads.get(threadId);
+        return thread == null ? virtualThreads.get(threadId) : thread;
+    }
+
+    public void addThread(ThreadReference thread) {
+        addThread(thread, DebugUtility.isVirtualThread(thread));
+    }
+
+    synchronized void addThread(ThreadReference thread, boolean isVirtual) {
+        if (!isDeathThread(thread.uniqueID())) {
+            (isVirtual ? virtualThreads : allThreads).put(thread.uniqueID(), thread);
+        }
+    }
+
+    /**
+     * Remembers the thread which reported a debug event if it's a virtual thread.
+     */
+    public void addEventThread(ThreadReference thread) {
+        long threadId = thread.uniqueID();
+        if (allThreads.containsKey(threadId)) {
+            return;
+        }
+        if (virtualThreads.containsKey(threadId) || DebugUtility.isVirtualThread(thread)) {
+            addEventThread(thread, threadId);
         }
+    }
+
+    private synchronized void addEventThread(ThreadReference thread, long threadId) {
+        if (!isDeathThread(threadId)) {
+            virtualThreads.put(threadId, thread);
+            eventThreads.put(threadId, thread);
+        }
+    }
+
+    /**
+     * Returns the virtual threads which reported a debug event, they may have been resumed since.
+     */
+    public List<ThreadReference> getEventThreads() {
+        synchronized (eventThreads) {
+            return new ArrayList<>(eventThreads.values());
+        }
+    }
 
-        return null;
+    public void removeEventThread(long threadId) {
+        eventThreads.remove(threadId);
     }
 
     public void setThreadName(long threadId, String name) {
@@ -57,9 +161,12 @@ public class ThreadCache {
         return threadNameMap.get(threadId);
     }
 
-    public void addDeathThread(long threadId) {
+    public synchronized void addDeathThread(long threadId) {
         threadNameMap.remove(threadId);
         deathThreads.put(threadId, true);
+        allThreads.remove(threadId);
+        virtualThreads.remove(threadId);
+        eventThreads.remove(threadId);
     }
 
     public void removeDeathThread(long threadId) {
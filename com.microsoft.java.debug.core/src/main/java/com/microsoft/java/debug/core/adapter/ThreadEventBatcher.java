@@ -0,0 +1,96 @@
+/*******************************************************************************
+* Copyright (c) 2017 Microsoft Corporation and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*
+* Contributors:
+*     Microsoft Corporation - initial API and implementation
+*******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.microsoft.java.debug.core.protocol.Events;
+import com.microsoft.java.debug.core.protocol.Events.InvalidatedAreas;
+import com.microsoft.java.debug.core.protocol.IProtocolServer;
+import com.microsoft.java.debug.core.protocol.ProtocolExecutors;
+
+/**
+ * Coalesces the thread start and death notifications of the debuggee.
+ *
+ * <p>The thread events are collected for a short window and sent together when it ends. A thread which starts and
+ * dies inside the same window is never reported. When more threads changed in a window than it's worth reporting one
+ * by one, a single invalidated event for the threads is sent instead, and the client fetches the threads again.</p>
+ */
+public class ThreadEventBatcher {
+    static final String STARTED = "started";
+    static final String EXITED = "exited";
+    private static final long FLUSH_DELAY_MILLIS = 100;
+    private static final int MAX_THREAD_EVENTS = 50;
+
+    private final IProtocolServer server;
+    // The pending reason of each changed thread, in the order of the events.
+    private final Map<Long, String> pendingEvents = new LinkedHashMap<>();
+    private ScheduledFuture<?> flushTask;
+
+    public ThreadEventBatcher(IProtocolServer server) {
+        this.server = server;
+    }
+
+    public synchronized void threadStarted(long threadId) {
+        pendingEvents.put(threadId, STARTED);
+        scheduleFlush();
+    }
+
+    /**
+     * Records the death of the thread, it cancels out the start of the thread in the same window.
+     */
+    public synchronized void threadDied(long threadId) {
+        if (STARTED.equals(pendingEvents.get(threadId))) {
+            pendingEvents.remove(threadId);
+        } else {
+            pendingEvents.put(threadId, EXITED);
+            scheduleFlush();
+        }
+    }
+
+    /**
+     * Sends the pending thread events immediately.
+     */
+    public void flush() {
+        List<Events.DebugEvent> events = new ArrayList<>();
+        synchronized (this) {
+            if (flushTask != null) {
+                flushTask.cancel(false);
+                flushTask = null;
+            }
+
+            if (pendingEvents.size() > MAX_THREAD_EVENTS) {
+                events.add(new Events.InvalidatedEvent(InvalidatedAreas.THREADS));
+            } else {
+                for (Map.Entry<Long, String> entry : pendingEvents.entrySet()) {
+                    events.add(new Events.ThreadEvent(entry.getValue(), entry.getKey()));
+                }
+            }
+            pendingEvents.clear();
+        }
+
+        for (Events.DebugEvent event : events) {
+            server.sendEvent(event);
+        }
+    }
+
+    private void scheduleFlush() {
+        if (flushTask == null) {
+            flushTask = ProtocolExecutors.scheduler.schedule(this::flush, FLUSH_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+}
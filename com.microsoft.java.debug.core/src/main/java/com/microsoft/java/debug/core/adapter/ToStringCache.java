@@ -0,0 +1,73 @@
+/*******************************************************************************
+* Copyright (c) 2017 Microsoft Corporation and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*
+* Contributors:
+*     Microsoft Corporation - initial API and implementation
+*******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.sun.jdi.ObjectCollectedException;
+import com.sun.jdi.ObjectReference;
+
+/**
+ * The <code>toString</code> values computed while a thread is suspended. Most values are only valid until the thread
+ * resumes, so they're dropped along with the variable ids of the thread. The values of the immutable objects are kept
+ * across the steps, the same object renders the same value on the next stop without invoking it again.
+ */
+public class ToStringCache {
+    private static final int MAX_VALUES_PER_THREAD = 1000;
+    private static final Set<String> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(
+            "java.lang.Boolean", "java.lang.Byte", "java.lang.Character", "java.lang.Short", "java.lang.Integer",
+            "java.lang.Long", "java.lang.Float", "java.lang.Double", "java.lang.Class", "java.math.BigInteger",
+            "java.math.BigDecimal", "java.util.UUID"));
+
+    private final Map<Long, Map<ObjectReference, String>> toStringValues = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the mutable map from the objects to their <code>toString</code> values for the suspended thread.
+     */
+    public Map<ObjectReference, String> getToStringValues(long threadId) {
+        return toStringValues.computeIfAbsent(threadId, key -> Collections.synchronizedMap(new LRUCache<>(MAX_VALUES_PER_THREAD)));
+    }
+
+    /**
+     * Drops the values of the thread which may be stale after it runs, only the values of the immutable objects are
+     * kept.
+     */
+    public void removeStaleToStringValues(long threadId) {
+        Map<ObjectReference, String> values = toStringValues.get(threadId);
+        if (values != null) {
+            synchronized (values) {
+                values.keySet().removeIf(object -> !isImmutable(object));
+            }
+        }
+    }
+
+    public void removeToStringValues(long threadId) {
+        toStringValues.remove(threadId);
+    }
+
+    public void removeAllToStringValues() {
+        toStringValues.clear();
+    }
+
+    private static boolean isImmutable(ObjectReference object) {
+        try {
+            return IMMUTABLE_TYPES.contains(object.referenceType().name());
+        } catch (ObjectCollectedException e) {
+            return false;
+        }
+    }
+}
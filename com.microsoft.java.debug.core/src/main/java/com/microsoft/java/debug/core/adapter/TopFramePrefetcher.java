@@ -0,0 +1,116 @@
+/*******************************************************************************
+* Copyright (c) 2017 Microsoft Corporation and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*
+* Contributors:
+*     Microsoft Corporation - initial API and implementation
+*******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.microsoft.java.debug.core.AsyncJdwpUtils;
+import com.microsoft.java.debug.core.DebugSettings;
+import com.microsoft.java.debug.core.adapter.variables.Variable;
+import com.microsoft.java.debug.core.adapter.variables.VariableUtils;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.StackFrame;
+import com.sun.jdi.ThreadReference;
+
+/**
+ * Resolves the variables of the top frame as soon as a thread stops, while the client is still asking for the stack
+ * trace and the scopes. The prefetched variables are handed out once to the first variables request of that frame,
+ * and are dropped when the thread resumes.
+ */
+public class TopFramePrefetcher {
+    private final Map<Long, CompletableFuture<PrefetchedFrame>> prefetchedFrames = new ConcurrentHashMap<>();
+
+    /**
+     * Starts to resolve the variables of the top frame of the stopped thread, if enabled by
+     * {@link DebugSettings#prefetchTopFrameVariables}.
+     */
+    public void prefetch(ThreadReference thread, IStackFrameManager stackFrameManager) {
+        if (!DebugSettings.getCurrent().prefetchTopFrameVariables) {
+            return;
+        }
+
+        boolean showStaticVariables = DebugSettings.getCurrent().showStaticVariables;
+        CompletableFuture<PrefetchedFrame> future = AsyncJdwpUtils.supplyAsync(() -> {
+            StackFrame[] frames = stackFrameManager.getStackFrames(thread, 0, 1);
+            if (frames.length == 0) {
+                return null;
+            }
+            return new PrefetchedFrame(frames[0], listVariables(frames[0], showStaticVariables));
+        });
+        CompletableFuture<PrefetchedFrame> previous = prefetchedFrames.put(thread.uniqueID(), future);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    /**
+     * Returns the prefetched variables of the given top frame and forgets them, or null if they're not prefetched.
+     */
+    public List<Variable> take(long threadId, StackFrame frame) {
+        CompletableFuture<PrefetchedFrame> future = prefetchedFrames.remove(threadId);
+        if (future == null) {
+            return null;
+        }
+
+        try {
+            PrefetchedFrame prefetched = future.join();
+            return prefetched != null && prefetched.frame.equals(frame) ? prefetched.variables : null;
+        } catch (CompletionException | CancellationException e) {
+            // Let the variables request resolve the variables and report the error, if any.
+            return null;
+        }
+    }
+
+    public void cancel(long threadId) {
+        CompletableFuture<PrefetchedFrame> future = prefetchedFrames.remove(threadId);
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    public void cancelAll() {
+        prefetchedFrames.values().forEach(future -> future.cancel(false));
+        prefetchedFrames.clear();
+    }
+
+    private static List<Variable> listVariables(StackFrame frame, boolean showStaticVariables) {
+        CompletableFuture<List<Variable>> localVariables = VariableUtils.listLocalVariablesAsync(frame);
+        CompletableFuture<Variable> thisVariable = VariableUtils.getThisVariableAsync(frame);
+        List<Variable> variables = new ArrayList<>(localVariables.join());
+        Variable thisVar = thisVariable.join();
+        if (thisVar != null) {
+            variables.add(thisVar);
+            // Warm up the field cache of JDI, the fields of 'this' are usually expanded next.
+            ((ObjectReference) thisVar.value).referenceType().allFields();
+        }
+        if (showStaticVariables && frame.location().method().isStatic()) {
+            variables.addAll(VariableUtils.listStaticVariables(frame));
+        }
+        return variables;
+    }
+
+    private static class PrefetchedFrame {
+        private final StackFrame frame;
+        private final List<Variable> variables;
+
+        PrefetchedFrame(StackFrame frame, List<Variable> variables) {
+            this.frame = frame;
+            this.variables = variables;
+        }
+    }
+}
@@ -41,9 +41,15 @@ public class StringObjectFormatter extends ObjectFormatter implements IValueForm
 
     @Override
     public String toString(Object value, Map<String, Object> options) {
+        return format(((StringReference) value).value(), options);
+    }
+
+    /**
+     * Formats the text of a string value the same as {@link #toString(Object, Map)}.
+     */
+    public static String format(String value, Map<String, Object> options) {
         int maxLength = getMaxStringLength(options);
-        return String.format("\"%s\"",
-                maxLength > 0 ? StringUtils.abbreviate(((StringReference) value).value(), maxLength) : ((StringReference) value).value());
+        return String.format("\"%s\"", maxLength > 0 ? StringUtils.abbreviate(value, maxLength) : value);
     }
 
     @Override
@@ -0,0 +1,45 @@
+/*******************************************************************************
+* Copyright (c) 2017 Microsoft Corporation and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*
+* Contributors:
+*     Microsoft Corporation - initial API and implementation
+*******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter.handler;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.microsoft.java.debug.core.adapter.CancellationToken;
+import com.microsoft.java.debug.core.adapter.IDebugAdapterContext;
+import com.microsoft.java.debug.core.adapter.IDebugRequestHandler;
+import com.microsoft.java.debug.core.protocol.Messages.Response;
+import com.microsoft.java.debug.core.protocol.Requests.Arguments;
+import com.microsoft.java.debug.core.protocol.Requests.CancelArguments;
+import com.microsoft.java.debug.core.protocol.Requests.Command;
+
+public class CancelRequestHandler implements IDebugRequestHandler {
+    @Override
+    public List<Command> getTargetCommands() {
+        return Arrays.asList(Command.CANCEL);
+    }
+
+    @Override
+    public CompletableFuture<Response> handle(Command command, Arguments arguments, Response response, IDebugAdapterContext context) {
+        CancelArguments cancelArguments = (CancelArguments) arguments;
+        // The cancellation is a hint, the request which has completed or is unknown is ignored. The progress is not supported.
+        if (cancelArguments != null && cancelArguments.requestId != null) {
+            CancellationToken token = context.getCancellationTokens().get(cancelArguments.requestId);
+            if (token != null) {
+                token.cancel();
+            }
+        }
+
+        return CompletableFuture.completedFuture(response);
+    }
+}
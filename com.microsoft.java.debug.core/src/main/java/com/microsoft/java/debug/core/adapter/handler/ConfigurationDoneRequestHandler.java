@@ -18,6 +18,7 @@ import java.util.logging.Logger;
 
 import com.microsoft.java.debug.core.Configuration;
 import com.microsoft.java.debug.core.DebugEvent;
+import com.microsoft.java.debug.core.DebugSettings;
 import com.microsoft.java.debug.core.DebugUtility;
 import com.microsoft.java.debug.core.IDebugSession;
 import com.microsoft.java.debug.core.JdiExceptionReference;
@@ -28,6 +29,7 @@ import com.microsoft.java.debug.core.adapter.IDebugAdapterContext;
 import com.microsoft.java.debug.core.adapter.IDebugRequestHandler;
 import com.microsoft.java.debug.core.adapter.IEvaluationProvider;
 import com.microsoft.java.debug.core.adapter.IVirtualMachineManagerProvider;
+import com.microsoft.java.debug.core.adapter.ThreadEventBatcher;
 import com.microsoft.java.debug.core.protocol.Events;
 import com.microsoft.java.debug.core.protocol.Messages.Response;
 import com.microsoft.java.debug.core.protocol.Requests.Arguments;
@@ -36,6 +38,7 @@ import com.sun.jdi.ThreadReference;
 import com.sun.jdi.event.BreakpointEvent;
 import com.sun.jdi.event.Event;
 import com.sun.jdi.event.ExceptionEvent;
+import com.sun.jdi.event.LocatableEvent;
 import com.sun.jdi.event.ThreadDeathEvent;
 import com.sun.jdi.event.ThreadStartEvent;
 import com.sun.jdi.event.VMDeathEvent;
@@ -45,6 +48,7 @@ import com.sun.jdi.event.VMStartEvent;
 public class ConfigurationDoneRequestHandler implements IDebugRequestHandler {
     protected static final Logger logger = Logger.getLogger(Configuration.LOGGER_NAME);
     private VMHandler vmHandler = new VMHandler();
+    private ThreadEventBatcher threadEventBatcher;
 
     @Override
     public List<Command> getTargetCommands() {
@@ -56,10 +60,20 @@ public class ConfigurationDoneRequestHandler implements IDebugRequestHandler {
         IDebugSession debugSession = context.getDebugSession();
         vmHandler.setVmProvider(context.getProvider(IVirtualMachineManagerProvider.class));
         if (debugSession != null) {
+            threadEventBatcher = new ThreadEventBatcher(context.getProtocolServer());
             // This is a global event handler to handle the JDI Event from Virtual Machine.
             debugSession.getEventHub().events().subscribe(debugEvent -> {
                 handleDebugEvent(debugEvent, debugSession, context);
             });
+            // Maintain the thread list from the thread events instead of fetching all the threads for every request.
+            debugSession.getEventHub().threadEvents().subscribe(debugEvent -> {
+                if (debugEvent.event instanceof ThreadStartEvent) {
+                    context.getThreadCache().addThread(((ThreadStartEvent) debugEvent.event).thread());
+                } else if (debugEvent.event instanceof ThreadDeathEvent) {
+                    context.getThreadCache().addDeathThread(((ThreadDeathEvent) debugEvent.event).thread().uniqueID());
+                }
+            });
+            context.getThreadCache().startTracking();
             // configuration is done, and start debug session.
             debugSession.start();
             return CompletableFuture.completedFuture(response);
@@ -72,6 +86,10 @@ public class ConfigurationDoneRequestHandler implements IDebugRequestHandler {
     private void handleDebugEvent(DebugEvent debugEvent, IDebugSession debugSession, IDebugAdapterContext context) {
         Event event = debugEvent.event;
         boolean isImportantEvent = true;
+        if (event instanceof LocatableEvent) {
+            // The virtual threads stopped by the debug events are listed along with the platform threads.
+            context.getThreadCache().addEventThread(((LocatableEvent) event).thread());
+        }
         if (event instanceof VMStartEvent) {
             if (context.isVmStopOnEntry()) {
                 DebugUtility.stopOnEntry(debugSession, context.getMainClass()).thenAccept(threadId -> {
@@ -98,13 +116,25 @@ public class ConfigurationDoneRequestHandler implements IDebugRequestHandler {
             }
         } else if (event instanceof ThreadStartEvent) {
             ThreadReference startThread = ((ThreadStartEvent) event).thread();
-            Events.ThreadEvent threadEvent = new Events.ThreadEvent("started", startThread.uniqueID());
-            context.getProtocolServer().sendEvent(threadEvent);
+            if (DebugSettings.getCurrent().coalesceThreadEvents) {
+                threadEventBatcher.threadStarted(startThread.uniqueID());
+                isImportantEvent = false;
+            } else {
+                Events.ThreadEvent threadEvent = new Events.ThreadEvent("started", startThread.uniqueID());
+                context.getProtocolServer().sendEvent(threadEvent);
+            }
         } else if (event instanceof ThreadDeathEvent) {
             ThreadReference deathThread = ((ThreadDeathEvent) event).thread();
-            Events.ThreadEvent threadDeathEvent = new Events.ThreadEvent("exited", deathThread.uniqueID());
-            context.getProtocolServer().sendEvent(threadDeathEvent);
-            context.getThreadCache().addDeathThread(deathThread.uniqueID());
+            if (DebugSettings.getCurrent().coalesceThreadEvents) {
+                threadEventBatcher.threadDied(deathThread.uniqueID());
+                isImportantEvent = false;
+            } else {
+                Events.ThreadEvent threadDeathEvent = new Events.ThreadEvent("exited", deathThread.uniqueID());
+                context.getProtocolServer().sendEvent(threadDeathEvent);
+            }
+            context.getToStringCache().removeToStringValues(deathThread.uniqueID());
+            context.getStackFrameManager().clearStackFrames(deathThread);
+            context.getRecyclableIdPool().removeRetiredIds(deathThread.uniqueID());
         } else if (event instanceof BreakpointEvent) {
             // ignore since SetBreakpointsRequestHandler has already handled
         } else if (event instanceof ExceptionEvent) {
@@ -114,6 +144,10 @@ public class ConfigurationDoneRequestHandler implements IDebugRequestHandler {
             if (engine.isInEvaluation(bpThread)) {
                 return;
             }
+            // The same exception may match both the request of its type and the one of all exceptions.
+            if (!isFirstExceptionEvent(debugEvent) || !context.getExceptionEventFilter().shouldBreak((ExceptionEvent) event)) {
+                return;
+            }
 
             JdiExceptionReference jdiException = new JdiExceptionReference(((ExceptionEvent) event).exception(),
                     ((ExceptionEvent) event).catchLocation() == null);
@@ -129,4 +163,13 @@ public class ConfigurationDoneRequestHandler implements IDebugRequestHandler {
             UsageDataSession.recordEvent(event);
         }
     }
+
+    private static boolean isFirstExceptionEvent(DebugEvent debugEvent) {
+        for (Event event : debugEvent.eventSet) {
+            if (event instanceof ExceptionEvent) {
+                return event == debugEvent.event;
+            }
+        }
+        return true;
+    }
 }
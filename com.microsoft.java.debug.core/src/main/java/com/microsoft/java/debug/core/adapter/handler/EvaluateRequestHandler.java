@@ -26,6 +26,7 @@ import com.microsoft.java.debug.core.Configuration;
 import com.microsoft.java.debug.core.DebugException;
 import com.microsoft.java.debug.core.DebugSettings;
 import com.microsoft.java.debug.core.adapter.AdapterUtils;
+import com.microsoft.java.debug.core.adapter.CancellationToken;
 import com.microsoft.java.debug.core.adapter.ErrorCode;
 import com.microsoft.java.debug.core.adapter.IDebugAdapterContext;
 import com.microsoft.java.debug.core.adapter.IDebugRequestHandler;
@@ -58,6 +59,12 @@ public class EvaluateRequestHandler implements IDebugRequestHandler {
 
     @Override
     public CompletableFuture<Response> handle(Command command, Arguments arguments, Response response, IDebugAdapterContext context) {
+        return handle(command, arguments, response, context, CancellationToken.NONE);
+    }
+
+    @Override
+    public CompletableFuture<Response> handle(Command command, Arguments arguments, Response response, IDebugAdapterContext context,
+            CancellationToken cancellationToken) {
         EvaluateArguments evalArguments = (EvaluateArguments) arguments;
         final boolean showStaticVariables = DebugSettings.getCurrent().showStaticVariables;
         Map<String, Object> options = context.getVariableFormatter().getDefaultOptions();
@@ -85,7 +92,11 @@ public class EvaluateRequestHandler implements IDebugRequestHandler {
         return CompletableFuture.supplyAsync(() -> {
             IEvaluationProvider engine = context.getProvider(IEvaluationProvider.class);
             try {
-                Value value = engine.evaluate(expression, stackFrameReference.getThread(), stackFrameReference.getDepth()).get();
+                Value value = engine.evaluate(expression, stackFrameReference.getThread(), stackFrameReference.getDepth(),
+                        cancellationToken).get();
+                // The expression may have changed the state of the objects, drop the toString values computed before it.
+                context.getToStringCache().removeStaleToStringValues(stackFrameReference.getThread().uniqueID());
+                context.getTopFramePrefetcher().cancel(stackFrameReference.getThread().uniqueID());
                 IVariableFormatter variableFormatter = context.getVariableFormatter();
                 if (value instanceof VoidValue) {
                     response.body = new Responses.EvaluateResponseBody(value.toString(), 0, "<void>", 0);
@@ -136,6 +147,8 @@ public class EvaluateRequestHandler implements IDebugRequestHandler {
                     } else if (sizeValue != null) {
                         detailsString = "size=" + variableFormatter.valueToString(sizeValue, options);
                     } else if (DebugSettings.getCurrent().showToString) {
+                        CancellationToken.Registration registration = cancellationToken.onCancel(
+                            () -> engine.clearState(stackFrameReference.getThread()));
                         try {
                             detailsString = VariableDetailUtils.formatDetailsValue(value, stackFrameReference.getThread(), variableFormatter, options, engine);
                         } catch (OutOfMemoryError e) {
@@ -144,6 +157,8 @@ public class EvaluateRequestHandler implements IDebugRequestHandler {
                         } catch (Exception e) {
                             logger.log(Level.SEVERE, "Failed to compute the toString() value", e);
                             detailsString = "<Failed to resolve the variable details due to \"" + e.getMessage() + "\">";
+                        } finally {
+                            registration.close();
                         }
                     }
 
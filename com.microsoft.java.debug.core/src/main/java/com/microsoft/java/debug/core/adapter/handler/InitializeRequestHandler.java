@@ -61,9 +61,11 @@ public class InitializeRequestHandler implements IDebugRequestHandler {
         };
         caps.exceptionBreakpointFilters = exceptionFilters;
         caps.supportsExceptionInfoRequest = true;
+        caps.supportsExceptionOptions = true;
         caps.supportsDataBreakpoints = true;
         caps.supportsFunctionBreakpoints = true;
         caps.supportsClipboardContext = true;
+        caps.supportsCancelRequest = true;
         response.body = caps;
         return CompletableFuture.completedFuture(response);
     }
@@ -21,6 +21,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 
 import com.microsoft.java.debug.core.Configuration;
 import com.microsoft.java.debug.core.DebugSettings;
@@ -48,6 +49,7 @@ import com.sun.jdi.Method;
 import com.sun.jdi.ObjectReference;
 import com.sun.jdi.ReferenceType;
 import com.sun.jdi.StackFrame;
+import com.sun.jdi.ThreadReference;
 import com.sun.jdi.Value;
 
 import org.apache.commons.lang3.math.NumberUtils;
@@ -113,6 +115,14 @@ public class InlineValuesRequestHandler implements IDebugRequestHandler {
         Map<String, Object> formatterOptions = variableFormatter.getDefaultOptions();
         Map<InlineVariable, Types.Variable> calculatedValues = new HashMap<>();
         IEvaluationProvider evaluationEngine = context.getProvider(IEvaluationProvider.class);
+        ThreadReference thread = stackFrameReference.getThread();
+        Map<ObjectReference, String> toStringValues = context.getToStringCache().getToStringValues(thread.uniqueID());
+        if (DebugSettings.getCurrent().showToString && evaluationEngine != null && !evaluationEngine.isInEvaluation(thread)) {
+            // Compute the toString values of all the inline values with one invocation.
+            List<Value> objects = Arrays.stream(values).filter(Objects::nonNull).map(variable -> variable.value).collect(Collectors.toList());
+            VariableDetailUtils.prefetchToStringValues(objects, thread, evaluationEngine, toStringValues);
+        }
+
         for (int i = 0; i < variableCount; i++) {
             if (values[i] == null) {
                 continue;
@@ -133,7 +143,7 @@ public class InlineValuesRequestHandler implements IDebugRequestHandler {
                 try {
                     JavaLogicalStructure structure = JavaLogicalStructureManager.getLogicalStructure((ObjectReference) value);
                     if (structure != null && structure.getSizeExpression() != null) {
-                        sizeValue = structure.getSize((ObjectReference) value, frame.thread(), evaluationEngine);
+                        sizeValue = structure.getSize((ObjectReference) value, thread, evaluationEngine);
                         if (sizeValue != null && sizeValue instanceof IntegerValue) {
                             indexedVariables = ((IntegerValue) sizeValue).value();
                         }
@@ -150,7 +160,8 @@ public class InlineValuesRequestHandler implements IDebugRequestHandler {
             if (sizeValue != null) {
                 detailsValue = "size=" + variableFormatter.valueToString(sizeValue, formatterOptions);
             } else if (DebugSettings.getCurrent().showToString) {
-                detailsValue = VariableDetailUtils.formatDetailsValue(value, frame.thread(), variableFormatter, formatterOptions, evaluationEngine);
+                detailsValue = VariableDetailUtils.formatDetailsValue(value, thread, variableFormatter, formatterOptions, evaluationEngine,
+                        toStringValues);
             }
 
             if (detailsValue != null) {
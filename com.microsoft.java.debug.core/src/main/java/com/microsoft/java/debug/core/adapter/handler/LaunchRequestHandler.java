@@ -164,8 +164,7 @@ public class LaunchRequestHandler implements IDebugRequestHandler {
 
             IDebugSession debugSession = context.getDebugSession();
             if (debugSession != null) {
-                debugSession.getEventHub().events()
-                    .filter((debugEvent) -> debugEvent.event instanceof VMDisconnectEvent)
+                debugSession.getEventHub().events(VMDisconnectEvent.class)
                     .subscribe((debugEvent) -> {
                         context.setVmTerminated();
                         // Terminate eventHub thread.
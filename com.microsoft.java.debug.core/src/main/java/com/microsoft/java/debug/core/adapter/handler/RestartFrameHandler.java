@@ -83,7 +83,7 @@ public class RestartFrameHandler implements IDebugRequestHandler {
         ThreadReference reference = frameReference.getThread();
         int totalFrames;
         try {
-            totalFrames = reference.frameCount();
+            totalFrames = context.getStackFrameManager().getFrameCount(reference);
         } catch (IncompatibleThreadStateException e) {
             return false;
         }
@@ -93,7 +93,7 @@ public class RestartFrameHandler implements IDebugRequestHandler {
             return false;
         }
 
-        StackFrame[] frames = context.getStackFrameManager().reloadStackFrames(reference, 0, frameReference.getDepth() + 2);
+        StackFrame[] frames = context.getStackFrameManager().getStackFrames(reference, 0, frameReference.getDepth() + 2);
         if (frames.length == 0) {
             return false;
         }
@@ -117,7 +117,7 @@ public class RestartFrameHandler implements IDebugRequestHandler {
 
     private void stepInto(IDebugAdapterContext context, ThreadReference thread) {
         StepRequest request = DebugUtility.createStepIntoRequest(thread, context.getStepFilters().allowClasses, context.getStepFilters().skipClasses);
-        context.getDebugSession().getEventHub().stepEvents().filter(debugEvent -> request.equals(debugEvent.event.request())).take(1).subscribe(debugEvent -> {
+        context.getDebugSession().getEventHub().events(request).take(1).subscribe(debugEvent -> {
             debugEvent.shouldResume = false;
             // Have to send two events to keep the UI sync with the step in operations:
             context.getProtocolServer().sendEvent(new Events.ContinuedEvent(thread.uniqueID()));
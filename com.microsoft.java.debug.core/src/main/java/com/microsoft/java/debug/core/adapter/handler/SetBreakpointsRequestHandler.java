@@ -23,7 +23,9 @@ import org.apache.commons.lang3.StringUtils;
 
 import com.microsoft.java.debug.core.Configuration;
 import com.microsoft.java.debug.core.DebugException;
+import com.microsoft.java.debug.core.DebugSettings;
 import com.microsoft.java.debug.core.IBreakpoint;
+import com.microsoft.java.debug.core.IDebugResource;
 import com.microsoft.java.debug.core.IDebugSession;
 import com.microsoft.java.debug.core.IEvaluatableBreakpoint;
 import com.microsoft.java.debug.core.adapter.AdapterUtils;
@@ -34,6 +36,8 @@ import com.microsoft.java.debug.core.adapter.IDebugRequestHandler;
 import com.microsoft.java.debug.core.adapter.IEvaluationProvider;
 import com.microsoft.java.debug.core.adapter.IHotCodeReplaceProvider;
 import com.microsoft.java.debug.core.adapter.ISourceLookUpProvider;
+import com.microsoft.java.debug.core.adapter.LogpointEngine;
+import com.microsoft.java.debug.core.adapter.NativeConditionEvaluator;
 import com.microsoft.java.debug.core.protocol.Events;
 import com.microsoft.java.debug.core.protocol.Messages.Response;
 import com.microsoft.java.debug.core.protocol.Requests.Arguments;
@@ -129,14 +133,12 @@ public class SetBreakpointsRequestHandler implements IDebugRequestHandler {
             // The source uri sometimes is encoded by VSCode, the debugger will decode it to keep the uri consistent.
             IBreakpoint[] added = context.getBreakpointManager()
                                          .setBreakpoints(AdapterUtils.decodeURIComponent(sourcePath), toAdds, bpArguments.sourceModified);
+            List<IBreakpoint> toInstall = new ArrayList<>();
             for (int i = 0; i < bpArguments.breakpoints.length; i++) {
                 added[i].setAsync(context.asyncJDWP());
                 // For newly added breakpoint, should install it to debuggee first.
                 if (toAdds[i] == added[i] && added[i].className() != null) {
-                    added[i].install().thenAccept(bp -> {
-                        Events.BreakpointEvent bpEvent = new Events.BreakpointEvent("changed", this.convertDebuggerBreakpointToClient(bp, context));
-                        context.getProtocolServer().sendEvent(bpEvent);
-                    });
+                    toInstall.add(added[i]);
                 } else if (added[i].className() != null) {
                     if (toAdds[i].getHitCount() != added[i].getHitCount()) {
                         // Update hitCount condition.
@@ -152,6 +154,9 @@ public class SetBreakpointsRequestHandler implements IDebugRequestHandler {
                     }
 
                 }
+            }
+            installBreakpoints(context, toInstall.toArray(new IBreakpoint[0]), "changed");
+            for (int i = 0; i < bpArguments.breakpoints.length; i++) {
                 res.add(this.convertDebuggerBreakpointToClient(added[i], context));
             }
             response.body = new Responses.SetBreakpointsResponseBody(res);
@@ -164,24 +169,57 @@ public class SetBreakpointsRequestHandler implements IDebugRequestHandler {
     }
 
     private IBreakpoint getAssociatedEvaluatableBreakpoint(IDebugAdapterContext context, BreakpointEvent event) {
-        return Arrays.asList(context.getBreakpointManager().getBreakpoints()).stream().filter(
-            bp -> {
-                return bp instanceof IEvaluatableBreakpoint
-                    && ((IEvaluatableBreakpoint) bp).containsEvaluatableExpression()
-                    && bp.requests().contains(event.request());
-            }
-        ).findFirst().orElse(null);
+        IBreakpoint bp = getAssociatedBreakpoint(context, event);
+        if (bp instanceof IEvaluatableBreakpoint && ((IEvaluatableBreakpoint) bp).containsEvaluatableExpression()) {
+            return bp;
+        }
+
+        return null;
+    }
+
+    /**
+     * Evaluates the simple condition through JDI without the evaluation provider, returns null if it's not supported.
+     */
+    private static Boolean evaluateConditionNatively(IEvaluatableBreakpoint breakpoint, ThreadReference thread) {
+        if (!DebugSettings.getCurrent().nativeBreakpointConditions || !breakpoint.containsConditionalExpression()
+                || breakpoint.containsLogpointExpression()) {
+            return null;
+        }
+
+        return NativeConditionEvaluator.evaluate(breakpoint.getCondition(), thread);
+    }
+
+    /**
+     * Outputs the log message of the logpoint hit without the evaluation provider if possible.
+     *
+     * @return true if the hit is handled and the thread can be resumed immediately
+     */
+    private boolean logNatively(IDebugAdapterContext context, IEvaluatableBreakpoint breakpoint, ThreadReference thread) {
+        if (!context.getLogpointEngine().tryAcquire()) {
+            // The hit is dropped by the rate limit.
+            return true;
+        } else if (!DebugSettings.getCurrent().nativeBreakpointConditions) {
+            return false;
+        }
+
+        String message = LogpointEngine.format(breakpoint.getLogMessage(), thread);
+        if (message == null) {
+            return false;
+        }
+        context.getLogpointEngine().log(message);
+        return true;
     }
 
     private IBreakpoint getAssociatedBreakpoint(IDebugAdapterContext context, BreakpointEvent event) {
-        return Arrays.asList(context.getBreakpointManager().getBreakpoints()).stream()
-                .filter(bp -> bp.requests().contains(event.request())).findFirst().orElse(null);
+        // The breakpoint request refers to the breakpoint which created it, see Breakpoint#createBreakpointRequests.
+        Object owner = event.request() == null ? null : event.request().getProperty(IDebugResource.REQUEST_OWNER);
+        return owner instanceof IBreakpoint ? (IBreakpoint) owner : null;
     }
 
     private void registerBreakpointHandler(IDebugAdapterContext context) {
         IDebugSession debugSession = context.getDebugSession();
         if (debugSession != null) {
-            debugSession.getEventHub().events().filter(debugEvent -> debugEvent.event instanceof BreakpointEvent).subscribe(debugEvent -> {
+            debugSession.getEventHub().events(BreakpointEvent.class).subscribe(debugEvent -> {
                 Event event = debugEvent.event;
                 if (debugEvent.eventSet.size() > 1 && debugEvent.eventSet.stream().anyMatch(t -> t instanceof StepEvent)) {
                     // The StepEvent and BreakpointEvent are grouped in the same event set only if they occurs at the same location and in the same thread.
@@ -196,27 +234,49 @@ public class SetBreakpointsRequestHandler implements IDebugRequestHandler {
                     // find the breakpoint related to this breakpoint event
                     IBreakpoint expressionBP = getAssociatedEvaluatableBreakpoint(context, (BreakpointEvent) event);
                     String breakpointName = computeBreakpointName(event.request());
+                    boolean isLogpoint = expressionBP != null && ((IEvaluatableBreakpoint) expressionBP).containsLogpointExpression();
+                    if (isLogpoint && logNatively(context, (IEvaluatableBreakpoint) expressionBP, bpThread)) {
+                        // The event set is resumed by the event hub.
+                        return;
+                    }
 
-                    if (expressionBP != null) {
+                    Boolean conditionResult = expressionBP == null ? null : evaluateConditionNatively((IEvaluatableBreakpoint) expressionBP, bpThread);
+                    if (conditionResult != null) {
+                        // The condition is evaluated in place, the event set is resumed by the event hub if it's false.
+                        if (conditionResult) {
+                            context.getTopFramePrefetcher().prefetch(bpThread, context.getStackFrameManager());
+                            context.getProtocolServer().sendEvent(new Events.StoppedEvent(
+                                    breakpointName, bpThread.uniqueID()));
+                            debugEvent.shouldResume = false;
+                        }
+                    } else if (expressionBP != null) {
                         CompletableFuture.runAsync(() -> {
                             engine.evaluateForBreakpoint((IEvaluatableBreakpoint) expressionBP, bpThread).whenComplete((value, ex) -> {
-                                boolean resume = handleEvaluationResult(context, bpThread, (IEvaluatableBreakpoint) expressionBP, value, ex);
+                                boolean resume = true;
+                                if (isLogpoint && ex == null && value instanceof StringReference) {
+                                    context.getLogpointEngine().log(((StringReference) value).value());
+                                } else {
+                                    resume = handleEvaluationResult(context, bpThread, (IEvaluatableBreakpoint) expressionBP, value, ex);
+                                }
                                 // Clear the evaluation environment caused by above evaluation.
                                 engine.clearState(bpThread);
 
                                 if (resume) {
                                     debugEvent.eventSet.resume();
                                 } else {
+                                    context.getTopFramePrefetcher().prefetch(bpThread, context.getStackFrameManager());
                                     context.getProtocolServer().sendEvent(new Events.StoppedEvent(
                                             breakpointName, bpThread.uniqueID()));
                                 }
                             });
                         });
+                        debugEvent.shouldResume = false;
                     } else {
+                        context.getTopFramePrefetcher().prefetch(bpThread, context.getStackFrameManager());
                         context.getProtocolServer().sendEvent(new Events.StoppedEvent(
                                 breakpointName, bpThread.uniqueID()));
+                        debugEvent.shouldResume = false;
                     }
-                    debugEvent.shouldResume = false;
                 }
             });
         }
@@ -326,23 +386,40 @@ public class SetBreakpointsRequestHandler implements IDebugRequestHandler {
     }
 
     private void reinstallBreakpoints(IDebugAdapterContext context, List<String> typenames) {
-        if (typenames == null || typenames.isEmpty()) {
+        if (typenames == null || typenames.isEmpty() || context.getDebugSession() == null) {
             return;
         }
+        // The line tables of the redefined types have changed.
+        context.getDebugSession().getLineTableCache().invalidate(typenames);
         IBreakpoint[] breakpoints = context.getBreakpointManager().getBreakpoints();
 
+        List<IBreakpoint> toInstall = new ArrayList<>();
         for (IBreakpoint breakpoint : breakpoints) {
             if (typenames.contains(breakpoint.className())) {
                 try {
                     breakpoint.close();
-                    breakpoint.install().thenAccept(bp -> {
-                        Events.BreakpointEvent bpEvent = new Events.BreakpointEvent("new", this.convertDebuggerBreakpointToClient(bp, context));
-                        context.getProtocolServer().sendEvent(bpEvent);
-                    });
+                    toInstall.add(breakpoint);
                 } catch (Exception e) {
                     logger.log(Level.SEVERE, String.format("Remove breakpoint exception: %s", e.toString()), e);
                 }
             }
         }
+        installBreakpoints(context, toInstall.toArray(new IBreakpoint[0]), "new");
+    }
+
+    /**
+     * Installs the breakpoints in a batch, the breakpoints verified by the loaded classes are reported together.
+     */
+    private void installBreakpoints(IDebugAdapterContext context, IBreakpoint[] breakpoints, String reason) {
+        if (breakpoints.length == 0) {
+            return;
+        }
+
+        context.getBreakpointManager().installBreakpoints(context.getDebugSession().getVM(), breakpoints, verified -> {
+            for (IBreakpoint bp : verified) {
+                Events.BreakpointEvent bpEvent = new Events.BreakpointEvent(reason, this.convertDebuggerBreakpointToClient(bp, context));
+                context.getProtocolServer().sendEvent(bpEvent);
+            }
+        });
     }
 }
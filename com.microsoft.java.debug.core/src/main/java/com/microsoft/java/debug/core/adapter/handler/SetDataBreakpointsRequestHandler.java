@@ -16,10 +16,10 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Stream;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.microsoft.java.debug.core.IDebugResource;
 import com.microsoft.java.debug.core.IDebugSession;
 import com.microsoft.java.debug.core.IEvaluatableBreakpoint;
 import com.microsoft.java.debug.core.IWatchpoint;
@@ -123,7 +123,7 @@ public class SetDataBreakpointsRequestHandler implements IDebugRequestHandler {
     private void registerWatchpointHandler(IDebugAdapterContext context) {
         IDebugSession debugSession = context.getDebugSession();
         if (debugSession != null) {
-            debugSession.getEventHub().events().filter(debugEvent -> debugEvent.event instanceof WatchpointEvent).subscribe(debugEvent -> {
+            debugSession.getEventHub().events(WatchpointEvent.class).subscribe(debugEvent -> {
                 Event event = debugEvent.event;
                 ThreadReference bpThread = ((WatchpointEvent) event).thread();
                 IEvaluationProvider engine = context.getProvider(IEvaluationProvider.class);
@@ -132,13 +132,9 @@ public class SetDataBreakpointsRequestHandler implements IDebugRequestHandler {
                 }
 
                 // Find the watchpoint related to this watchpoint event
-                IWatchpoint watchpoint = Stream.of(context.getBreakpointManager().getWatchpoints())
-                    .filter(wp -> {
-                        return wp instanceof IEvaluatableBreakpoint
-                            && ((IEvaluatableBreakpoint) wp).containsEvaluatableExpression()
-                            && wp.requests().contains(event.request());
-                    })
-                    .findFirst().orElse(null);
+                Object owner = event.request() == null ? null : event.request().getProperty(IDebugResource.REQUEST_OWNER);
+                IWatchpoint watchpoint = owner instanceof IWatchpoint && owner instanceof IEvaluatableBreakpoint
+                    && ((IEvaluatableBreakpoint) owner).containsEvaluatableExpression() ? (IWatchpoint) owner : null;
 
                 if (watchpoint != null) {
                     CompletableFuture.runAsync(() -> {
@@ -11,13 +11,17 @@
 
 package com.microsoft.java.debug.core.adapter.handler;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 
 import org.apache.commons.lang3.ArrayUtils;
 
 import com.microsoft.java.debug.core.DebugSettings;
+import com.microsoft.java.debug.core.ExceptionTypeBreakpoint;
 import com.microsoft.java.debug.core.IDebugSession;
 import com.microsoft.java.debug.core.DebugSettings.IDebugSettingChangeListener;
 import com.microsoft.java.debug.core.adapter.AdapterUtils;
@@ -30,6 +34,7 @@ import com.microsoft.java.debug.core.protocol.Requests.ClassFilters;
 import com.microsoft.java.debug.core.protocol.Requests.Command;
 import com.microsoft.java.debug.core.protocol.Requests.SetExceptionBreakpointsArguments;
 import com.microsoft.java.debug.core.protocol.Types;
+import com.microsoft.java.debug.core.protocol.Types.ExceptionBreakMode;
 import com.sun.jdi.event.VMDeathEvent;
 import com.sun.jdi.event.VMDisconnectEvent;
 
@@ -38,6 +43,7 @@ public class SetExceptionBreakpointsRequestHandler implements IDebugRequestHandl
     private boolean isInitialized = false;
     private boolean notifyCaught = false;
     private boolean notifyUncaught = false;
+    private List<ExceptionTypeBreakpoint> typeBreakpoints = new ArrayList<>();
 
     @Override
     public List<Command> getTargetCommands() {
@@ -63,9 +69,46 @@ public class SetExceptionBreakpointsRequestHandler implements IDebugRequestHandl
         }
 
         String[] filters = ((SetExceptionBreakpointsArguments) arguments).filters;
+        Types.ExceptionOptions[] exceptionOptions = ((SetExceptionBreakpointsArguments) arguments).exceptionOptions;
         try {
             this.notifyCaught = ArrayUtils.contains(filters, Types.ExceptionBreakpointFilter.CAUGHT_EXCEPTION_FILTER_NAME);
             this.notifyUncaught = ArrayUtils.contains(filters, Types.ExceptionBreakpointFilter.UNCAUGHT_EXCEPTION_FILTER_NAME);
+            this.typeBreakpoints = new ArrayList<>();
+            final boolean defaultCaught = this.notifyCaught;
+            final boolean defaultUncaught = this.notifyUncaught;
+            Set<String> skippedTypes = new HashSet<>();
+            Set<String> breakableTypes = null;
+            Set<String> defaultModeTypes = new HashSet<>();
+            if (exceptionOptions != null) {
+                for (Types.ExceptionOptions option : exceptionOptions) {
+                    if (option.path == null || option.path.length == 0 || option.breakMode == null) {
+                        continue;
+                    }
+                    Types.ExceptionPathSegment segment = option.path[option.path.length - 1];
+                    if (segment.negate && option.breakMode == ExceptionBreakMode.NEVER) {
+                        // Never break on the exceptions other than the listed types.
+                        breakableTypes = breakableTypes == null ? new HashSet<>() : breakableTypes;
+                        breakableTypes.addAll(Arrays.asList(segment.names));
+                    } else if (segment.negate) {
+                        // Break on the exceptions other than the listed types, the listed types keep the default filters.
+                        this.notifyCaught |= option.breakMode == ExceptionBreakMode.ALWAYS;
+                        this.notifyUncaught = true;
+                        defaultModeTypes.addAll(Arrays.asList(segment.names));
+                    } else {
+                        applyExceptionOptions(option, segment, skippedTypes);
+                    }
+                }
+            }
+            // The types with an exception breakpoint of their own break by it.
+            for (ExceptionTypeBreakpoint typeBreakpoint : typeBreakpoints) {
+                defaultModeTypes.remove(typeBreakpoint.typeName);
+                if (breakableTypes != null) {
+                    breakableTypes.add(typeBreakpoint.typeName);
+                }
+            }
+            context.getExceptionEventFilter().setSkippedTypes(skippedTypes);
+            context.getExceptionEventFilter().setBreakableTypes(breakableTypes);
+            context.getExceptionEventFilter().setDefaultModeTypes(defaultModeTypes, defaultCaught, defaultUncaught);
             setExceptionBreakpoints(context.getDebugSession(), this.notifyCaught, this.notifyUncaught);
             return CompletableFuture.completedFuture(response);
         } catch (Exception ex) {
@@ -76,11 +119,27 @@ public class SetExceptionBreakpointsRequestHandler implements IDebugRequestHandl
         }
     }
 
+    /**
+     * Maps the exception options of the listed types to the exception type breakpoints. The exception types are named
+     * by the last segment of the path, since Java has no categories of exceptions.
+     */
+    private void applyExceptionOptions(Types.ExceptionOptions option, Types.ExceptionPathSegment segment, Set<String> skippedTypes) {
+        boolean breakCaught = option.breakMode == ExceptionBreakMode.ALWAYS;
+        boolean breakUncaught = option.breakMode != ExceptionBreakMode.NEVER;
+        for (String typeName : segment.names) {
+            if (breakUncaught) {
+                typeBreakpoints.add(new ExceptionTypeBreakpoint(typeName, breakCaught, breakUncaught, option.hitCount));
+            } else {
+                skippedTypes.add(typeName);
+            }
+        }
+    }
+
     private void setExceptionBreakpoints(IDebugSession debugSession, boolean notifyCaught, boolean notifyUncaught) {
         ClassFilters exceptionFilters = DebugSettings.getCurrent().exceptionFilters;
         String[] classFilters = (exceptionFilters == null ? null : exceptionFilters.allowClasses);
         String[] classExclusionFilters = (exceptionFilters == null ? null : exceptionFilters.skipClasses);
-        debugSession.setExceptionBreakpoints(notifyCaught, notifyUncaught, classFilters, classExclusionFilters);
+        debugSession.setExceptionBreakpoints(notifyCaught, notifyUncaught, classFilters, classExclusionFilters, typeBreakpoints);
     }
 
     @Override
@@ -16,10 +16,10 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
-import java.util.stream.Stream;
 
 import org.apache.commons.lang3.StringUtils;
 
+import com.microsoft.java.debug.core.IDebugResource;
 import com.microsoft.java.debug.core.IDebugSession;
 import com.microsoft.java.debug.core.IEvaluatableBreakpoint;
 import com.microsoft.java.debug.core.IMethodBreakpoint;
@@ -131,20 +131,17 @@ public class SetFunctionBreakpointsRequestHandler implements IDebugRequestHandle
     private void registerMethodBreakpointHandler(IDebugAdapterContext context) {
         IDebugSession debugSession = context.getDebugSession();
         if (debugSession != null) {
-            debugSession.getEventHub().events().filter(debugEvent -> debugEvent.event instanceof MethodEntryEvent)
+            debugSession.getEventHub().events(MethodEntryEvent.class)
                     .subscribe(debugEvent -> {
                         MethodEntryEvent methodEntryEvent = (MethodEntryEvent) debugEvent.event;
                         ThreadReference bpThread = methodEntryEvent.thread();
                         IEvaluationProvider engine = context.getProvider(IEvaluationProvider.class);
 
                         // Find the method breakpoint related to this method entry event
-                        IMethodBreakpoint methodBreakpoint = Stream
-                                .of(context.getBreakpointManager().getMethodBreakpoints())
-                                .filter(mp -> {
-                                    return mp.requests().contains(methodEntryEvent.request())
-                                            && matches(methodEntryEvent, mp);
-                                })
-                                .findFirst().orElse(null);
+                        Object owner = methodEntryEvent.request() == null ? null
+                                : methodEntryEvent.request().getProperty(IDebugResource.REQUEST_OWNER);
+                        IMethodBreakpoint methodBreakpoint = owner instanceof IMethodBreakpoint
+                                && matches(methodEntryEvent, (IMethodBreakpoint) owner) ? (IMethodBreakpoint) owner : null;
 
                         if (methodBreakpoint != null) {
                             if (methodBreakpoint instanceof IEvaluatableBreakpoint
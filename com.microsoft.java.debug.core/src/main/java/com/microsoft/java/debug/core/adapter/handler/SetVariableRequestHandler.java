@@ -117,6 +117,8 @@ public class SetVariableRequestHandler implements IDebugRequestHandler {
                 ErrorCode.SET_VARIABLE_FAILURE,
                 e);
         }
+        // The toString values of the objects referring to the changed variable are stale.
+        context.getToStringCache().removeStaleToStringValues(((VariableProxy) container).getThreadId());
         int referenceId = 0;
         if (newValue instanceof ObjectReference && VariableUtils.hasChildren(newValue, showStaticVariables)) {
             long threadId = ((VariableProxy) container).getThreadId();
@@ -15,7 +15,9 @@ import java.io.File;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
@@ -29,6 +31,7 @@ import com.microsoft.java.debug.core.adapter.AdapterUtils;
 import com.microsoft.java.debug.core.adapter.IDebugAdapterContext;
 import com.microsoft.java.debug.core.adapter.IDebugRequestHandler;
 import com.microsoft.java.debug.core.adapter.ISourceLookUpProvider;
+import com.microsoft.java.debug.core.adapter.LRUCache;
 import com.microsoft.java.debug.core.adapter.formatter.SimpleTypeFormatter;
 import com.microsoft.java.debug.core.adapter.variables.StackFrameReference;
 import com.microsoft.java.debug.core.protocol.Messages.Response;
@@ -49,6 +52,10 @@ import com.sun.jdi.StackFrame;
 import com.sun.jdi.ThreadReference;
 
 public class StackTraceRequestHandler implements IDebugRequestHandler {
+    private static final int MAX_CACHED_LOCATIONS = 5000;
+
+    // The client frames derived from the code locations, they're reused across the stops at the same locations.
+    private final Map<Location, Types.StackFrame> locationFrameCache = Collections.synchronizedMap(new LRUCache<>(MAX_CACHED_LOCATIONS));
 
     @Override
     public List<Command> getTargetCommands() {
@@ -70,12 +77,8 @@ public class StackTraceRequestHandler implements IDebugRequestHandler {
         int totalFrames = 0;
         if (thread != null) {
             try {
-                // Thread state has changed and then invalidate the stack frame cache.
-                if (stacktraceArgs.startFrame == 0) {
-                    context.getStackFrameManager().clearStackFrames(thread);
-                }
-
-                totalFrames = thread.frameCount();
+                // The stack frame cache is scoped to the current stop of the thread, it's dropped once the thread runs.
+                totalFrames = context.getStackFrameManager().getFrameCount(thread);
                 int count = stacktraceArgs.levels == 0 ? totalFrames - stacktraceArgs.startFrame
                         : Math.min(totalFrames - stacktraceArgs.startFrame, stacktraceArgs.levels);
                 if (totalFrames <= stacktraceArgs.startFrame) {
@@ -83,13 +86,27 @@ public class StackTraceRequestHandler implements IDebugRequestHandler {
                     return CompletableFuture.completedFuture(response);
                 }
 
-                StackFrame[] frames = context.getStackFrameManager().reloadStackFrames(thread, stacktraceArgs.startFrame, count);
-                List<StackFrameInfo> jdiFrames = resolveStackFrameInfos(frames, context.asyncJDWP());
+                StackFrame[] frames = context.getStackFrameManager().getStackFrames(thread, stacktraceArgs.startFrame, count);
+                Types.StackFrame[] clientFrames = new Types.StackFrame[count];
+                List<StackFrame> unresolvedFrames = new ArrayList<>();
                 for (int i = 0; i < count; i++) {
+                    clientFrames[i] = locationFrameCache.get(frames[i].location());
+                    if (clientFrames[i] == null) {
+                        unresolvedFrames.add(frames[i]);
+                    }
+                }
+                List<StackFrameInfo> jdiFrames = resolveStackFrameInfos(unresolvedFrames.toArray(new StackFrame[0]), context.asyncJDWP());
+                for (int i = 0, j = 0; i < count; i++) {
+                    if (clientFrames[i] == null) {
+                        StackFrameInfo jdiFrame = jdiFrames.get(j++);
+                        clientFrames[i] = convertDebuggerStackFrameToClient(jdiFrame, 0, context);
+                        locationFrameCache.put(jdiFrame.location, clientFrames[i]);
+                    }
                     StackFrameReference stackframe = new StackFrameReference(thread, stacktraceArgs.startFrame + i);
                     int frameId = context.getRecyclableIdPool().addObject(stacktraceArgs.threadId, stackframe);
-                    StackFrameInfo jdiFrame = jdiFrames.get(i);
-                    result.add(convertDebuggerStackFrameToClient(jdiFrame, frameId, context));
+                    Types.StackFrame clientFrame = clientFrames[i];
+                    result.add(new Types.StackFrame(frameId, clientFrame.name, clientFrame.source, clientFrame.line, clientFrame.column,
+                            clientFrame.presentationHint));
                 }
             } catch (IncompatibleThreadStateException | IndexOutOfBoundsException | URISyntaxException
                     | AbsentInformationException | ObjectCollectedException
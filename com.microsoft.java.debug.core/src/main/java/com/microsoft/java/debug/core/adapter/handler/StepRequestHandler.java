@@ -23,6 +23,7 @@ import com.microsoft.java.debug.core.AsyncJdwpUtils;
 import com.microsoft.java.debug.core.DebugEvent;
 import com.microsoft.java.debug.core.DebugUtility;
 import com.microsoft.java.debug.core.IDebugSession;
+import com.microsoft.java.debug.core.IEventHub;
 import com.microsoft.java.debug.core.JdiExceptionReference;
 import com.microsoft.java.debug.core.JdiMethodResult;
 import com.microsoft.java.debug.core.adapter.AdapterUtils;
@@ -54,6 +55,7 @@ import com.sun.jdi.request.EventRequestManager;
 import com.sun.jdi.request.MethodExitRequest;
 import com.sun.jdi.request.StepRequest;
 
+import io.reactivex.Observable;
 import io.reactivex.disposables.Disposable;
 
 public class StepRequestHandler implements IDebugRequestHandler {
@@ -83,7 +85,10 @@ public class StepRequestHandler implements IDebugRequestHandler {
                 ThreadState threadState = new ThreadState();
                 threadState.threadId = threadId;
                 threadState.pendingStepType = command;
-                threadState.eventSubscription = context.getDebugSession().getEventHub().events()
+                // The step requests are recreated while stepping through the filtered locations, so subscribe to the event types.
+                IEventHub eventHub = context.getDebugSession().getEventHub();
+                threadState.eventSubscription = Observable.merge(eventHub.events(StepEvent.class), eventHub.events(MethodExitEvent.class),
+                        eventHub.events(BreakpointEvent.class), eventHub.events(ExceptionEvent.class))
                     .filter(debugEvent -> (debugEvent.event instanceof StepEvent && debugEvent.event.request().equals(threadState.pendingStepRequest))
                         || (debugEvent.event instanceof MethodExitEvent && debugEvent.event.request().equals(threadState.pendingMethodExitRequest))
                         || debugEvent.event instanceof BreakpointEvent
@@ -255,6 +260,7 @@ public class StepRequestHandler implements IDebugRequestHandler {
             if (threadState.eventSubscription != null) {
                 threadState.eventSubscription.dispose();
             }
+            context.getTopFramePrefetcher().prefetch(thread, context.getStackFrameManager());
             context.getProtocolServer().sendEvent(new Events.StoppedEvent("step", thread.uniqueID()));
             debugEvent.shouldResume = false;
         } else if (event instanceof MethodExitEvent) {
@@ -13,10 +13,15 @@ package com.microsoft.java.debug.core.adapter.handler;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
 
 import com.microsoft.java.debug.core.AsyncJdwpUtils;
 import com.microsoft.java.debug.core.DebugUtility;
@@ -26,6 +31,7 @@ import com.microsoft.java.debug.core.adapter.ErrorCode;
 import com.microsoft.java.debug.core.adapter.IDebugAdapterContext;
 import com.microsoft.java.debug.core.adapter.IDebugRequestHandler;
 import com.microsoft.java.debug.core.adapter.IEvaluationProvider;
+import com.microsoft.java.debug.core.adapter.ThreadCache;
 import com.microsoft.java.debug.core.protocol.Events;
 import com.microsoft.java.debug.core.protocol.Messages.Response;
 import com.microsoft.java.debug.core.protocol.Requests;
@@ -80,19 +86,41 @@ public class ThreadsRequestHandler implements IDebugRequestHandler {
 
     private CompletableFuture<Response> threads(Requests.ThreadsArguments arguments, Response response, IDebugAdapterContext context) {
         ArrayList<Types.Thread> threads = new ArrayList<>();
+        int virtualThreadCount = 0;
         try {
-            List<ThreadReference> allThreads = context.getDebugSession().getAllThreads();
-            context.getThreadCache().resetThreads(allThreads);
-            allThreads = allThreads.stream().filter((thread) -> !context.getThreadCache().isDeathThread(thread.uniqueID())).toList();
+            ThreadCache threadCache = context.getThreadCache();
+            if (!threadCache.isUpToDate()) {
+                threadCache.resetThreads(context.getDebugSession().getAllThreads());
+            }
+            // The virtual threads are only listed on demand, except the ones suspended by a debug event.
+            List<ThreadReference> allThreads = threadCache.getThreads();
+            if (arguments != null && arguments.includeVirtualThreads) {
+                allThreads.addAll(threadCache.getVirtualThreads());
+            } else {
+                allThreads.addAll(getSuspendedEventThreads(context));
+            }
             List<ThreadInfo> jdiThreads = resolveThreadInfos(allThreads, context);
+            if (arguments != null) {
+                jdiThreads = filterThreadInfos(jdiThreads, arguments, context);
+            }
             for (ThreadInfo jdiThread : jdiThreads) {
-                threads.add(new Types.Thread(jdiThread.thread.uniqueID(), "Thread [" + jdiThread.name + "]"));
+                long threadId = jdiThread.thread.uniqueID();
+                if (threadCache.isVirtualThread(threadId)) {
+                    String name = StringUtils.isEmpty(jdiThread.name) ? "#" + threadId : jdiThread.name;
+                    threads.add(new Types.Thread(threadId, "Virtual Thread [" + name + "]"));
+                } else {
+                    threads.add(new Types.Thread(threadId, "Thread [" + jdiThread.name + "]"));
+                }
             }
+            virtualThreadCount = threadCache.getVirtualThreadCount();
         } catch (ObjectCollectedException | CancellationException | CompletionException ex) {
             // allThreads may throw VMDisconnectedException when VM terminates and thread.name() may throw ObjectCollectedException
             // when the thread is exiting.
         }
         response.body = new Responses.ThreadsResponseBody(threads);
+        if (virtualThreadCount > 0) {
+            ((Responses.ThreadsResponseBody) response.body).virtualThreadCount = virtualThreadCount;
+        }
         return CompletableFuture.completedFuture(response);
     }
 
@@ -123,6 +151,70 @@ public class ThreadsRequestHandler implements IDebugRequestHandler {
         return threadInfos;
     }
 
+    /**
+     * Returns the virtual threads which are still suspended by the debug events they reported.
+     */
+    private static List<ThreadReference> getSuspendedEventThreads(IDebugAdapterContext context) {
+        ThreadCache threadCache = context.getThreadCache();
+        List<ThreadReference> suspendedThreads = new ArrayList<>();
+        for (ThreadReference thread : threadCache.getEventThreads()) {
+            try {
+                if (thread.isSuspended()) {
+                    suspendedThreads.add(thread);
+                    continue;
+                }
+            } catch (ObjectCollectedException e) {
+                // The thread is exiting.
+            }
+            threadCache.removeEventThread(thread.uniqueID());
+        }
+        return suspendedThreads;
+    }
+
+    private static List<ThreadInfo> filterThreadInfos(List<ThreadInfo> threadInfos, Requests.ThreadsArguments arguments,
+            IDebugAdapterContext context) {
+        List<ThreadInfo> result = threadInfos;
+        if (StringUtils.isNotEmpty(arguments.namePrefix)) {
+            result = result.stream().filter(threadInfo -> threadInfo.name != null && threadInfo.name.startsWith(arguments.namePrefix))
+                    .collect(Collectors.toList());
+        }
+
+        if (arguments.onlySuspended) {
+            List<ThreadInfo> candidates = result;
+            boolean[] suspended = new boolean[candidates.size()];
+            List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int i = 0; i < candidates.size(); i++) {
+                int index = i;
+                Runnable check = () -> {
+                    try {
+                        suspended[index] = candidates.get(index).thread.isSuspended();
+                    } catch (ObjectCollectedException e) {
+                        // The thread is exiting.
+                    }
+                };
+                if (context.asyncJDWP()) {
+                    futures.add(AsyncJdwpUtils.runAsync(check));
+                } else {
+                    check.run();
+                }
+            }
+            AsyncJdwpUtils.await(futures);
+            result = new ArrayList<>();
+            for (int i = 0; i < candidates.size(); i++) {
+                if (suspended[i]) {
+                    result.add(candidates.get(i));
+                }
+            }
+        }
+
+        int start = Math.max(arguments.startThread, 0);
+        if (start >= result.size()) {
+            return new ArrayList<>();
+        }
+        int end = arguments.threadCount > 0 ? Math.min(result.size(), start + arguments.threadCount) : result.size();
+        return result.subList(start, end);
+    }
+
     private CompletableFuture<Response> pause(Requests.PauseArguments arguments, Response response, IDebugAdapterContext context) {
         ThreadReference thread = DebugUtility.getThread(context.getDebugSession(), arguments.threadId);
         if (thread != null) {
@@ -158,10 +250,13 @@ public class ThreadsRequestHandler implements IDebugRequestHandler {
             context.getStepResultManager().removeAllMethodResults();
             context.getExceptionManager().removeAllExceptions();
             if (context.asyncJDWP()) {
-                resumeVMAsync(context.getDebugSession());
+                resumeVMAsync(context);
             } else {
                 context.getDebugSession().resume();
             }
+            context.getToStringCache().removeAllToStringValues();
+            context.getTopFramePrefetcher().cancelAll();
+            context.getStackFrameManager().clearAllStackFrames();
             context.getRecyclableIdPool().removeAllObjects();
         }
         response.body = new Responses.ContinueResponseBody(allThreadsContinued);
@@ -171,30 +266,45 @@ public class ThreadsRequestHandler implements IDebugRequestHandler {
     private CompletableFuture<Response> resumeAll(Requests.ThreadOperationArguments arguments, Response response, IDebugAdapterContext context) {
         context.getExceptionManager().removeAllExceptions();
         if (context.asyncJDWP()) {
-            resumeVMAsync(context.getDebugSession());
+            resumeVMAsync(context);
         } else {
             context.getDebugSession().resume();
         }
         context.getProtocolServer().sendEvent(new Events.ContinuedEvent(arguments.threadId, true));
+        context.getToStringCache().removeAllToStringValues();
+        context.getTopFramePrefetcher().cancelAll();
+        context.getStackFrameManager().clearAllStackFrames();
         context.getRecyclableIdPool().removeAllObjects();
         return CompletableFuture.completedFuture(response);
     }
 
     private CompletableFuture<Response> resumeOthers(Requests.ThreadOperationArguments arguments, Response response, IDebugAdapterContext context) {
-        List<ThreadReference> threads = DebugUtility.getAllThreadsSafely(context.getDebugSession());
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        for (ThreadReference thread : threads) {
-            if (thread.uniqueID() == arguments.threadId) {
-                continue;
-            }
-
-            if (context.asyncJDWP()) {
-                futures.add(AsyncJdwpUtils.runAsync(() -> resumeThread(thread, context)));
-            } else {
-                resumeThread(thread, context);
+        ThreadReference target = getThread(arguments.threadId, context);
+        if (target != null) {
+            // Keep the thread suspended through the VM wide resume below.
+            target.suspend();
+        }
+        // Lower the suspend counts of the other threads to one, so that the VM wide resume below resumes them fully.
+        List<ThreadReference> suspendedThreads = Collections.synchronizedList(new ArrayList<>());
+        forEachOtherThread(arguments.threadId, context, thread -> {
+            try {
+                int suspends = thread.suspendCount();
+                if (suspends > 0) {
+                    DebugUtility.resumeThread(thread, suspends - 1);
+                    suspendedThreads.add(thread);
+                }
+            } catch (ObjectCollectedException ex) {
+                // ignore it.
             }
+        });
+        // Resume all the other threads, including the virtual threads, with a single request.
+        context.getDebugSession().getVM().resume();
+        for (ThreadReference thread : suspendedThreads) {
+            long threadId = thread.uniqueID();
+            context.getExceptionManager().removeException(threadId);
+            context.getProtocolServer().sendEvent(new Events.ContinuedEvent(threadId));
+            checkThreadRunningAndRecycleIds(thread, context);
         }
-        AsyncJdwpUtils.await(futures);
         return CompletableFuture.completedFuture(response);
     }
 
@@ -205,20 +315,12 @@ public class ThreadsRequestHandler implements IDebugRequestHandler {
     }
 
     private CompletableFuture<Response> pauseOthers(Requests.ThreadOperationArguments arguments, Response response, IDebugAdapterContext context) {
-        List<ThreadReference> threads = DebugUtility.getAllThreadsSafely(context.getDebugSession());
-        List<CompletableFuture<Void>> futures = new ArrayList<>();
-        for (ThreadReference thread : threads) {
-            if (thread.uniqueID() == arguments.threadId) {
-                continue;
-            }
-
-            if (context.asyncJDWP()) {
-                futures.add(AsyncJdwpUtils.runAsync(() -> pauseThread(thread, context)));
-            } else {
-                pauseThread(thread, context);
-            }
-        }
-        AsyncJdwpUtils.await(futures);
+        // Suspend all the threads, including the virtual threads, with a single request, and then undo it for the
+        // requested thread and the listed threads which were suspended already.
+        ThreadReference target = getThread(arguments.threadId, context);
+        context.getDebugSession().suspend();
+        DebugUtility.resumeThread(target, 1);
+        forEachOtherThread(arguments.threadId, context, thread -> checkPausedThread(thread, context));
         return CompletableFuture.completedFuture(response);
     }
 
@@ -229,19 +331,32 @@ public class ThreadsRequestHandler implements IDebugRequestHandler {
         try {
             IEvaluationProvider engine = context.getProvider(IEvaluationProvider.class);
             engine.clearState(thread);
+            context.getToStringCache().removeStaleToStringValues(thread.uniqueID());
+            context.getTopFramePrefetcher().cancel(thread.uniqueID());
+            context.getStackFrameManager().clearStackFrames(thread);
             context.getRecyclableIdPool().removeObjectsByOwner(thread.uniqueID());
         } catch (VMDisconnectedException ex) {
             // isSuspended may throw VMDisconnectedException when the VM terminates
+            context.getToStringCache().removeAllToStringValues();
+            context.getTopFramePrefetcher().cancelAll();
+            context.getStackFrameManager().clearAllStackFrames();
             context.getRecyclableIdPool().removeAllObjects();
         } catch (ObjectCollectedException collectedEx) {
             // isSuspended may throw ObjectCollectedException when the thread terminates
+            context.getToStringCache().removeToStringValues(thread.uniqueID());
+            context.getTopFramePrefetcher().cancel(thread.uniqueID());
+            context.getStackFrameManager().clearStackFrames(thread);
             context.getRecyclableIdPool().removeObjectsByOwner(thread.uniqueID());
+            context.getRecyclableIdPool().removeRetiredIds(thread.uniqueID());
         }
     }
 
-    private void resumeVMAsync(IDebugSession debugSession) {
+    private void resumeVMAsync(IDebugAdapterContext context) {
+        IDebugSession debugSession = context.getDebugSession();
+        List<ThreadReference> threads = new ArrayList<>(DebugUtility.getAllThreadsSafely(debugSession));
+        threads.addAll(context.getThreadCache().getEventThreads());
         List<CompletableFuture<Void>> futures = new ArrayList<>();
-        for (ThreadReference tr : DebugUtility.getAllThreadsSafely(debugSession)) {
+        for (ThreadReference tr : threads) {
             futures.add(AsyncJdwpUtils.runAsync(() -> {
                 try {
                     while (tr.suspendCount() > 1) {
@@ -257,33 +372,53 @@ public class ThreadsRequestHandler implements IDebugRequestHandler {
         debugSession.getVM().resume();
     }
 
-    private void resumeThread(ThreadReference thread, IDebugAdapterContext context) {
-        try {
-            int suspends = thread.suspendCount();
-            if (suspends > 0) {
-                long threadId = thread.uniqueID();
-                context.getExceptionManager().removeException(threadId);
-                DebugUtility.resumeThread(thread, suspends);
-                context.getProtocolServer().sendEvent(new Events.ContinuedEvent(threadId));
-                checkThreadRunningAndRecycleIds(thread, context);
+    /**
+     * Runs the action on the threads known by the client except the given one, concurrently in the async JDWP mode.
+     */
+    private static void forEachOtherThread(long excludedThreadId, IDebugAdapterContext context, Consumer<ThreadReference> action) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (ThreadReference thread : getKnownThreads(context)) {
+            if (thread.uniqueID() == excludedThreadId) {
+                continue;
+            }
+
+            if (context.asyncJDWP()) {
+                futures.add(AsyncJdwpUtils.runAsync(() -> action.accept(thread)));
+            } else {
+                action.accept(thread);
             }
-        } catch (ObjectCollectedException ex) {
-            // ignore it.
         }
+        AsyncJdwpUtils.await(futures);
     }
 
-    private void pauseThread(ThreadReference thread, IDebugAdapterContext context) {
+    private static void checkPausedThread(ThreadReference thread, IDebugAdapterContext context) {
         try {
-            if (!thread.isSuspended()) {
-                long threadId = thread.uniqueID();
-                thread.suspend();
-                context.getProtocolServer().sendEvent(new Events.StoppedEvent("pause", threadId));
+            if (thread.suspendCount() > 1) {
+                // The thread was suspended before the VM was, it keeps its own stop reason.
+                thread.resume();
+            } else {
+                context.getProtocolServer().sendEvent(new Events.StoppedEvent("pause", thread.uniqueID()));
             }
         } catch (ObjectCollectedException ex) {
             // ignore it if the thread is garbage collected.
         }
     }
 
+    /**
+     * Returns the threads known by the client, i.e. the listed platform threads and the virtual threads which reported
+     * a debug event. They're read from the cache without a JDWP round-trip.
+     */
+    private static List<ThreadReference> getKnownThreads(IDebugAdapterContext context) {
+        List<ThreadReference> threads = context.getThreadCache().getThreads();
+        threads.addAll(context.getThreadCache().getEventThreads());
+        return threads;
+    }
+
+    private static ThreadReference getThread(long threadId, IDebugAdapterContext context) {
+        ThreadReference thread = context.getThreadCache().getThread(threadId);
+        return thread == null ? DebugUtility.getThread(context.getDebugSession(), threadId) : thread;
+    }
+
     static class ThreadInfo {
         public ThreadReference thread;
         public String name;
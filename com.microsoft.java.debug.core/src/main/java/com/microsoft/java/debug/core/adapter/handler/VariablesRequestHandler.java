@@ -31,16 +31,20 @@ import com.microsoft.java.debug.core.Configuration;
 import com.microsoft.java.debug.core.DebugSettings;
 import com.microsoft.java.debug.core.JdiMethodResult;
 import com.microsoft.java.debug.core.adapter.AdapterUtils;
+import com.microsoft.java.debug.core.adapter.CancellationToken;
 import com.microsoft.java.debug.core.adapter.ErrorCode;
+import com.microsoft.java.debug.core.adapter.HotCodeReplaceEvent.EventType;
 import com.microsoft.java.debug.core.adapter.IDebugAdapterContext;
 import com.microsoft.java.debug.core.adapter.IDebugRequestHandler;
 import com.microsoft.java.debug.core.adapter.IEvaluationProvider;
+import com.microsoft.java.debug.core.adapter.IHotCodeReplaceProvider;
 import com.microsoft.java.debug.core.adapter.IStackFrameManager;
 import com.microsoft.java.debug.core.adapter.variables.IVariableFormatter;
 import com.microsoft.java.debug.core.adapter.variables.JavaLogicalStructure;
 import com.microsoft.java.debug.core.adapter.variables.JavaLogicalStructure.LogicalStructureExpression;
 import com.microsoft.java.debug.core.adapter.variables.JavaLogicalStructure.LogicalVariable;
 import com.microsoft.java.debug.core.adapter.variables.JavaLogicalStructureManager;
+import com.microsoft.java.debug.core.adapter.variables.ReferenceTypeTraits;
 import com.microsoft.java.debug.core.adapter.variables.StackFrameReference;
 import com.microsoft.java.debug.core.adapter.variables.StringReferenceProxy;
 import com.microsoft.java.debug.core.adapter.variables.Variable;
@@ -59,6 +63,7 @@ import com.sun.jdi.ArrayReference;
 import com.sun.jdi.IntegerValue;
 import com.sun.jdi.InternalException;
 import com.sun.jdi.InvalidStackFrameException;
+import com.sun.jdi.ObjectCollectedException;
 import com.sun.jdi.ObjectReference;
 import com.sun.jdi.ReferenceType;
 import com.sun.jdi.StackFrame;
@@ -74,8 +79,23 @@ public class VariablesRequestHandler implements IDebugRequestHandler {
         return Arrays.asList(Command.VARIABLES);
     }
 
+    @Override
+    public void initialize(IDebugAdapterContext context) {
+        IDebugRequestHandler.super.initialize(context);
+        IHotCodeReplaceProvider provider = context.getProvider(IHotCodeReplaceProvider.class);
+        provider.getEventHub()
+            .filter(event -> event.getEventType() == EventType.END && context.getDebugSession() != null)
+            .subscribe(event -> ReferenceTypeTraits.invalidate(context.getDebugSession().getVM()));
+    }
+
     @Override
     public CompletableFuture<Response> handle(Command command, Arguments arguments, Response response, IDebugAdapterContext context) {
+        return handle(command, arguments, response, context, CancellationToken.NONE);
+    }
+
+    @Override
+    public CompletableFuture<Response> handle(Command command, Arguments arguments, Response response, IDebugAdapterContext context,
+            CancellationToken cancellationToken) {
         IVariableFormatter variableFormatter = context.getVariableFormatter();
         VariablesArguments varArgs = (VariablesArguments) arguments;
 
@@ -130,7 +150,11 @@ public class VariablesRequestHandler implements IDebugRequestHandler {
                     childrenList.add(new Variable(returnIcon + result.method.name() + "()", result.value, null));
                 }
 
-                if (context.asyncJDWP()) {
+                List<Variable> prefetchedVariables = stackFrameReference.getDepth() == 0
+                        ? context.getTopFramePrefetcher().take(threadId, frame) : null;
+                if (prefetchedVariables != null) {
+                    childrenList.addAll(prefetchedVariables);
+                } else if (context.asyncJDWP()) {
                     childrenList.addAll(getVariablesOfFrameAsync(frame, showStaticVariables));
                 } else {
                     childrenList.addAll(VariableUtils.listLocalVariables(frame));
@@ -151,6 +175,7 @@ public class VariablesRequestHandler implements IDebugRequestHandler {
         } else {
             try {
                 ObjectReference containerObj = (ObjectReference) containerNode.getProxiedVariable();
+                boolean isWindowed = false;
                 if (supportsLogicStructureView(context) && evaluationEngine != null) {
                     JavaLogicalStructure logicalStructure = null;
                     try {
@@ -169,6 +194,16 @@ public class VariablesRequestHandler implements IDebugRequestHandler {
                             if (valueExpression != null) {
                                 containerEvaluateName = containerEvaluateName == null ? null : containerEvaluateName + "." + valueExpression.evaluateName;
                                 isUnboundedTypeContainer = valueExpression.returnUnboundedType;
+                                if (varArgs.count > 0 && logicalStructure.getWindowType() != null) {
+                                    // Only copy the requested page of a large collection in the debuggee.
+                                    List<Variable> window = getLogicalWindow(containerNode, logicalStructure, containerObj, varArgs.start, varArgs.count,
+                                            evaluationEngine);
+                                    if (window != null) {
+                                        childrenList = window;
+                                        isWindowed = true;
+                                        break;
+                                    }
+                                }
                                 Value value = logicalStructure.getValue(containerObj, containerNode.getThread(), evaluationEngine);
                                 if (value instanceof ObjectReference) {
                                     containerObj = (ObjectReference) value;
@@ -194,9 +229,9 @@ public class VariablesRequestHandler implements IDebugRequestHandler {
                     }
                 }
 
-                if (childrenList.isEmpty() && VariableUtils.hasChildren(containerObj, showStaticVariables)) {
+                if (childrenList.isEmpty() && !isWindowed && VariableUtils.hasChildren(containerObj, showStaticVariables)) {
                     if (varArgs.count > 0) {
-                        childrenList = VariableUtils.listFieldVariables(containerObj, varArgs.start, varArgs.count);
+                        childrenList = VariableUtils.listFieldVariables(containerNode, containerObj, varArgs.start, varArgs.count);
                     } else {
                         childrenList = VariableUtils.listFieldVariables(containerObj, showStaticVariables, context.asyncJDWP());
                     }
@@ -256,7 +291,27 @@ public class VariablesRequestHandler implements IDebugRequestHandler {
             });
         }
 
+        if (supportsToStringView(context) && evaluationEngine != null && !evaluationEngine.isInEvaluation(containerNode.getThread())) {
+            // Compute the toString values of the page in batch before formatting the variables. The variables returned as
+            // lazy are left out, their toString only runs when the user expands them.
+            CancellationToken.Registration registration = cancellationToken.onCancel(() -> clearEvaluationState(evaluationEngine, containerNode));
+            try {
+                List<Value> values = childrenList.stream()
+                        .map(var -> var.value)
+                        .filter(value -> !VariableDetailUtils.isLazyLoadingSupported(value))
+                        .collect(Collectors.toList());
+                VariableDetailUtils.prefetchToStringValues(values, containerNode.getThread(), evaluationEngine,
+                        context.getToStringCache().getToStringValues(containerNode.getThreadId()));
+            } catch (Exception e) {
+                logger.log(Level.FINE, "Failed to prefetch the toString values of the variables", e);
+            } finally {
+                registration.close();
+            }
+        }
+
         for (Variable javaVariable : childrenList) {
+            // Stop the remaining JDWP round-trips and toString() invocations once the client has cancelled the request.
+            cancellationToken.throwIfCancelled();
             Value value = javaVariable.value;
             String name = javaVariable.name;
             if (variableNameMap.containsKey(javaVariable)) {
@@ -338,14 +393,19 @@ public class VariablesRequestHandler implements IDebugRequestHandler {
                 if (VariableDetailUtils.isLazyLoadingSupported(value) && varProxy != null) {
                     varProxy.setLazyVariable(true);
                 } else {
+                    CancellationToken.Registration registration = cancellationToken.onCancel(
+                        () -> clearEvaluationState(evaluationEngine, containerNode));
                     try {
-                        detailsValue = VariableDetailUtils.formatDetailsValue(value, containerNode.getThread(), variableFormatter, options, evaluationEngine);
+                        detailsValue = VariableDetailUtils.formatDetailsValue(value, containerNode.getThread(), variableFormatter, options, evaluationEngine,
+                                context.getToStringCache().getToStringValues(containerNode.getThreadId()));
                     } catch (OutOfMemoryError e) {
                         logger.log(Level.SEVERE, "Failed to compute the toString() value of a large object", e);
                         detailsValue = "<Unable to display the details of a large object>";
                     } catch (Exception e) {
                         logger.log(Level.SEVERE, "Failed to compute the toString() value", e);
                         detailsValue = "<Failed to resolve the variable details due to \"" + e.getMessage() + "\">";
+                    } finally {
+                        registration.close();
                     }
                 }
             }
@@ -376,6 +436,46 @@ public class VariablesRequestHandler implements IDebugRequestHandler {
         return CompletableFuture.completedFuture(response);
     }
 
+    private static void clearEvaluationState(IEvaluationProvider evaluationEngine, VariableProxy containerNode) {
+        if (evaluationEngine != null) {
+            evaluationEngine.clearState(containerNode.getThread());
+        }
+    }
+
+    /**
+     * Fetch the logical values in the range [start, start + count) of a collection. The window is cached on the container
+     * until the thread resumes, and <code>null</code> is returned if the window can't be fetched.
+     */
+    private static List<Variable> getLogicalWindow(VariableProxy containerNode, JavaLogicalStructure logicalStructure, ObjectReference containerObj,
+            int start, int count, IEvaluationProvider evaluationEngine) {
+        try {
+            ArrayReference window = containerNode.getLogicalWindow(start, count);
+            List<Value> values;
+            try {
+                values = window == null ? null : window.getValues();
+            } catch (ObjectCollectedException e) {
+                values = null;
+            }
+
+            if (values == null) {
+                window = logicalStructure.getWindow(containerObj, start, count, containerNode.getThread(), evaluationEngine);
+                values = window.getValues();
+                containerNode.putLogicalWindow(start, count, window);
+            }
+
+            List<Variable> variables = new ArrayList<>(values.size());
+            for (int i = 0; i < values.size(); i++) {
+                Variable variable = new Variable(String.valueOf(start + i), values.get(i));
+                variable.setUnboundedType(true);
+                variables.add(variable);
+            }
+            return variables;
+        } catch (Exception e) {
+            logger.log(Level.WARNING, "Failed to get the logical window of the variable, fall back to the full logical structure.", e);
+            return null;
+        }
+    }
+
     private boolean supportsLogicStructureView(IDebugAdapterContext context) {
         return (!context.asyncJDWP() || context.isLocalDebugging()) && DebugSettings.getCurrent().showLogicalStructure;
     }
@@ -397,7 +497,7 @@ public class VariablesRequestHandler implements IDebugRequestHandler {
             ObjectReference variable = (ObjectReference) proxiedVariable;
             String valueString = variableFormatter.valueToString(variable, options);
             String detailString = VariableDetailUtils.formatDetailsValue(variable, containerNode.getThread(), variableFormatter, options,
-                evaluationEngine);
+                evaluationEngine, context.getToStringCache().getToStringValues(containerNode.getThreadId()));
             return new Types.Variable("", valueString + " " + detailString, "", referenceId, containerNode.getEvaluateName());
         }
         return null;
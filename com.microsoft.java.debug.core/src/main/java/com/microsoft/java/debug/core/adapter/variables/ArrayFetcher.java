@@ -0,0 +1,116 @@
+/*******************************************************************************
+* Copyright (c) 2017 Microsoft Corporation and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*
+* Contributors:
+*     Microsoft Corporation - initial API and implementation
+*******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter.variables;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.microsoft.java.debug.core.AsyncJdwpUtils;
+import com.microsoft.java.debug.core.Configuration;
+import com.microsoft.java.debug.core.DebugSettings;
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.ArrayType;
+import com.sun.jdi.ByteValue;
+import com.sun.jdi.Value;
+
+/**
+ * Reads the elements of the arrays in bounded ranges, so that a large array is never transferred by a single JDWP
+ * request and a page of it only costs the elements of that page.
+ */
+public final class ArrayFetcher {
+    private static final Logger logger = Logger.getLogger(Configuration.LOGGER_NAME);
+    private static final int BYTE_PREVIEW_LENGTH = 16;
+    private static final int NUMERIC_PREVIEW_LENGTH = 10;
+
+    private ArrayFetcher() {
+    }
+
+    /**
+     * Returns the elements [start, start + count) of the array, fetched in chunks of
+     * {@link DebugSettings#limitOfVariablesPerJdwpRequest} elements.
+     */
+    public static List<Value> getValues(ArrayReference array, int start, int count) {
+        int chunkSize = Math.max(1, DebugSettings.getCurrent().limitOfVariablesPerJdwpRequest);
+        if (count <= chunkSize) {
+            return array.getValues(start, count);
+        }
+
+        List<Value> values = new ArrayList<>(count);
+        int end = start + count;
+        for (int index = start; index < end; index += chunkSize) {
+            values.addAll(array.getValues(index, Math.min(chunkSize, end - index)));
+        }
+        return values;
+    }
+
+    /**
+     * Returns a page of the array for the paged variables request of the container, and prefetches the following
+     * page in the background since the client usually asks for it next. The prefetched page lives in the container
+     * proxy, so it's dropped when the thread resumes.
+     */
+    public static List<Value> getPage(VariableProxy container, ArrayReference array, int start, int count) {
+        List<Value> values = null;
+        CompletableFuture<List<Value>> prefetched = container.takePrefetchedPage(start, count);
+        if (prefetched != null) {
+            try {
+                values = prefetched.join();
+            } catch (Exception e) {
+                logger.log(Level.FINE, "Failed to prefetch the array page, fetch it again.", e);
+            }
+        }
+
+        if (values == null) {
+            values = getValues(array, start, count);
+        }
+
+        int nextStart = start + count;
+        int nextCount = Math.min(count, array.length() - nextStart);
+        if (nextCount > 0) {
+            container.setPrefetchedPage(nextStart, nextCount,
+                    AsyncJdwpUtils.supplyAsync(() -> getValues(array, nextStart, nextCount)));
+        }
+        return values;
+    }
+
+    /**
+     * Returns a preview of the leading elements of a primitive array, a hex dump for <code>byte[]</code> and the first
+     * values for the other primitive arrays. Only the previewed range is read from the debuggee.
+     *
+     * @return the preview, or null if the array is empty or not a primitive array
+     */
+    public static String formatPreview(ArrayReference array, IVariableFormatter variableFormatter, Map<String, Object> options) {
+        String componentSignature = ((ArrayType) array.type()).componentSignature();
+        int length = array.length();
+        if (componentSignature.length() != 1 || length == 0) {
+            return null;
+        }
+
+        boolean isByteArray = componentSignature.charAt(0) == 'B';
+        int previewLength = Math.min(length, isByteArray ? BYTE_PREVIEW_LENGTH : NUMERIC_PREVIEW_LENGTH);
+        List<String> elements = new ArrayList<>();
+        for (Value value : array.getValues(0, previewLength)) {
+            if (isByteArray) {
+                elements.add(String.format("%02x", ((ByteValue) value).value() & 0xff));
+            } else {
+                elements.add(variableFormatter.valueToString(value, options));
+            }
+        }
+        if (previewLength < length) {
+            elements.add("...");
+        }
+        return "[" + String.join(isByteArray ? " " : ", ", elements) + "]";
+    }
+}
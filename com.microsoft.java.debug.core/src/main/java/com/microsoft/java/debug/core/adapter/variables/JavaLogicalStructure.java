@@ -17,6 +17,7 @@ import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 
 import com.microsoft.java.debug.core.adapter.IEvaluationProvider;
+import com.sun.jdi.ArrayReference;
 import com.sun.jdi.ClassType;
 import com.sun.jdi.Field;
 import com.sun.jdi.InterfaceType;
@@ -24,6 +25,7 @@ import com.sun.jdi.ObjectReference;
 import com.sun.jdi.ThreadReference;
 import com.sun.jdi.Type;
 import com.sun.jdi.Value;
+import com.sun.jdi.VirtualMachine;
 
 public class JavaLogicalStructure {
     // The binary type name. For inner type, the binary name uses '$' as the separator, e.g. java.util.Map$Entry.
@@ -35,6 +37,8 @@ public class JavaLogicalStructure {
     private final LogicalVariable[] variables;
     // Indicates whether the specified type is an interface.
     private final boolean isInterface;
+    // How to fetch a window of the logical values without materializing all of them, if supported.
+    private final LogicalStructureWindowType windowType;
 
     /**
      * Constructor.
@@ -54,11 +58,28 @@ public class JavaLogicalStructure {
 
     public JavaLogicalStructure(String type, String fullyQualifiedName, boolean isInterface, LogicalStructureExpression valueExpression,
         LogicalStructureExpression sizeExpression, LogicalVariable[] variables) {
+        this(type, fullyQualifiedName, isInterface, valueExpression, sizeExpression, null, variables);
+    }
+
+    /**
+     * Constructor.
+     */
+    public JavaLogicalStructure(String type, LogicalStructureExpression valueExpression, LogicalStructureExpression sizeExpression,
+            LogicalStructureWindowType windowType, LogicalVariable[] variables) {
+        this(type, type, true, valueExpression, sizeExpression, windowType, variables);
+    }
+
+    /**
+     * Constructor.
+     */
+    public JavaLogicalStructure(String type, String fullyQualifiedName, boolean isInterface, LogicalStructureExpression valueExpression,
+        LogicalStructureExpression sizeExpression, LogicalStructureWindowType windowType, LogicalVariable[] variables) {
         this.valueExpression = valueExpression;
         this.type = type;
         this.fullyQualifiedName = fullyQualifiedName;
         this.isInterface = isInterface;
         this.sizeExpression = sizeExpression;
+        this.windowType = windowType;
         this.variables = variables;
     }
 
@@ -82,6 +103,10 @@ public class JavaLogicalStructure {
         return variables;
     }
 
+    public LogicalStructureWindowType getWindowType() {
+        return windowType;
+    }
+
     /**
      * Returns whether to support the logical structure view for the given object instance.
      */
@@ -156,6 +181,38 @@ public class JavaLogicalStructure {
         }
     }
 
+    /**
+     * Return the logical values of the specified thisObject in the range [start, start + count) as an array. Only the
+     * requested window is copied in the debuggee.
+     */
+    public ArrayReference getWindow(ObjectReference thisObject, int start, int count, ThreadReference thread, IEvaluationProvider evaluationEngine)
+            throws CancellationException, InterruptedException, IllegalArgumentException, ExecutionException, UnsupportedOperationException {
+        VirtualMachine vm = thisObject.virtualMachine();
+        ObjectReference window;
+        if (windowType == LogicalStructureWindowType.SUB_LIST) {
+            window = invokeMethod(thisObject, "subList", "(II)Ljava/util/List;",
+                    new Value[] {vm.mirrorOf(start), vm.mirrorOf(start + count)}, thread, evaluationEngine);
+        } else if (windowType == LogicalStructureWindowType.STREAM) {
+            // The skipped elements are iterated in the debuggee, so it costs a fixed number of invocations per window.
+            ObjectReference stream = invokeMethod(thisObject, "stream", "()Ljava/util/stream/Stream;", null, thread, evaluationEngine);
+            stream = invokeMethod(stream, "skip", "(J)Ljava/util/stream/Stream;", new Value[] {vm.mirrorOf((long) start)}, thread, evaluationEngine);
+            window = invokeMethod(stream, "limit", "(J)Ljava/util/stream/Stream;", new Value[] {vm.mirrorOf((long) count)}, thread, evaluationEngine);
+        } else {
+            throw new UnsupportedOperationException("The object hasn't defined the logical window operation.");
+        }
+
+        return (ArrayReference) invokeMethod(window, "toArray", "()[Ljava/lang/Object;", null, thread, evaluationEngine);
+    }
+
+    private static ObjectReference invokeMethod(ObjectReference thisObject, String methodName, String methodSignature, Value[] args,
+            ThreadReference thread, IEvaluationProvider evaluationEngine) throws InterruptedException, ExecutionException {
+        Value value = evaluationEngine.invokeMethod(thisObject, methodName, methodSignature, args, thread, false).get();
+        if (!(value instanceof ObjectReference)) {
+            throw new UnsupportedOperationException(String.format("The method %s returns %s instead of an object.", methodName, value));
+        }
+        return (ObjectReference) value;
+    }
+
     private static Value getValueByField(ObjectReference thisObject, String fieldName, ThreadReference thread) {
         Field targetField = thisObject.referenceType().fieldByName(fieldName);
         if (targetField == null) {
@@ -232,4 +289,11 @@ public class JavaLogicalStructure {
     public static enum LogicalStructureExpressionType {
         FIELD, METHOD, EVALUATION_SNIPPET
     }
+
+    public static enum LogicalStructureWindowType {
+        // list.subList(start, start + count).toArray()
+        SUB_LIST,
+        // collection.stream().skip(start).limit(count).toArray()
+        STREAM
+    }
 }
@@ -20,6 +20,7 @@ import java.util.concurrent.ExecutionException;
 import com.microsoft.java.debug.core.adapter.IEvaluationProvider;
 import com.microsoft.java.debug.core.adapter.variables.JavaLogicalStructure.LogicalStructureExpression;
 import com.microsoft.java.debug.core.adapter.variables.JavaLogicalStructure.LogicalStructureExpressionType;
+import com.microsoft.java.debug.core.adapter.variables.JavaLogicalStructure.LogicalStructureWindowType;
 import com.microsoft.java.debug.core.adapter.variables.JavaLogicalStructure.LogicalVariable;
 import com.sun.jdi.ObjectReference;
 import com.sun.jdi.ThreadReference;
@@ -47,11 +48,13 @@ public class JavaLogicalStructureManager {
         supportedLogicalStructures.add(new JavaLogicalStructure("java.util.List",
             new LogicalStructureExpression(LogicalStructureExpressionType.METHOD, new String[] {"toArray", "()[Ljava/lang/Object;"}, "get(%s)", true),
             new LogicalStructureExpression(LogicalStructureExpressionType.METHOD, new String[] {"size", "()I"}),
+            LogicalStructureWindowType.SUB_LIST,
             new LogicalVariable[0]
         ));
         supportedLogicalStructures.add(new JavaLogicalStructure("java.util.Collection",
             new LogicalStructureExpression(LogicalStructureExpressionType.METHOD, new String[] {"toArray", "()[Ljava/lang/Object;"}, "toArray()", true),
             new LogicalStructureExpression(LogicalStructureExpressionType.METHOD, new String[] {"size", "()I"}),
+            LogicalStructureWindowType.STREAM,
             new LogicalVariable[0]
         ));
     }
@@ -60,6 +63,10 @@ public class JavaLogicalStructureManager {
      * Return the provided logical structure handler for the given variable.
      */
     public static JavaLogicalStructure getLogicalStructure(ObjectReference obj) {
+        return ReferenceTypeTraits.of(obj.referenceType()).getLogicalStructure(() -> findLogicalStructure(obj));
+    }
+
+    private static JavaLogicalStructure findLogicalStructure(ObjectReference obj) {
         for (JavaLogicalStructure structure : supportedLogicalStructures) {
             if (structure.providesLogicalStructure(obj)) {
                 return structure;
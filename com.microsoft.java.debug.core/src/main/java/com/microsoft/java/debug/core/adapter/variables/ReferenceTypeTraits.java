@@ -0,0 +1,101 @@
+/*******************************************************************************
+* Copyright (c) 2017 Microsoft Corporation and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*
+* Contributors:
+*     Microsoft Corporation - initial API and implementation
+*******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter.variables;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.VirtualMachine;
+
+/**
+ * The type metadata which the variable views look up for every value, cached per {@link ReferenceType} so that a
+ * container of many values of the same class only walks the type hierarchy once.
+ *
+ * <p>Each trait is resolved on first use. The cache holds the types weakly, so it goes away with the debuggee, and it
+ * should be invalidated when the classes of the debuggee are redefined.</p>
+ */
+public final class ReferenceTypeTraits {
+    private static final Object NONE = new Object();
+    private static final Map<ReferenceType, ReferenceTypeTraits> traitsCache = new WeakHashMap<>();
+
+    // The cached traits, null means not resolved yet and NONE means resolved to null.
+    private Object logicalStructure;
+    private Object collectionType;
+    private Boolean hasToStringMethod;
+    private Boolean isFormattable;
+
+    private ReferenceTypeTraits() {
+    }
+
+    /**
+     * Returns the traits of the given type.
+     */
+    public static ReferenceTypeTraits of(ReferenceType type) {
+        synchronized (traitsCache) {
+            return traitsCache.computeIfAbsent(type, key -> new ReferenceTypeTraits());
+        }
+    }
+
+    /**
+     * Drops the cached traits of the types loaded in the given VM, e.g. after hot code replace.
+     */
+    public static void invalidate(VirtualMachine vm) {
+        synchronized (traitsCache) {
+            traitsCache.keySet().removeIf(type -> type.virtualMachine().equals(vm));
+        }
+    }
+
+    /**
+     * Returns the logical structure of the type, resolved by the given resolver on first use.
+     */
+    public synchronized JavaLogicalStructure getLogicalStructure(Supplier<JavaLogicalStructure> resolver) {
+        if (logicalStructure == null) {
+            JavaLogicalStructure structure = resolver.get();
+            logicalStructure = structure == null ? NONE : structure;
+        }
+        return logicalStructure == NONE ? null : (JavaLogicalStructure) logicalStructure;
+    }
+
+    /**
+     * Returns the collection type which the type inherits from, resolved by the given resolver on first use.
+     */
+    public synchronized String getCollectionType(Supplier<String> resolver) {
+        if (collectionType == null) {
+            String type = resolver.get();
+            collectionType = type == null ? NONE : type;
+        }
+        return collectionType == NONE ? null : (String) collectionType;
+    }
+
+    /**
+     * Returns whether the type overrides <code>toString</code>, resolved by the given resolver on first use.
+     */
+    public synchronized boolean hasToStringMethod(BooleanSupplier resolver) {
+        if (hasToStringMethod == null) {
+            hasToStringMethod = resolver.getAsBoolean();
+        }
+        return hasToStringMethod;
+    }
+
+    /**
+     * Returns whether the type implements <code>java.util.Formattable</code>, resolved by the given resolver on first use.
+     */
+    public synchronized boolean isFormattable(BooleanSupplier resolver) {
+        if (isFormattable == null) {
+            isFormattable = resolver.getAsBoolean();
+        }
+        return isFormattable;
+    }
+}
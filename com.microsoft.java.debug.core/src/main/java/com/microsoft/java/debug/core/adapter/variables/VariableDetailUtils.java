@@ -11,26 +11,47 @@
 
 package com.microsoft.java.debug.core.adapter.variables;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
 
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+import com.microsoft.java.debug.core.Configuration;
 import com.microsoft.java.debug.core.adapter.IEvaluationProvider;
+import com.microsoft.java.debug.core.adapter.formatter.StringObjectFormatter;
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.ArrayType;
 import com.sun.jdi.ClassType;
 import com.sun.jdi.InterfaceType;
+import com.sun.jdi.InvocationException;
 import com.sun.jdi.Method;
 import com.sun.jdi.ObjectReference;
 import com.sun.jdi.ReferenceType;
+import com.sun.jdi.StringReference;
 import com.sun.jdi.ThreadReference;
 import com.sun.jdi.Type;
 import com.sun.jdi.Value;
+import com.sun.jdi.VirtualMachine;
 
 public class VariableDetailUtils {
+    private static final Logger logger = Logger.getLogger(Configuration.LOGGER_NAME);
     private static final String STRING_TYPE = "java.lang.String";
+    private static final String OBJECT_ARRAY_TYPE = "java.lang.Object[]";
+    private static final String FORMATTABLE_TYPE = "java.util.Formattable";
+    private static final String FORMAT_METHOD = "format";
+    private static final String FORMAT_METHOD_SIGNATURE = "(Ljava/lang/String;[Ljava/lang/Object;)Ljava/lang/String;";
+    static final int TO_STRING_BATCH_SIZE = 16;
     private static final String TO_STRING_METHOD = "toString";
     private static final String TO_STRING_METHOD_SIGNATURE = "()Ljava/lang/String;";
     private static final String ENTRY_TYPE = "java.util.Map$Entry";
@@ -46,21 +67,120 @@ public class VariableDetailUtils {
      */
     public static String formatDetailsValue(Value value, ThreadReference thread, IVariableFormatter variableFormatter, Map<String, Object> options,
             IEvaluationProvider evaluationEngine) {
+        return formatDetailsValue(value, thread, variableFormatter, options, evaluationEngine, null);
+    }
+
+    /**
+     * Returns the details information for the specified variable, the <code>toString</code> values are looked up from
+     * and added to the given memo of the suspended thread.
+     */
+    public static String formatDetailsValue(Value value, ThreadReference thread, IVariableFormatter variableFormatter, Map<String, Object> options,
+            IEvaluationProvider evaluationEngine, Map<ObjectReference, String> toStringValues) {
         if (isClassType(value, STRING_TYPE)) {
             // No need to show additional details information.
             return null;
+        } else if (value instanceof ArrayReference) {
+            return ArrayFetcher.formatPreview((ArrayReference) value, variableFormatter, options);
         } else {
-            return computeToStringValue(value, thread, variableFormatter, options, evaluationEngine, true);
+            return computeToStringValue(value, thread, variableFormatter, options, evaluationEngine, toStringValues, true);
+        }
+    }
+
+    /**
+     * Computes the <code>toString</code> values of the given variables with a single invocation in the debuggee and adds
+     * them to the memo of the suspended thread, so that the following {@link #formatDetailsValue} calls don't invoke
+     * <code>toString</code> one object at a time. The objects which can't be batched are left to the per-object path.
+     */
+    public static void prefetchToStringValues(List<Value> values, ThreadReference thread, IEvaluationProvider evaluationEngine,
+            Map<ObjectReference, String> toStringValues) {
+        List<ObjectReference> targets = new ArrayList<>();
+        Set<ObjectReference> visited = new HashSet<>();
+        for (Value value : values) {
+            if (value instanceof ObjectReference && !isClassType(value, STRING_TYPE) && !toStringValues.containsKey(value)
+                    && visited.add((ObjectReference) value) && findCollectionType(value) == null
+                    && containsToStringMethod((ObjectReference) value) && !isFormattable((ObjectReference) value)) {
+                targets.add((ObjectReference) value);
+            }
+        }
+
+        if (targets.size() < 2) {
+            return;
+        }
+
+        VirtualMachine vm = thread.virtualMachine();
+        List<ReferenceType> arrayTypes = vm.classesByName(OBJECT_ARRAY_TYPE);
+        if (arrayTypes.isEmpty()) {
+            return;
+        }
+
+        // A toString which throws fails its whole batch, so the batches are kept small rather than retried, the
+        // toString of an object is invoked at most once here since it may have side effects.
+        for (int start = 0; start < targets.size(); start += TO_STRING_BATCH_SIZE) {
+            List<ObjectReference> batch = targets.subList(start, Math.min(targets.size(), start + TO_STRING_BATCH_SIZE));
+            if (!prefetchToStringValues(batch, thread, (ArrayType) arrayTypes.get(0), evaluationEngine, toStringValues)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Computes the <code>toString</code> values of the batch with one invocation of <code>String.format</code>.
+     *
+     * @return false if the invocation failed for a reason other than a <code>toString</code> which threw
+     */
+    private static boolean prefetchToStringValues(List<ObjectReference> targets, ThreadReference thread, ArrayType arrayType,
+            IEvaluationProvider evaluationEngine, Map<ObjectReference, String> toStringValues) {
+        // String.format calls toString on each argument inside the debuggee, a random separator splits the results.
+        String separator = "\u0000" + UUID.randomUUID() + "\u0000";
+        String pattern = String.join(separator, Collections.nCopies(targets.size(), "%s"));
+        ArrayReference arguments = null;
+        StringReference patternValue = null;
+        try {
+            arguments = arrayType.newInstance(targets.size());
+            arguments.disableCollection();
+            arguments.setValues(targets);
+            patternValue = thread.virtualMachine().mirrorOf(pattern);
+            patternValue.disableCollection();
+            // JDI allows invoking a static method through an instance of the declaring type, so the pattern string
+            // itself is the receiver of the static String.format.
+            Value result = evaluationEngine.invokeMethod(patternValue, FORMAT_METHOD, FORMAT_METHOD_SIGNATURE,
+                    new Value[] {patternValue, arguments}, thread, false).get();
+            if (result instanceof StringReference) {
+                String[] texts = ((StringReference) result).value().split(Pattern.quote(separator), -1);
+                if (texts.length == targets.size()) {
+                    for (int i = 0; i < texts.length; i++) {
+                        toStringValues.put(targets.get(i), texts[i]);
+                    }
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            logger.log(Level.FINE, "Failed to compute the toString values in batch, fall back to compute them one by one.", e);
+            // One of the toString calls threw in the debuggee, the other batches are still worth computing.
+            return ExceptionUtils.indexOfType(e, InvocationException.class) >= 0;
+        } finally {
+            enableCollection(arguments);
+            enableCollection(patternValue);
+        }
+    }
+
+    private static void enableCollection(ObjectReference object) {
+        try {
+            if (object != null) {
+                object.enableCollection();
+            }
+        } catch (Exception e) {
+            // The object is already collected.
         }
     }
 
     private static String computeToStringValue(Value value, ThreadReference thread, IVariableFormatter variableFormatter,
-            Map<String, Object> options, IEvaluationProvider evaluationEngine, boolean isFirstLevel) {
+            Map<String, Object> options, IEvaluationProvider evaluationEngine, Map<ObjectReference, String> toStringValues, boolean isFirstLevel) {
         if (!(value instanceof ObjectReference) || evaluationEngine == null) {
             return null;
         }
 
-        String inheritedType = findInheritedType(value, COLLECTION_TYPES);
+        String inheritedType = findCollectionType(value);
         if (inheritedType != null) {
             if (Objects.equals(inheritedType, ENTRY_TYPE)) {
                 try {
@@ -68,9 +188,9 @@ public class VariableDetailUtils {
                             null, thread, false).get();
                     Value valueObject = evaluationEngine.invokeMethod((ObjectReference) value, GET_VALUE_METHOD, GET_VALUE_METHOD_SIGNATURE,
                             null, thread, false).get();
-                    String toStringValue = computeToStringValue(keyObject, thread, variableFormatter, options, evaluationEngine, false)
+                    String toStringValue = computeToStringValue(keyObject, thread, variableFormatter, options, evaluationEngine, toStringValues, false)
                             + ":"
-                            + computeToStringValue(valueObject, thread, variableFormatter, options, evaluationEngine, false);
+                            + computeToStringValue(valueObject, thread, variableFormatter, options, evaluationEngine, toStringValues, false);
                     if (!isFirstLevel) {
                         toStringValue = "\"" + toStringValue + "\"";
                     }
@@ -83,9 +203,17 @@ public class VariableDetailUtils {
                 return variableFormatter.valueToString(value, options);
             }
         } else if (containsToStringMethod((ObjectReference) value)) {
+            String memo = toStringValues == null ? null : toStringValues.get(value);
+            if (memo != null) {
+                return StringObjectFormatter.format(memo, options);
+            }
+
             try {
                 Value toStringValue = evaluationEngine.invokeMethod((ObjectReference) value, TO_STRING_METHOD, TO_STRING_METHOD_SIGNATURE,
                         null, thread, false).get();
+                if (toStringValues != null && toStringValue instanceof StringReference) {
+                    toStringValues.put((ObjectReference) value, ((StringReference) toStringValue).value());
+                }
                 return variableFormatter.valueToString(toStringValue, options);
             } catch (InterruptedException | ExecutionException e) {
                 // do nothing.
@@ -97,6 +225,10 @@ public class VariableDetailUtils {
 
     private static boolean containsToStringMethod(ObjectReference obj) {
         ReferenceType refType = obj.referenceType();
+        return ReferenceTypeTraits.of(refType).hasToStringMethod(() -> containsToStringMethod(refType));
+    }
+
+    private static boolean containsToStringMethod(ReferenceType refType) {
         if (refType instanceof ClassType) {
             Method m = ((ClassType) refType).concreteMethodByName(TO_STRING_METHOD, TO_STRING_METHOD_SIGNATURE);
             if (m != null) {
@@ -118,6 +250,21 @@ public class VariableDetailUtils {
         return false;
     }
 
+    private static boolean isFormattable(ObjectReference obj) {
+        ReferenceType refType = obj.referenceType();
+        return ReferenceTypeTraits.of(refType).isFormattable(() -> refType instanceof ClassType
+                && ((ClassType) refType).allInterfaces().stream().anyMatch(iface -> FORMATTABLE_TYPE.equals(iface.name())));
+    }
+
+    private static String findCollectionType(Value value) {
+        if (!(value instanceof ObjectReference)) {
+            return null;
+        }
+
+        return ReferenceTypeTraits.of(((ObjectReference) value).referenceType())
+                .getCollectionType(() -> findInheritedType(value, COLLECTION_TYPES));
+    }
+
     private static String findInheritedType(Value value, Set<String> typeNames) {
         if (!(value instanceof ObjectReference)) {
             return null;
@@ -162,7 +309,7 @@ public class VariableDetailUtils {
         if (!(value instanceof ObjectReference)) {
             return false;
         }
-        String inheritedType = findInheritedType(value, COLLECTION_TYPES);
+        String inheritedType = findCollectionType(value);
         if (inheritedType == null && !containsToStringMethod((ObjectReference) value)) {
             return false;
         }
@@ -11,9 +11,15 @@
 
 package com.microsoft.java.debug.core.adapter.variables;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.sun.jdi.ArrayReference;
 import com.sun.jdi.ThreadReference;
+import com.sun.jdi.Value;
 
 public class VariableProxy {
     private final ThreadReference thread;
@@ -25,6 +31,11 @@ public class VariableProxy {
     private boolean isIndexedVariable;
     private boolean isUnboundedType = false;
     private boolean isLazyVariable = false;
+    // The windows of the logical values fetched for the paged variables requests, they're dropped with the proxy on resume.
+    private final Map<String, ArrayReference> logicalWindows = new ConcurrentHashMap<>();
+    // The array page which is prefetched for the next paged variables request.
+    private String prefetchedPageKey;
+    private CompletableFuture<List<Value>> prefetchedPage;
 
     /**
      * Create a variable reference.
@@ -120,4 +131,30 @@ public class VariableProxy {
         this.isLazyVariable = isLazyVariable;
     }
 
+    public ArrayReference getLogicalWindow(int start, int count) {
+        return logicalWindows.get(start + ":" + count);
+    }
+
+    public void putLogicalWindow(int start, int count, ArrayReference window) {
+        logicalWindows.put(start + ":" + count, window);
+    }
+
+    /**
+     * Returns and clears the prefetched array page if it covers the given range, otherwise returns null.
+     */
+    public synchronized CompletableFuture<List<Value>> takePrefetchedPage(int start, int count) {
+        if (prefetchedPage == null || !Objects.equals(prefetchedPageKey, start + ":" + count)) {
+            return null;
+        }
+        CompletableFuture<List<Value>> page = prefetchedPage;
+        prefetchedPage = null;
+        prefetchedPageKey = null;
+        return page;
+    }
+
+    public synchronized void setPrefetchedPage(int start, int count, CompletableFuture<List<Value>> page) {
+        prefetchedPageKey = start + ":" + count;
+        prefetchedPage = page;
+    }
+
 }
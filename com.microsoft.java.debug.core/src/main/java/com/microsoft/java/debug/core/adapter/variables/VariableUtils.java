@@ -89,14 +89,8 @@ public abstract class VariableUtils {
         List<Variable> res = new ArrayList<>();
         ReferenceType type = obj.referenceType();
         if (type instanceof ArrayType) {
-            int arrayIndex = 0;
-            boolean isUnboundedArrayType = Objects.equals(type.signature(), "[Ljava/lang/Object;");
-            for (Value elementValue : ((ArrayReference) obj).getValues()) {
-                Variable ele = new Variable(String.valueOf(arrayIndex++), elementValue);
-                ele.setUnboundedType(isUnboundedArrayType);
-                res.add(ele);
-            }
-            return res;
+            ArrayReference array = (ArrayReference) obj;
+            return toElementVariables(type, ArrayFetcher.getValues(array, 0, array.length()), 0);
         }
         List<Field> fields = resolveAllFields(type, async).stream().filter(t -> includeStatic || !t.isStatic())
                 .sorted((a, b) -> {
@@ -143,17 +137,33 @@ public abstract class VariableUtils {
      */
     public static List<Variable> listFieldVariables(ObjectReference obj, int start, int count)
             throws AbsentInformationException {
-        List<Variable> res = new ArrayList<>();
         Type type = obj.type();
         if (type instanceof ArrayType) {
-            int arrayIndex = start;
-            boolean isUnboundedArrayType = Objects.equals(type.signature(), "[Ljava/lang/Object;");
-            for (Value elementValue : ((ArrayReference) obj).getValues(start, count)) {
-                Variable variable = new Variable(String.valueOf(arrayIndex++), elementValue);
-                variable.setUnboundedType(isUnboundedArrayType);
-                res.add(variable);
-            }
-            return res;
+            return toElementVariables(type, ArrayFetcher.getValues((ArrayReference) obj, start, count), start);
+        }
+        throw new UnsupportedOperationException("Only Array type is supported.");
+    }
+
+    /**
+     * Get the variables of the object with pagination, and prefetch the next page into the container.
+     *
+     * @param container
+     *            the variable proxy of the object
+     * @param obj
+     *            the object
+     * @param start
+     *            the start of the pagination
+     * @param count
+     *            the number of variables needed
+     * @return the variable list
+     * @throws AbsentInformationException
+     *             when there is any error in retrieving information
+     */
+    public static List<Variable> listFieldVariables(VariableProxy container, ObjectReference obj, int start, int count)
+            throws AbsentInformationException {
+        Type type = obj.type();
+        if (type instanceof ArrayType) {
+            return toElementVariables(type, ArrayFetcher.getPage(container, (ArrayReference) obj, start, count), start);
         }
         throw new UnsupportedOperationException("Only Array type is supported.");
     }
@@ -446,6 +456,18 @@ public abstract class VariableUtils {
         return String.format("%s.%s", containerName, name);
     }
 
+    private static List<Variable> toElementVariables(Type arrayType, List<Value> elementValues, int start) {
+        List<Variable> res = new ArrayList<>(elementValues.size());
+        int arrayIndex = start;
+        boolean isUnboundedArrayType = Objects.equals(arrayType.signature(), "[Ljava/lang/Object;");
+        for (Value elementValue : elementValues) {
+            Variable variable = new Variable(String.valueOf(arrayIndex++), elementValue);
+            variable.setUnboundedType(isUnboundedArrayType);
+            res.add(variable);
+        }
+        return res;
+    }
+
     private static <T> void bulkFetchValues(List<T> elements, int numberPerPage, Consumer<List<T>> consumer) {
         int size = elements.size();
         numberPerPage = numberPerPage < 1 ? 1 : numberPerPage;
@@ -11,13 +11,17 @@
 
 package com.microsoft.java.debug.core.protocol;
 
+import java.io.Reader;
 import java.lang.reflect.Type;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
 
 public class JsonUtils {
     private static final Gson GSON = new Gson();
@@ -38,10 +42,26 @@ public class JsonUtils {
         return GSON.fromJson(json, typeOfT);
     }
 
+    public static <T> T fromJson(Reader json, Class<T> classOfT) throws JsonSyntaxException {
+        return GSON.fromJson(json, classOfT);
+    }
+
+    public static JsonElement parse(Reader json) throws JsonSyntaxException {
+        return JsonParser.parseReader(json);
+    }
+
+    public static <T> TypeAdapter<T> getAdapter(Class<T> type) {
+        return GSON.getAdapter(type);
+    }
+
     public static String toJson(Object src) {
         return GSON.toJson(src);
     }
 
+    public static void toJson(Object src, Appendable writer) throws JsonIOException {
+        GSON.toJson(src, writer);
+    }
+
     public static String toJson(Object src, Type typeOfSrc) {
         return GSON.toJson(src, typeOfSrc);
     }
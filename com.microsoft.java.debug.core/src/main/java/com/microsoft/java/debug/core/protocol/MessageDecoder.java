@@ -0,0 +1,143 @@
+/*******************************************************************************
+* Copyright (c) 2017 Microsoft Corporation and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*
+* Contributors:
+*     Microsoft Corporation - initial API and implementation
+*******************************************************************************/
+
+package com.microsoft.java.debug.core.protocol;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.google.gson.JsonElement;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.microsoft.java.debug.core.protocol.Requests.Arguments;
+import com.microsoft.java.debug.core.protocol.Requests.Command;
+
+/**
+ * Decodes the inbound protocol messages in a single streaming pass.
+ *
+ * <p>The envelope fields such as <code>type</code>, <code>seq</code> and <code>command</code> are read with a
+ * {@link JsonReader}, and the request arguments are bound straight to the argument type of the command, so that
+ * neither the message nor its arguments need to be parsed again later.</p>
+ */
+class MessageDecoder {
+    private final Map<Command, TypeAdapter<? extends Arguments>> argumentAdapters = new EnumMap<>(Command.class);
+    private final TypeAdapter<JsonElement> treeAdapter = JsonUtils.getAdapter(JsonElement.class);
+    private final TypeAdapter<Object> bodyAdapter = JsonUtils.getAdapter(Object.class);
+
+    MessageDecoder() {
+        // Warm up the adapters of the hot requests.
+        getArgumentAdapter(Command.VARIABLES);
+        getArgumentAdapter(Command.STACKTRACE);
+        getArgumentAdapter(Command.EVALUATE);
+    }
+
+    /**
+     * Decodes a protocol message from the reader.
+     *
+     * @param reader
+     *              the reader of the message content
+     * @return a {@link Messages.Request}, a {@link Messages.Response} or a {@link Messages.Event} according to the
+     *         message type, or <code>null</code> if the message type is unknown
+     * @throws IOException
+     *              if the content is not a valid json object
+     */
+    Messages.ProtocolMessage decode(Reader reader) throws IOException {
+        JsonReader in = new JsonReader(reader);
+        in.setLenient(true);
+
+        int seq = 0;
+        String type = null;
+        String command = null;
+        Arguments arguments = null;
+        JsonElement pendingArguments = null;
+        int requestSeq = 0;
+        boolean success = false;
+        String message = null;
+        String event = null;
+        Object body = null;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.skipValue();
+                continue;
+            }
+
+            switch (name) {
+                case "seq":
+                    seq = in.nextInt();
+                    break;
+                case "type":
+                    type = in.nextString();
+                    break;
+                case "command":
+                    command = in.nextString();
+                    break;
+                case "arguments":
+                    if (command != null) {
+                        arguments = getArgumentAdapter(Command.parse(command)).read(in);
+                    } else {
+                        // The command is not known yet, keep the arguments tree and bind it later.
+                        pendingArguments = treeAdapter.read(in);
+                    }
+                    break;
+                case "request_seq":
+                    requestSeq = in.nextInt();
+                    break;
+                case "success":
+                    success = in.nextBoolean();
+                    break;
+                case "message":
+                    message = in.nextString();
+                    break;
+                case "event":
+                    event = in.nextString();
+                    break;
+                case "body":
+                    body = bodyAdapter.read(in);
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+        in.endObject();
+
+        if ("request".equals(type)) {
+            if (pendingArguments != null) {
+                arguments = getArgumentAdapter(Command.parse(command)).fromJsonTree(pendingArguments);
+            }
+
+            Messages.Request request = new Messages.Request(seq, command, null);
+            request.typedArguments = arguments;
+            return request;
+        } else if ("response".equals(type)) {
+            Messages.Response response = new Messages.Response(requestSeq, command, success, message);
+            response.seq = seq;
+            response.body = body;
+            return response;
+        } else if ("event".equals(type)) {
+            Messages.Event eventMessage = new Messages.Event(event, body);
+            eventMessage.seq = seq;
+            return eventMessage;
+        }
+
+        return null;
+    }
+
+    private TypeAdapter<? extends Arguments> getArgumentAdapter(Command command) {
+        return argumentAdapters.computeIfAbsent(command, cmd -> JsonUtils.getAdapter(cmd.getArgumentType()));
+    }
+}
@@ -0,0 +1,296 @@
+/*******************************************************************************
+* Copyright (c) 2017 Microsoft Corporation and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*
+* Contributors:
+*     Microsoft Corporation - initial API and implementation
+*******************************************************************************/
+
+package com.microsoft.java.debug.core.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Splits the raw bytes of a debug protocol stream into messages.
+ *
+ * <p>The incoming bytes are kept in a growable ring buffer, the <code>Content-Length</code> header
+ * is scanned incrementally byte by byte, and the message body is exposed as an {@link InputStream}
+ * over the buffered bytes so that it can be decoded without an intermediate copy.</p>
+ */
+class MessageFramer {
+    private static final int INITIAL_CAPACITY = 4096;
+    private static final int MIN_READ_SIZE = 4096;
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte[] CONTENT_LENGTH = "Content-Length:".getBytes(Charset.forName("US-ASCII"));
+
+    private byte[] buffer;
+    private int head = 0;
+    private int size = 0;
+
+    /**
+     * The number of buffered bytes which are already scanned by the header parser.
+     */
+    private int scanned = 0;
+    /**
+     * The offset of the header line being scanned, relative to the head of the buffer.
+     */
+    private int lineStart = 0;
+    private int headerContentLength = -1;
+    private int contentLength = -1;
+
+    MessageFramer() {
+        this(INITIAL_CAPACITY);
+    }
+
+    MessageFramer(int initialCapacity) {
+        this.buffer = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    /**
+     * Returns the number of buffered bytes.
+     */
+    int length() {
+        return size;
+    }
+
+    /**
+     * Returns the capacity of the underlying ring buffer.
+     */
+    int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Reads the available bytes from the input stream into the free space of the buffer.
+     *
+     * @param input
+     *              the input stream
+     * @return the number of bytes read, or -1 if the end of the stream has been reached
+     * @throws IOException
+     *              if an I/O error occurs
+     */
+    int readFrom(InputStream input) throws IOException {
+        ensureCapacity(size + Math.max(MIN_READ_SIZE, contentLength - size));
+        int tail = (head + size) % buffer.length;
+        int free = tail >= head ? buffer.length - tail : head - tail;
+        int read = input.read(buffer, tail, free);
+        if (read > 0) {
+            size += read;
+        }
+        return read;
+    }
+
+    /**
+     * Appends the bytes to the end of the buffer.
+     */
+    void append(byte[] b, int offset, int length) {
+        ensureCapacity(size + length);
+        int tail = (head + size) % buffer.length;
+        int firstPart = Math.min(length, buffer.length - tail);
+        System.arraycopy(b, offset, buffer, tail, firstPart);
+        System.arraycopy(b, offset + firstPart, buffer, 0, length - firstPart);
+        size += length;
+    }
+
+    /**
+     * Scans the buffered bytes for the next message. The header of the message is consumed as
+     * soon as it is complete, the body stays in the buffer until {@link #skip(int)} is called.
+     *
+     * @return the byte length of the next message body if the whole body is buffered, otherwise -1
+     */
+    int nextMessage() {
+        while (contentLength < 0) {
+            if (!scanHeader()) {
+                return -1;
+            }
+        }
+
+        return size >= contentLength ? contentLength : -1;
+    }
+
+    /**
+     * Returns a stream over the first <code>length</code> buffered bytes, the bytes are not copied.
+     * The stream is only valid until the buffer is modified.
+     */
+    InputStream openStream(int length) {
+        if (length > size) {
+            throw new IndexOutOfBoundsException(String.format("Length %d exceeds the buffered size %d.", length, size));
+        }
+
+        return new SliceInputStream(length);
+    }
+
+    /**
+     * Decodes the first <code>length</code> buffered bytes as a string.
+     */
+    String getString(int length, Charset cs) {
+        int firstPart = Math.min(length, buffer.length - head);
+        if (firstPart == length) {
+            return new String(buffer, head, length, cs);
+        }
+
+        byte[] b = new byte[length];
+        System.arraycopy(buffer, head, b, 0, firstPart);
+        System.arraycopy(buffer, 0, b, firstPart, length - firstPart);
+        return new String(b, cs);
+    }
+
+    /**
+     * Discards the first <code>length</code> buffered bytes. If they are the body of the current message,
+     * the framer starts to look for the header of the next message.
+     */
+    void skip(int length) {
+        if (length > size) {
+            throw new IndexOutOfBoundsException(String.format("Length %d exceeds the buffered size %d.", length, size));
+        }
+
+        consume(length);
+        if (contentLength >= 0) {
+            contentLength = -1;
+        }
+    }
+
+    private void consume(int length) {
+        size -= length;
+        head = size == 0 ? 0 : (head + length) % buffer.length;
+        scanned = Math.max(0, scanned - length);
+        lineStart = Math.max(0, lineStart - length);
+    }
+
+    /**
+     * Scans the header incrementally, the bytes which have been scanned by the previous calls are not visited again.
+     *
+     * @return true if a complete header is found and consumed
+     */
+    private boolean scanHeader() {
+        while (scanned < size) {
+            int pos = scanned++;
+            if (byteAt(pos) != LF || pos == 0 || byteAt(pos - 1) != CR) {
+                continue;
+            }
+
+            int lineEnd = pos - 1;
+            if (lineEnd == lineStart) {
+                // An empty line terminates the header.
+                consume(pos + 1);
+                lineStart = 0;
+                scanned = 0;
+                contentLength = headerContentLength;
+                headerContentLength = -1;
+                if (contentLength >= 0) {
+                    ensureCapacity(contentLength);
+                    return true;
+                }
+
+                // Skip the header without a valid Content-Length field.
+                continue;
+            }
+
+            int value = parseContentLength(lineStart, lineEnd);
+            if (value >= 0) {
+                headerContentLength = value;
+            }
+            lineStart = pos + 1;
+        }
+
+        return false;
+    }
+
+    private int parseContentLength(int start, int end) {
+        if (end - start <= CONTENT_LENGTH.length) {
+            return -1;
+        }
+
+        for (int i = 0; i < CONTENT_LENGTH.length; i++) {
+            if (byteAt(start + i) != CONTENT_LENGTH[i]) {
+                return -1;
+            }
+        }
+
+        int pos = start + CONTENT_LENGTH.length;
+        while (pos < end && byteAt(pos) == ' ') {
+            pos++;
+        }
+
+        long value = 0;
+        int digits = 0;
+        while (pos < end) {
+            byte b = byteAt(pos++);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            value = value * 10 + (b - '0');
+            if (value > Integer.MAX_VALUE) {
+                return -1;
+            }
+            digits++;
+        }
+
+        return digits > 0 ? (int) value : -1;
+    }
+
+    private byte byteAt(int offset) {
+        return buffer[(head + offset) % buffer.length];
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= buffer.length) {
+            return;
+        }
+
+        int newCapacity = Math.max(required, buffer.length * 2);
+        byte[] newBuffer = new byte[newCapacity];
+        int firstPart = Math.min(size, buffer.length - head);
+        System.arraycopy(buffer, head, newBuffer, 0, firstPart);
+        System.arraycopy(buffer, 0, newBuffer, firstPart, size - firstPart);
+        buffer = newBuffer;
+        head = 0;
+    }
+
+    private class SliceInputStream extends InputStream {
+        private final int length;
+        private int position = 0;
+
+        SliceInputStream(int length) {
+            this.length = length;
+        }
+
+        @Override
+        public int read() {
+            if (position >= length) {
+                return -1;
+            }
+
+            return byteAt(position++) & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+
+            int remaining = length - position;
+            if (remaining <= 0) {
+                return -1;
+            }
+
+            int start = (head + position) % buffer.length;
+            int count = Math.min(Math.min(len, remaining), buffer.length - start);
+            System.arraycopy(buffer, start, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return length - position;
+        }
+    }
+}
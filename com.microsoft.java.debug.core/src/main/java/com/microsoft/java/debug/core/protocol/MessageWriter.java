@@ -0,0 +1,287 @@
+/*******************************************************************************
+* Copyright (c) 2017 Microsoft Corporation and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*
+* Contributors:
+*     Microsoft Corporation - initial API and implementation
+*******************************************************************************/
+
+package com.microsoft.java.debug.core.protocol;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The writer stage of the protocol server.
+ *
+ * <p>The messages sent from different threads are put into a bounded queue and written by a dedicated thread.
+ * Each message is serialized straight to a reusable byte buffer, and the output is flushed in batches when
+ * the queue is drained or when the oldest unflushed message exceeds the latency budget. The messages from the
+ * same producer are written in the order they are sent. When the queue is full, the producers are blocked
+ * until the writer catches up.</p>
+ */
+class MessageWriter {
+    private static final Logger logger = Logger.getLogger("java-debug");
+    private static final Charset PROTOCOL_ENCODING = StandardCharsets.UTF_8;
+    private static final byte[] CONTENT_LENGTH = "Content-Length: ".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] TWO_CRLF = "\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final int DEFAULT_QUEUE_CAPACITY = 4096;
+    private static final long DEFAULT_FLUSH_LATENCY_MILLIS = 10;
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+    private static final Messages.ProtocolMessage CLOSE = new Messages.ProtocolMessage("close");
+
+    private final BlockingQueue<Messages.ProtocolMessage> queue;
+    private final long flushLatencyNanos;
+    private final OutputStream output;
+    private final Object sendLock = new Object();
+    private final Object writeLock = new Object();
+    private final AtomicInteger sequenceNumber = new AtomicInteger(1);
+    private final Thread workingThread;
+    private volatile boolean isClosed = false;
+    private boolean isBroken = false;
+
+    private ByteArrayOutputStream body;
+    private Writer bodyWriter;
+    private long firstUnflushedAt = -1;
+
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong blockedCount = new AtomicLong();
+    private final AtomicLong blockedNanos = new AtomicLong();
+    private final AtomicInteger maxQueueSize = new AtomicInteger();
+
+    MessageWriter(OutputStream output) {
+        this(output, DEFAULT_QUEUE_CAPACITY, DEFAULT_FLUSH_LATENCY_MILLIS);
+    }
+
+    MessageWriter(OutputStream output, int queueCapacity, long flushLatencyMillis) {
+        this.output = new BufferedOutputStream(output, OUTPUT_BUFFER_SIZE);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.flushLatencyNanos = TimeUnit.MILLISECONDS.toNanos(flushLatencyMillis);
+        resetBodyBuffer();
+        this.workingThread = new Thread(this::writeLoop, "Protocol Writer");
+        this.workingThread.setDaemon(true);
+        this.workingThread.start();
+    }
+
+    /**
+     * Assigns the sequence number to the message and queues it for writing. Blocks if the queue is full.
+     *
+     * @param message
+     *              the protocol message
+     */
+    void send(Messages.ProtocolMessage message) {
+        send(message, null);
+    }
+
+    /**
+     * Assigns the sequence number to the message and queues it for writing. Blocks if the queue is full.
+     *
+     * @param message
+     *              the protocol message
+     * @param onSequenced
+     *              the callback invoked with the assigned sequence number before the message is written
+     */
+    void send(Messages.ProtocolMessage message, IntConsumer onSequenced) {
+        synchronized (sendLock) {
+            message.seq = sequenceNumber.getAndIncrement();
+            if (onSequenced != null) {
+                onSequenced.accept(message.seq);
+            }
+
+            if (isClosed) {
+                // The writer thread is gone, write the message synchronously.
+                synchronized (writeLock) {
+                    write(message);
+                    flush();
+                }
+                return;
+            }
+
+            enqueue(message);
+        }
+    }
+
+    /**
+     * Writes out the pending messages and stops the writer thread. The messages sent after that are
+     * written synchronously.
+     */
+    void close() {
+        synchronized (sendLock) {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+            enqueue(CLOSE);
+        }
+
+        try {
+            workingThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        logger.fine(String.format("Protocol writer statistics: sent=%d, flushes=%d, maxQueueSize=%d, blocked=%d, blockedMillis=%d",
+                getSentCount(), getFlushCount(), getMaxQueueSize(), getBlockedCount(), getBlockedMillis()));
+    }
+
+    /**
+     * Returns the number of messages waiting in the queue.
+     */
+    int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the maximum number of messages that have been waiting in the queue at the same time.
+     */
+    int getMaxQueueSize() {
+        return maxQueueSize.get();
+    }
+
+    /**
+     * Returns the number of messages written to the output.
+     */
+    long getSentCount() {
+        return sentCount.get();
+    }
+
+    /**
+     * Returns the number of times the output has been flushed.
+     */
+    long getFlushCount() {
+        return flushCount.get();
+    }
+
+    /**
+     * Returns the number of times a producer was blocked because the queue was full.
+     */
+    long getBlockedCount() {
+        return blockedCount.get();
+    }
+
+    /**
+     * Returns the total time the producers were blocked because the queue was full.
+     */
+    long getBlockedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(blockedNanos.get());
+    }
+
+    private void enqueue(Messages.ProtocolMessage message) {
+        if (!queue.offer(message)) {
+            long start = System.nanoTime();
+            blockedCount.incrementAndGet();
+            try {
+                queue.put(message);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.log(Level.WARNING, "Interrupted while waiting to send the protocol message.", e);
+            } finally {
+                blockedNanos.addAndGet(System.nanoTime() - start);
+            }
+        }
+
+        int size = queue.size();
+        if (size > maxQueueSize.get()) {
+            maxQueueSize.set(size);
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            try {
+                Messages.ProtocolMessage message = queue.take();
+                synchronized (writeLock) {
+                    if (message == CLOSE) {
+                        flush();
+                        return;
+                    }
+
+                    write(message);
+                    if (queue.isEmpty() || System.nanoTime() - firstUnflushedAt >= flushLatencyNanos) {
+                        flush();
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                logger.log(Level.SEVERE, String.format("Write protocol message error: %s", e.toString()), e);
+            }
+        }
+    }
+
+    private void write(Messages.ProtocolMessage message) {
+        if (isBroken) {
+            return;
+        }
+
+        try {
+            body.reset();
+            JsonUtils.toJson(message, bodyWriter);
+            bodyWriter.flush();
+
+            if (logger.isLoggable(Level.FINE)) {
+                String label = message instanceof Messages.Request ? "REQUEST"
+                        : (message instanceof Messages.Event ? "EVENT" : "RESPONSE");
+                logger.fine(String.format("\n[[%s]]\nContent-Length: %d\r\n\r\n%s", label, body.size(),
+                        body.toString(PROTOCOL_ENCODING.name())));
+            }
+
+            output.write(CONTENT_LENGTH);
+            output.write(Integer.toString(body.size()).getBytes(StandardCharsets.US_ASCII));
+            output.write(TWO_CRLF);
+            body.writeTo(output);
+            sentCount.incrementAndGet();
+            if (firstUnflushedAt < 0) {
+                firstUnflushedAt = System.nanoTime();
+            }
+
+            if (body.size() > MAX_RETAINED_BUFFER_SIZE) {
+                // Don't hold on to the memory of an exceptionally large message.
+                resetBodyBuffer();
+            }
+        } catch (IOException e) {
+            isBroken = true;
+            logger.log(Level.SEVERE, String.format("Write data to io exception: %s", e.toString()), e);
+        }
+    }
+
+    private void flush() {
+        if (isBroken || firstUnflushedAt < 0) {
+            return;
+        }
+
+        try {
+            output.flush();
+            flushCount.incrementAndGet();
+        } catch (IOException e) {
+            isBroken = true;
+            logger.log(Level.SEVERE, String.format("Write data to io exception: %s", e.toString()), e);
+        } finally {
+            firstUnflushedAt = -1;
+        }
+    }
+
+    private void resetBodyBuffer() {
+        body = new ByteArrayOutputStream(4096);
+        bodyWriter = new OutputStreamWriter(body, PROTOCOL_ENCODING);
+    }
+}
@@ -30,6 +30,11 @@ public class Messages {
     public static class Request extends ProtocolMessage {
         public String command;
         public JsonObject arguments;
+        /**
+         * The arguments already bound to the argument type of the command. It's populated by the protocol
+         * decoder for the inbound requests, in which case the raw {@link #arguments} are not kept.
+         */
+        public transient Requests.Arguments typedArguments;
 
         /**
          * Constructor.
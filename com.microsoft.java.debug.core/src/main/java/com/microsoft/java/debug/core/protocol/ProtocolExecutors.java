@@ -0,0 +1,110 @@
+/*******************************************************************************
+* Copyright (c) 2017 Microsoft Corporation and others.
+* All rights reserved. This program and the accompanying materials
+* are made available under the terms of the Eclipse Public License v1.0
+* which accompanies this distribution, and is available at
+* http://www.eclipse.org/legal/epl-v10.html
+*
+* Contributors:
+*     Microsoft Corporation - initial API and implementation
+*******************************************************************************/
+
+package com.microsoft.java.debug.core.protocol;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The executors of the protocol servers.
+ *
+ * <p>Each protocol server has its own dispatcher to run its request handlers, see {@link #createDispatcher()}. It's a
+ * fixed thread pool by default, and can be switched to virtual threads with the system property
+ * <code>-Ddebug.dap.dispatcher=virtual</code> when the adapter runs on a JDK that supports them. The size of the
+ * fixed pool can be changed with <code>-Ddebug.dap.dispatcher.threads=&lt;n&gt;</code>.</p>
+ *
+ * <p>The responses and the timeouts of the reverse requests are completed on the shared {@link #completer}, which
+ * never runs the request handlers, so the handlers blocked on the reverse requests can't starve it.</p>
+ */
+public class ProtocolExecutors {
+    private static final Logger logger = Logger.getLogger("java-debug");
+    private static final String DISPATCHER_PROPERTY = "debug.dap.dispatcher";
+    private static final String DISPATCHER_THREADS_PROPERTY = "debug.dap.dispatcher.threads";
+    private static final int DEFAULT_DISPATCHER_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+    private static final long IDLE_SECONDS = 60;
+
+    /**
+     * The executor to complete the responses and the timeouts of the reverse requests. It grows on demand, since the
+     * callbacks of the reverse requests may block in turn.
+     */
+    public static final ExecutorService completer = createCompleter();
+
+    /**
+     * The single timer thread for the short timed tasks of the protocol, such as expiring the reverse requests
+     * which are not answered in time and flushing the batched output events.
+     */
+    public static final ScheduledExecutorService scheduler = createScheduler();
+
+    /**
+     * Creates the executor to dispatch the requests of a protocol server.
+     */
+    public static ExecutorService createDispatcher() {
+        return createDispatcher(System.getProperty(DISPATCHER_PROPERTY, "fixed"),
+                Integer.getInteger(DISPATCHER_THREADS_PROPERTY, DEFAULT_DISPATCHER_THREADS));
+    }
+
+    static ExecutorService createDispatcher(String kind, int threads) {
+        if ("virtual".equalsIgnoreCase(kind)) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                logger.log(Level.WARNING, "Virtual threads are not supported by the current JDK, fall back to a fixed thread pool.");
+            }
+        }
+
+        int poolSize = Math.max(1, threads);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(poolSize, poolSize, IDLE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory("Protocol Dispatcher"));
+        // Let the idle threads go, so that the pool of an ended session doesn't keep its threads.
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static ExecutorService createCompleter() {
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, IDLE_SECONDS, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), new NamedThreadFactory("Protocol Completer"));
+    }
+
+    private static ScheduledExecutorService createScheduler() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("Protocol Scheduler"));
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger(1);
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + count.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
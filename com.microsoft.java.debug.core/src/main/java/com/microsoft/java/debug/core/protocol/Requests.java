@@ -11,7 +11,7 @@
 
 package com.microsoft.java.debug.core.protocol;
 
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -240,6 +240,7 @@ public class Requests {
 
     public static class SetExceptionBreakpointsArguments extends Arguments {
         public String[] filters = new String[0];
+        public Types.ExceptionOptions[] exceptionOptions;
     }
 
     public static class ExceptionInfoArguments extends Arguments {
@@ -247,7 +248,12 @@ public class Requests {
     }
 
     public static class ThreadsArguments extends Arguments {
-
+        // The optional paging and filtering of the threads, they're extensions to the DAP threads request.
+        public int startThread;
+        public int threadCount;
+        public String namePrefix;
+        public boolean onlySuspended;
+        public boolean includeVirtualThreads;
     }
 
     public static class ContinueArguments extends Arguments {
@@ -349,6 +355,17 @@ public class Requests {
         public DataBreakpoint[] breakpoints;
     }
 
+    public static class CancelArguments extends Arguments {
+        /**
+         * The ID (attribute 'seq') of the request to cancel.
+         */
+        public Integer requestId;
+        /**
+         * The ID (attribute 'progressId') of the progress to cancel.
+         */
+        public String progressId;
+    }
+
     public static class InlineValuesArguments extends Arguments {
         public int frameId;
         public InlineVariable[] variables;
@@ -411,8 +428,17 @@ public class Requests {
         INLINEVALUES("inlineValues", InlineValuesArguments.class),
         REFRESHVARIABLES("refreshVariables", RefreshVariablesArguments.class),
         PROCESSID("processId", Arguments.class),
+        CANCEL("cancel", CancelArguments.class),
         UNSUPPORTED("", Arguments.class);
 
+        private static final Map<String, Command> COMMANDS = new HashMap<>();
+
+        static {
+            for (Command cmd : Command.values()) {
+                COMMANDS.put(cmd.command, cmd);
+            }
+        }
+
         private String command;
         private Class<? extends Arguments> argumentType;
 
@@ -442,14 +468,8 @@ public class Requests {
          * @return the Command type
          */
         public static Command parse(String command) {
-            Command[] found = Arrays.stream(Command.values()).filter(cmd -> {
-                return cmd.toString().equals(command);
-            }).toArray(Command[]::new);
-
-            if (found.length > 0) {
-                return found[0];
-            }
-            return UNSUPPORTED;
+            Command found = command == null ? null : COMMANDS.get(command);
+            return found == null ? UNSUPPORTED : found;
         }
     }
 }
@@ -168,6 +168,8 @@ public class Responses {
 
     public static class ThreadsResponseBody extends ResponseBody {
         public Types.Thread[] threads;
+        // The number of the virtual threads, they're only listed on demand.
+        public Integer virtualThreadCount;
 
         /**
          * Constructs a ThreadsResponseBody with the given thread list.
@@ -352,6 +352,18 @@ public class Types {
         USERUNHANDLED
     }
 
+    public static class ExceptionPathSegment {
+        public boolean negate;
+        public String[] names = new String[0];
+    }
+
+    public static class ExceptionOptions {
+        public ExceptionPathSegment[] path;
+        public ExceptionBreakMode breakMode;
+        // The hit count of the exception types in the path, it's an extension to the DAP exception options.
+        public int hitCount;
+    }
+
     public static class ExceptionDetails {
         public String message;
         public String typeName;
@@ -382,9 +394,11 @@ public class Types {
         public boolean supportsDelayedStackTraceLoading;
         public boolean supportsLogPoints;
         public boolean supportsExceptionInfoRequest;
+        public boolean supportsExceptionOptions;
         public ExceptionBreakpointFilter[] exceptionBreakpointFilters = new ExceptionBreakpointFilter[0];
         public boolean supportsDataBreakpoints;
         public boolean supportsClipboardContext;
         public boolean supportsFunctionBreakpoints;
+        public boolean supportsCancelRequest;
     }
 }
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.VirtualMachine;
+import com.sun.jdi.request.ClassPrepareRequest;
+import com.sun.jdi.request.EventRequestManager;
+
+import io.reactivex.disposables.Disposable;
+
+public class ClassPrepareMultiplexerTest {
+    private ClassPrepareMultiplexer createMultiplexer() {
+        EventRequestManager manager = createNiceMock(EventRequestManager.class);
+        expect(manager.createClassPrepareRequest()).andAnswer(() -> createNiceMock(ClassPrepareRequest.class)).anyTimes();
+        VirtualMachine vm = createNiceMock(VirtualMachine.class);
+        expect(vm.eventRequestManager()).andStubReturn(manager);
+        replay(manager, vm);
+        return new ClassPrepareMultiplexer(vm, new EventHub());
+    }
+
+    @Test
+    public void testOneRequestPerPackage() {
+        ClassPrepareMultiplexer multiplexer = createMultiplexer();
+        List<Disposable> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            subscriptions.add(multiplexer.subscribe("com.example.p" + (i % 20) + ".Type" + i, true, type -> { }));
+        }
+        assertEquals(20, multiplexer.getRequestCount());
+
+        subscriptions.forEach(Disposable::dispose);
+        assertEquals(0, multiplexer.getRequestCount());
+    }
+
+    @Test
+    public void testResolveNestedTypes() {
+        ClassPrepareMultiplexer multiplexer = createMultiplexer();
+        List<String> prepared = new ArrayList<>();
+        multiplexer.subscribe("com.example.Outer", true, type -> prepared.add("outer+nested:" + type.name()));
+        multiplexer.subscribe("com.example.Outer", false, type -> prepared.add("outer:" + type.name()));
+        Disposable inner = multiplexer.subscribe("com.example.Outer$Inner", false, type -> prepared.add("inner:" + type.name()));
+
+        multiplexer.classPrepared(mockType("com.example.Outer$Inner$1"));
+        multiplexer.classPrepared(mockType("com.example.Outer$Inner"));
+        multiplexer.classPrepared(mockType("com.example.OuterX"));
+        multiplexer.classPrepared(mockType("com.example.Outer.sub.Type"));
+        inner.dispose();
+        multiplexer.classPrepared(mockType("com.example.Outer"));
+
+        assertEquals(Arrays.asList("outer+nested:com.example.Outer$Inner$1", "outer+nested:com.example.Outer$Inner",
+                "inner:com.example.Outer$Inner", "outer+nested:com.example.Outer", "outer:com.example.Outer"), prepared);
+    }
+
+    @Test
+    public void testIndexNestedTypes() {
+        ClassPrepareMultiplexer multiplexer = createMultiplexer();
+        ReferenceType outer = createNiceMock(ReferenceType.class);
+        ReferenceType loaded = mockType("com.example.Outer$1");
+        expect(outer.name()).andStubReturn("com.example.Outer");
+        // Only the first lookup lists the loaded classes.
+        expect(outer.nestedTypes()).andReturn(new ArrayList<>(Arrays.asList(loaded))).once();
+        expect(outer.nestedTypes()).andStubReturn(Collections.emptyList());
+        replay(outer);
+
+        Disposable subscription = multiplexer.subscribe("com.example.Outer", true, type -> { });
+        assertEquals(Arrays.asList(loaded), multiplexer.getNestedTypes(outer));
+
+        ReferenceType prepared = mockType("com.example.Outer$Inner$1");
+        multiplexer.classPrepared(prepared);
+        multiplexer.classPrepared(mockType("com.example.OuterX"));
+        assertEquals(Arrays.asList(loaded, prepared), multiplexer.getNestedTypes(outer));
+
+        subscription.dispose();
+        assertEquals(Collections.emptyList(), multiplexer.getNestedTypes(outer));
+    }
+
+    @Test
+    public void testExactFiltersForFewTypes() {
+        ClassPrepareMultiplexer multiplexer = createMultiplexer();
+        Disposable outer = multiplexer.subscribe("com.example.Outer", true, type -> { });
+        multiplexer.subscribe("com.example.Outer$Inner", false, type -> { });
+        assertEquals("The nested types share the requests of their top-level type.", 2, multiplexer.getRequestCount());
+
+        for (int i = 0; i < 20; i++) {
+            multiplexer.subscribe("java.lang.Exception" + i, false, type -> { });
+        }
+        assertEquals("The JDK packages never use the package wildcard.", 42, multiplexer.getRequestCount());
+
+        outer.dispose();
+        assertEquals(42, multiplexer.getRequestCount());
+    }
+
+    @Test
+    public void testClassFilters() {
+        assertEquals(new LinkedHashSet<>(Arrays.asList("Main", "Main$*")),
+                ClassPrepareMultiplexer.getClassFilters("", Collections.singleton("Main"), false));
+        Set<String> types = new LinkedHashSet<>();
+        for (int i = 0; i < 17; i++) {
+            types.add("com.example.Type" + i);
+        }
+        assertEquals(Collections.singleton("com.example.*"), ClassPrepareMultiplexer.getClassFilters("com.example", types, false));
+        assertEquals(34, ClassPrepareMultiplexer.getClassFilters("java.util", types, false).size());
+
+        // The wildcard is kept until the waiting types drop to half of the threshold.
+        types.removeIf(type -> type.compareTo("com.example.Type3") > 0);
+        assertEquals(Collections.singleton("com.example.*"), ClassPrepareMultiplexer.getClassFilters("com.example", types, true));
+        assertEquals(2 * types.size(), ClassPrepareMultiplexer.getClassFilters("com.example", types, false).size());
+    }
+
+    private static ReferenceType mockType(String name) {
+        ReferenceType type = createNiceMock(ReferenceType.class);
+        expect(type.name()).andStubReturn(name);
+        replay(type);
+        return type;
+    }
+}
@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core;
+
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.sun.jdi.event.BreakpointEvent;
+import com.sun.jdi.event.ClassPrepareEvent;
+import com.sun.jdi.event.Event;
+import com.sun.jdi.request.ClassPrepareRequest;
+import com.sun.jdi.request.EventRequest;
+
+import io.reactivex.disposables.Disposable;
+
+public class EventHubTest {
+    private EventHub eventHub = new EventHub();
+
+    private <T extends Event> DebugEvent createEvent(Class<T> eventType, EventRequest request) {
+        T event = createNiceMock(eventType);
+        expect(event.request()).andStubReturn(request);
+        replay(event);
+        DebugEvent debugEvent = new DebugEvent();
+        debugEvent.event = event;
+        return debugEvent;
+    }
+
+    private static ClassPrepareRequest createRequest() {
+        ClassPrepareRequest request = createNiceMock(ClassPrepareRequest.class);
+        replay(request);
+        return request;
+    }
+
+    @Test
+    public void testRouteByRequest() {
+        List<ClassPrepareRequest> requests = new ArrayList<>();
+        int[] received = new int[1000];
+        for (int i = 0; i < received.length; i++) {
+            ClassPrepareRequest request = createRequest();
+            requests.add(request);
+            int index = i;
+            eventHub.events(request).subscribe(debugEvent -> received[index]++);
+        }
+
+        eventHub.publish(createEvent(ClassPrepareEvent.class, requests.get(42)));
+        for (int i = 0; i < received.length; i++) {
+            assertEquals(i == 42 ? 1 : 0, received[i]);
+        }
+    }
+
+    @Test
+    public void testRouteByType() {
+        List<String> received = new ArrayList<>();
+        eventHub.events().subscribe(debugEvent -> received.add("all"));
+        eventHub.events(BreakpointEvent.class).subscribe(debugEvent -> received.add("breakpoint"));
+        eventHub.events(ClassPrepareEvent.class).subscribe(debugEvent -> received.add("classPrepare"));
+        eventHub.breakpointEvents().subscribe(debugEvent -> received.add("breakpoint2"));
+
+        eventHub.publish(createEvent(BreakpointEvent.class, null));
+        assertEquals(List.of("all", "breakpoint", "breakpoint2"), received);
+    }
+
+    @Test
+    public void testRouteRemovedAfterDispose() {
+        ClassPrepareRequest request = createRequest();
+        List<DebugEvent> received = new ArrayList<>();
+        Disposable first = eventHub.events(request).subscribe(received::add);
+        Disposable second = eventHub.events(request).take(1).subscribe(received::add);
+
+        eventHub.publish(createEvent(ClassPrepareEvent.class, request));
+        assertEquals(2, received.size());
+        assertTrue(second.isDisposed());
+
+        first.dispose();
+        eventHub.publish(createEvent(ClassPrepareEvent.class, request));
+        assertEquals(2, received.size());
+
+        eventHub.events(request).subscribe(received::add);
+        eventHub.publish(createEvent(ClassPrepareEvent.class, request));
+        assertEquals(3, received.size());
+    }
+
+    @Test
+    public void testCompleteRoutes() {
+        boolean[] completed = new boolean[2];
+        eventHub.events(BreakpointEvent.class).subscribe(debugEvent -> { }, error -> { }, () -> completed[0] = true);
+        eventHub.complete(null);
+        eventHub.events(ClassPrepareEvent.class).subscribe(debugEvent -> { }, error -> { }, () -> completed[1] = true);
+        assertTrue(completed[0]);
+        assertTrue(completed[1]);
+    }
+}
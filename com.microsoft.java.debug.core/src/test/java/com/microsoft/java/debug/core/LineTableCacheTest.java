@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.microsoft.java.debug.core.adapter.BaseJdiTestCase;
+import com.sun.jdi.Location;
+import com.sun.jdi.Method;
+import com.sun.jdi.ReferenceType;
+
+public class LineTableCacheTest extends BaseJdiTestCase {
+    @Test
+    public void testLocationsOfLine() throws Exception {
+        ReferenceType type = staticBreakpointEvent.location().declaringType();
+        LineTableCache cache = new LineTableCache();
+        int lineNumber = staticBreakpointEvent.location().lineNumber();
+
+        List<Location> expected = new ArrayList<>();
+        for (Method method : type.methods()) {
+            if (!method.isAbstract() && !method.isNative()) {
+                expected.addAll(method.locationsOfLine(lineNumber));
+            }
+        }
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, cache.getLocationsOfLine(type, lineNumber));
+        assertTrue(cache.getLocationsOfLine(type, Integer.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        ReferenceType type = staticBreakpointEvent.location().declaringType();
+        LineTableCache cache = new LineTableCache();
+        int lineNumber = staticBreakpointEvent.location().lineNumber();
+        List<Location> locations = cache.getLocationsOfLine(type, lineNumber);
+
+        cache.invalidate(Collections.singletonList("Other"));
+        assertTrue(locations == cache.getLocationsOfLine(type, lineNumber));
+        cache.invalidate(Collections.singletonList(type.name()));
+        List<Location> reloaded = cache.getLocationsOfLine(type, lineNumber);
+        assertNotSame(locations, reloaded);
+        assertEquals(locations, reloaded);
+    }
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.capture;
+import static org.easymock.EasyMock.createNiceMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.newCapture;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import org.easymock.Capture;
+import org.junit.Test;
+
+import com.microsoft.java.debug.core.IBreakpoint;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.VirtualMachine;
+
+public class BreakpointManagerTest {
+    @Test
+    public void testInstallBreakpointsByClass() {
+        List<ReferenceType> loadedTypes = Arrays.asList(createNiceMock(ReferenceType.class));
+        VirtualMachine vm = createNiceMock(VirtualMachine.class);
+        expect(vm.classesByName("a.Foo")).andReturn(loadedTypes).once();
+        expect(vm.classesByName("a.Bar")).andReturn(Collections.emptyList()).once();
+        replay(vm);
+
+        CompletableFuture<Boolean> resolution = new CompletableFuture<>();
+        IBreakpoint foo1 = mockBreakpoint("a.Foo", resolution);
+        IBreakpoint foo2 = mockBreakpoint("a.Foo", CompletableFuture.completedFuture(true));
+        IBreakpoint failing = createNiceMock(IBreakpoint.class);
+        expect(failing.className()).andStubReturn("a.Foo");
+        expect(failing.install(anyObject(), anyObject())).andThrow(new IllegalStateException("failed")).once();
+        replay(failing);
+        Capture<Consumer<IBreakpoint>> barListener = newCapture();
+        IBreakpoint bar = createNiceMock(IBreakpoint.class);
+        expect(bar.className()).andStubReturn("a.Bar");
+        expect(bar.install(anyObject(), capture(barListener))).andReturn(CompletableFuture.completedFuture(false)).once();
+        replay(bar);
+
+        List<List<IBreakpoint>> batches = new ArrayList<>();
+        new BreakpointManager().installBreakpoints(vm, new IBreakpoint[] {foo1, bar, failing, foo2}, batches::add);
+        verify(vm, foo1, foo2, failing, bar);
+        assertTrue("All the breakpoints are started before any of them is resolved.", batches.isEmpty());
+
+        resolution.complete(true);
+        assertEquals(Arrays.asList(Arrays.asList(foo1, foo2)), batches);
+
+        // The breakpoints verified by the classes loaded later are reported one by one.
+        barListener.getValue().accept(bar);
+        assertEquals(Arrays.asList(bar), batches.get(1));
+    }
+
+    private static IBreakpoint mockBreakpoint(String className, CompletableFuture<Boolean> resolution) {
+        IBreakpoint breakpoint = createNiceMock(IBreakpoint.class);
+        expect(breakpoint.className()).andStubReturn(className);
+        expect(breakpoint.install(anyObject(), anyObject())).andReturn(resolution).once();
+        replay(breakpoint);
+        return breakpoint;
+    }
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class CancellationTokenTest {
+    @Test
+    public void testCallbacks() {
+        CancellationToken token = new CancellationToken();
+        AtomicInteger count = new AtomicInteger();
+        token.onCancel(count::incrementAndGet);
+        CancellationToken.Registration removed = token.onCancel(count::incrementAndGet);
+        removed.close();
+
+        token.cancel();
+        token.cancel();
+        assertTrue(token.isCancelled());
+        assertEquals("Only the registered callback should run, and only once.", 1, count.get());
+
+        token.onCancel(count::incrementAndGet);
+        assertEquals("The callback registered after the cancellation should run immediately.", 2, count.get());
+    }
+
+    @Test(expected = CancellationException.class)
+    public void testThrowIfCancelled() {
+        CancellationToken token = new CancellationToken();
+        token.throwIfCancelled();
+        token.cancel();
+        token.throwIfCancelled();
+    }
+
+    @Test
+    public void testNoneToken() {
+        AtomicInteger count = new AtomicInteger();
+        CancellationToken.NONE.onCancel(count::incrementAndGet);
+        CancellationToken.NONE.cancel();
+        assertFalse(CancellationToken.NONE.isCancelled());
+        assertEquals(0, count.get());
+    }
+}
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.java.debug.core.DebugSettings;
+import com.microsoft.java.debug.core.protocol.Requests.ClassFilters;
+import com.sun.jdi.Location;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.event.ExceptionEvent;
+
+public class ExceptionEventFilterTest {
+    private ClassFilters catchLocationFilters;
+    private int rateLimit;
+
+    @Before
+    public void saveSettings() {
+        catchLocationFilters = DebugSettings.getCurrent().exceptionCatchLocationFilters;
+        rateLimit = DebugSettings.getCurrent().exceptionRateLimit;
+    }
+
+    @After
+    public void restoreSettings() {
+        DebugSettings.getCurrent().exceptionCatchLocationFilters = catchLocationFilters;
+        DebugSettings.getCurrent().exceptionRateLimit = rateLimit;
+    }
+
+    @Test
+    public void testClassFilters() {
+        ClassFilters filters = new ClassFilters();
+        filters.skipClasses = new String[] {"java.*", "*.Retry"};
+        assertFalse(ExceptionEventFilter.isAllowed("java.util.Scanner", filters));
+        assertFalse(ExceptionEventFilter.isAllowed("com.example.Retry", filters));
+        assertTrue(ExceptionEventFilter.isAllowed("com.example.Parser", filters));
+
+        filters.allowClasses = new String[] {"com.example.*"};
+        assertFalse(ExceptionEventFilter.isAllowed("org.example.Parser", filters));
+    }
+
+    @Test
+    public void testSkippedTypesAndCatchLocations() {
+        ClassFilters filters = new ClassFilters();
+        filters.skipClasses = new String[] {"com.example.parser.*"};
+        DebugSettings.getCurrent().exceptionCatchLocationFilters = filters;
+        ExceptionEventFilter filter = new ExceptionEventFilter();
+        filter.setSkippedTypes(Arrays.asList("java.lang.NumberFormatException"));
+
+        assertFalse(filter.shouldBreak(mockEvent("java.lang.NumberFormatException", null)));
+        assertTrue(filter.shouldBreak(mockEvent("java.lang.NullPointerException", null)));
+        assertFalse(filter.shouldBreak(mockEvent("java.lang.IllegalStateException", "com.example.parser.Lexer")));
+        assertTrue(filter.shouldBreak(mockEvent("java.lang.IllegalStateException", "com.example.App")));
+    }
+
+    @Test
+    public void testRateLimit() {
+        DebugSettings.getCurrent().exceptionRateLimit = 2;
+        ExceptionEventFilter filter = new ExceptionEventFilter();
+        assertTrue(filter.shouldBreak(mockEvent("java.lang.NullPointerException", null)));
+        assertTrue(filter.shouldBreak(mockEvent("java.lang.NullPointerException", null)));
+        assertFalse(filter.shouldBreak(mockEvent("java.lang.NullPointerException", null)));
+        assertTrue("The limit applies to each type.", filter.shouldBreak(mockEvent("java.io.IOException", null)));
+    }
+
+    /**
+     * Creates an exception event of the type, the exception is caught in the class if <code>catchClassName</code> is not null.
+     */
+    public static ExceptionEvent mockEvent(String typeName, String catchClassName) {
+        ReferenceType type = EasyMock.createNiceMock(ReferenceType.class);
+        EasyMock.expect(type.name()).andReturn(typeName).anyTimes();
+        ObjectReference exception = EasyMock.createNiceMock(ObjectReference.class);
+        EasyMock.expect(exception.referenceType()).andReturn(type).anyTimes();
+        Location catchLocation = null;
+        if (catchClassName != null) {
+            ReferenceType catchType = EasyMock.createNiceMock(ReferenceType.class);
+            EasyMock.expect(catchType.name()).andReturn(catchClassName).anyTimes();
+            catchLocation = EasyMock.createNiceMock(Location.class);
+            EasyMock.expect(catchLocation.declaringType()).andReturn(catchType).anyTimes();
+            EasyMock.replay(catchType, catchLocation);
+        }
+        ExceptionEvent event = EasyMock.createNiceMock(ExceptionEvent.class);
+        EasyMock.expect(event.exception()).andReturn(exception).anyTimes();
+        EasyMock.expect(event.catchLocation()).andReturn(catchLocation).anyTimes();
+        EasyMock.replay(type, exception, event);
+        return event;
+    }
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class IdCollectionTest {
+    @Test
+    public void testCreateAndGet() {
+        IdCollection<String> collection = new IdCollection<>();
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i + 1, collection.create("value" + i));
+        }
+        assertEquals(5, collection.create("value4"));
+        for (int i = 0; i < 10000; i++) {
+            assertEquals("value" + i, collection.get(i + 1));
+        }
+        assertNull(collection.get(0));
+        assertNull(collection.get(10001));
+    }
+
+    @Test
+    public void testRemove() {
+        IdCollection<String> collection = new IdCollection<>();
+        // Remove and add the ids many times over, the removed slots should be reclaimed.
+        for (int i = 0; i < 10000; i++) {
+            int id = collection.create("value" + i);
+            if (i % 10 != 0) {
+                assertEquals("value" + i, collection.remove(id));
+            }
+        }
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i % 10 == 0 ? "value" + i : null, collection.get(i + 1));
+        }
+        assertNull(collection.remove(2));
+        assertEquals(10001, collection.create("value1"));
+    }
+
+    @Test
+    public void testRestore() {
+        IdCollection<String> collection = new IdCollection<>();
+        int id = collection.create("a");
+        collection.create("b");
+        collection.remove(id);
+
+        assertEquals(id, collection.restore(id, "a"));
+        assertEquals("a", collection.get(id));
+        assertEquals("An id in use is not restored.", 3, collection.restore(id, "c"));
+        assertEquals("An id never created is not restored.", 4, collection.restore(100, "d"));
+    }
+
+    @Test
+    public void testReset() {
+        IdCollection<String> collection = new IdCollection<>();
+        collection.create("a");
+        collection.reset();
+
+        assertNull(collection.get(1));
+        assertEquals(1, collection.create("b"));
+    }
+}
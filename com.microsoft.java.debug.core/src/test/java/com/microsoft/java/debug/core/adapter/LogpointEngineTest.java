@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import com.microsoft.java.debug.core.DebugSettings;
+import com.microsoft.java.debug.core.protocol.Events;
+import com.microsoft.java.debug.core.protocol.IProtocolServer;
+import com.microsoft.java.debug.core.protocol.Messages.Request;
+import com.microsoft.java.debug.core.protocol.Messages.Response;
+import com.sun.jdi.ThreadReference;
+
+public class LogpointEngineTest extends BaseJdiTestCase {
+    private List<Events.DebugEvent> events = new CopyOnWriteArrayList<>();
+    private CountDownLatch sendStarted = new CountDownLatch(1);
+    private volatile CountDownLatch sendGate = new CountDownLatch(0);
+
+    private IProtocolServer server = new IProtocolServer() {
+        @Override
+        public CompletableFuture<Response> sendRequest(Request request) {
+            return null;
+        }
+
+        @Override
+        public CompletableFuture<Response> sendRequest(Request request, long timeout) {
+            return null;
+        }
+
+        @Override
+        public void sendEvent(Events.DebugEvent event) {
+            sendStarted.countDown();
+            try {
+                sendGate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(event);
+        }
+
+        @Override
+        public void sendResponse(Response response) {
+        }
+    };
+
+    private String format(String logMessage) {
+        ThreadReference thread = staticBreakpointEvent.thread();
+        return LogpointEngine.format(logMessage, thread);
+    }
+
+    @Test
+    public void testFormat() {
+        assertEquals("i = 111, field = 19099, x = 100", format("i = {i}, field = {this.i}, x = { x }"));
+        assertEquals("false null", format("{boolVar} {nullstr}"));
+        assertEquals("no placeholder", format("no placeholder"));
+    }
+
+    @Test
+    public void testUnsupportedMessages() {
+        assertNull("toString invocation", format("{obj}"));
+        assertNull("Method invocation", format("{str.length()}"));
+        assertNull("Format specifier", format("100% {i}"));
+        assertNull("Unknown variable", format("{unknownVariable}"));
+    }
+
+    @Test
+    public void testBatchedOutput() {
+        LogpointEngine engine = new LogpointEngine(server);
+        engine.log("a");
+        engine.log("b");
+        engine.flush();
+        engine.flush();
+
+        assertEquals(1, events.size());
+        assertEquals("a" + System.lineSeparator() + "b" + System.lineSeparator(), ((Events.OutputEvent) events.get(0)).output);
+    }
+
+    @Test
+    public void testFlushWaitsForInFlightOutput() throws Exception {
+        sendGate = new CountDownLatch(1);
+        LogpointEngine engine = new LogpointEngine(server);
+        engine.log("a");
+        CompletableFuture<Void> scheduledFlush = CompletableFuture.runAsync(engine::flush);
+        assertTrue(sendStarted.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(engine::flush);
+        try {
+            flush.get(100, TimeUnit.MILLISECONDS);
+            fail("The flush should wait for the output being sent.");
+        } catch (TimeoutException e) {
+            // expected
+        }
+
+        sendGate.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+        scheduledFlush.get(5, TimeUnit.SECONDS);
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void testRateLimit() {
+        int limit = DebugSettings.getCurrent().logpointRateLimit;
+        try {
+            DebugSettings.getCurrent().logpointRateLimit = 2;
+            LogpointEngine engine = new LogpointEngine(server);
+            assertTrue(engine.tryAcquire());
+            assertTrue(engine.tryAcquire());
+            assertFalse(engine.tryAcquire());
+            engine.flush();
+
+            assertEquals(1, events.size());
+            assertTrue(((Events.OutputEvent) events.get(0)).output.contains("1 log messages were dropped"));
+        } finally {
+            DebugSettings.getCurrent().logpointRateLimit = limit;
+        }
+    }
+}
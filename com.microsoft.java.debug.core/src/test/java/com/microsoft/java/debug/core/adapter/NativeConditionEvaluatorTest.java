@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+import com.sun.jdi.ThreadReference;
+
+public class NativeConditionEvaluatorTest extends BaseJdiTestCase {
+    private Boolean evaluate(String condition) {
+        ThreadReference thread = staticBreakpointEvent.thread();
+        return NativeConditionEvaluator.evaluate(condition, thread);
+    }
+
+    @Test
+    public void testPrimitiveComparisons() {
+        assertEquals(true, evaluate("i == 111"));
+        assertEquals(false, evaluate("i > 200"));
+        assertEquals(true, evaluate("i >= 111 && i < 112"));
+        assertEquals(true, evaluate("i == 111L"));
+        assertEquals(true, evaluate("i == 111.0"));
+        assertEquals(false, evaluate("!(i == 111) || x < 0"));
+        assertEquals(true, evaluate("i != -1"));
+    }
+
+    @Test
+    public void testFields() {
+        assertEquals("The field should be shadowed by the local variable.", false, evaluate("i == 19099"));
+        assertEquals(true, evaluate("this.i == 19099"));
+        assertEquals(true, evaluate("x == 100"));
+    }
+
+    @Test
+    public void testReferences() {
+        assertEquals(true, evaluate("nullstr == null"));
+        assertEquals(true, evaluate("str != null"));
+        assertEquals(false, evaluate("\"string test\".equals(str)"));
+        assertEquals(true, evaluate("str.equals(str)"));
+        assertEquals(false, evaluate("\"a\".equals(nullstr)"));
+    }
+
+    @Test
+    public void testUnsupportedConditions() {
+        assertNull("Non-boolean result", evaluate("i"));
+        assertNull("Boxed boolean", evaluate("boolVar"));
+        assertNull("NullPointerException", evaluate("nullstr.equals(\"a\")"));
+        assertNull("Unknown variable", evaluate("unknownVariable == 1"));
+        assertNull("Method invocation", evaluate("str.length() > 0"));
+        assertNull("Octal literal", evaluate("i == 010"));
+        assertNull("String identity", evaluate("str == \"a\""));
+        assertNull("Arithmetic", evaluate("i + 1 == 112"));
+    }
+}
@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.microsoft.java.debug.core.protocol.Events;
+import com.microsoft.java.debug.core.protocol.IProtocolServer;
+import com.microsoft.java.debug.core.protocol.Messages;
+import com.microsoft.java.debug.core.protocol.Requests.EvaluateArguments;
+import com.microsoft.java.debug.core.protocol.Requests.VariablesArguments;
+
+public class ProtocolServerTest {
+    private PipedOutputStream client;
+    private Thread serverThread;
+    private List<String> handled = new CopyOnWriteArrayList<>();
+    private CountDownLatch evaluationStarted = new CountDownLatch(1);
+    private CountDownLatch evaluation = new CountDownLatch(1);
+    private RecordingOutputStream output = new RecordingOutputStream();
+
+    private ProtocolServer start(boolean concurrent) throws IOException {
+        PipedInputStream input = new PipedInputStream(64 * 1024);
+        client = new PipedOutputStream(input);
+        ProtocolServer server = new ProtocolServer(input, output, this::createAdapter, concurrent);
+        serverThread = new Thread(server::run);
+        serverThread.start();
+        return server;
+    }
+
+    private IDebugAdapter createAdapter(IProtocolServer server) {
+        return new IDebugAdapter() {
+            @Override
+            public CompletableFuture<Messages.Response> dispatchRequest(Messages.Request request) {
+                Messages.Response response = new Messages.Response(request.seq, request.command, true);
+                if ("evaluate".equals(request.command)) {
+                    return CompletableFuture.supplyAsync(() -> {
+                        evaluationStarted.countDown();
+                        try {
+                            evaluation.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            // ignore
+                        }
+                        handled.add(request.command);
+                        return response;
+                    });
+                } else if ("continue".equals(request.command)) {
+                    // The stopped event is raised before the continue response is sent.
+                    server.sendEvent(new Events.StoppedEvent("breakpoint", 1));
+                }
+
+                handled.add(request.command + (request.typedArguments instanceof VariablesArguments
+                        ? ((VariablesArguments) request.typedArguments).variablesReference : ""));
+                return CompletableFuture.completedFuture(response);
+            }
+
+            @Override
+            public void flushOutput() {
+                server.sendEvent(Events.OutputEvent.createConsoleOutput("pending output"));
+            }
+
+            @Override
+            public Long getThreadId(Messages.Request request) {
+                // The frame and variable ids of the test are the ids of their threads.
+                if (request.typedArguments instanceof EvaluateArguments) {
+                    return (long) ((EvaluateArguments) request.typedArguments).frameId;
+                } else if (request.typedArguments instanceof VariablesArguments) {
+                    return (long) ((VariablesArguments) request.typedArguments).variablesReference;
+                }
+                return null;
+            }
+        };
+    }
+
+    private void request(int seq, String command, String arguments) throws IOException {
+        String body = String.format("{\"type\":\"request\",\"seq\":%d,\"command\":\"%s\",\"arguments\":%s}", seq, command, arguments);
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        client.write(("Content-Length: " + bytes.length + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        client.write(bytes);
+        client.flush();
+    }
+
+    private static String response(int seq) {
+        return "\"request_seq\":" + seq + ",";
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        evaluation.countDown();
+        client.close();
+        serverThread.join(5000);
+    }
+
+    @Test
+    public void testThreadsNotBlockedByEvaluation() throws Exception {
+        CompletableFuture<String> lastThreads = output.expect(response(50));
+        CompletableFuture<String> evaluate = output.expect(response(1));
+        start(true);
+        request(1, "evaluate", "{\"expression\":\"slow()\",\"frameId\":1}");
+        for (int i = 2; i <= 50; i++) {
+            request(i, "threads", "{}");
+        }
+
+        lastThreads.get(5, TimeUnit.SECONDS);
+        assertFalse("threads should be answered while the evaluation is running.", evaluate.isDone());
+        assertFalse(handled.contains("evaluate"));
+
+        evaluation.countDown();
+        evaluate.get(5, TimeUnit.SECONDS);
+        assertEquals("evaluate", handled.get(handled.size() - 1));
+    }
+
+    @Test
+    public void testRequestsOfSameThreadRunInOrder() throws Exception {
+        CompletableFuture<String> sameThread = output.expect(response(2));
+        CompletableFuture<String> otherThread = output.expect(response(3));
+        start(true);
+        request(1, "evaluate", "{\"expression\":\"slow()\",\"frameId\":1}");
+        request(2, "variables", "{\"variablesReference\":1}");
+        request(3, "variables", "{\"variablesReference\":2}");
+
+        otherThread.get(5, TimeUnit.SECONDS);
+        assertFalse("The variables of the evaluating thread should wait for the evaluation.", sameThread.isDone());
+        assertEquals(1, handled.size());
+        assertEquals("variables2", handled.get(0));
+
+        evaluation.countDown();
+        sameThread.get(5, TimeUnit.SECONDS);
+        assertEquals("evaluate", handled.get(1));
+        assertEquals("variables1", handled.get(2));
+    }
+
+    @Test
+    public void testGlobalRequestWaitsForPreviousRequests() throws Exception {
+        CompletableFuture<String> threads = output.expect(response(3));
+        start(true);
+        request(1, "evaluate", "{\"expression\":\"slow()\",\"frameId\":1}");
+        request(2, "setBreakpoints", "{\"source\":{\"path\":\"A.java\"},\"breakpoints\":[]}");
+        request(3, "threads", "{}");
+        assertTrue(evaluationStarted.await(5, TimeUnit.SECONDS));
+
+        // The evaluation is only recorded after it's released, the requests running ahead of it would be recorded first.
+        evaluation.countDown();
+        threads.get(5, TimeUnit.SECONDS);
+        assertEquals("evaluate", handled.get(0));
+        assertEquals("setBreakpoints", handled.get(1));
+        assertEquals("threads", handled.get(2));
+    }
+
+    @Test
+    public void testStoppedEventAfterContinueResponse() throws Exception {
+        CompletableFuture<String> stopped = output.expect("\"event\":\"stopped\"");
+        start(true);
+        request(1, "continue", "{\"threadId\":1}");
+        String text = stopped.get(5, TimeUnit.SECONDS);
+        int response = text.indexOf("\"command\":\"continue\"");
+        int event = text.indexOf("\"event\":\"stopped\"");
+        assertTrue(response >= 0 && event > response);
+    }
+
+    @Test
+    public void testOutputFlushedBeforeEndingEvents() throws Exception {
+        CompletableFuture<String> exited = output.expect("\"event\":\"exited\"");
+        ProtocolServer server = start(true);
+        server.sendEvent(new Events.TerminatedEvent());
+        server.sendEvent(new Events.ExitedEvent(0));
+
+        String text = exited.get(5, TimeUnit.SECONDS);
+        int terminated = text.indexOf("\"event\":\"terminated\"");
+        int first = text.indexOf("pending output");
+        int last = text.lastIndexOf("pending output");
+        assertTrue(first >= 0 && first < terminated);
+        assertTrue(last > terminated && last < text.indexOf("\"event\":\"exited\""));
+    }
+
+    @Test
+    public void testCancelNotBlockedBySerialDispatch() throws Exception {
+        CompletableFuture<String> cancel = output.expect(response(3));
+        CompletableFuture<String> threads = output.expect(response(2));
+        start(false);
+        request(1, "evaluate", "{\"expression\":\"slow()\",\"frameId\":1}");
+        request(2, "threads", "{}");
+        request(3, "cancel", "{\"requestId\":1}");
+
+        String text = cancel.get(5, TimeUnit.SECONDS);
+        assertTrue("The cancel request should be answered before the request it cancels.", text.contains("\"command\":\"cancel\"")
+                && !text.contains("\"command\":\"evaluate\""));
+        assertEquals("cancel", handled.get(0));
+
+        evaluation.countDown();
+        threads.get(5, TimeUnit.SECONDS);
+        assertEquals("threads", handled.get(handled.size() - 1));
+    }
+
+    /**
+     * Records the messages sent by the server, and completes the expectations once their text is written.
+     */
+    private static class RecordingOutputStream extends ByteArrayOutputStream {
+        private final List<String> expectedTexts = new ArrayList<>();
+        private final List<CompletableFuture<String>> expectations = new ArrayList<>();
+
+        synchronized CompletableFuture<String> expect(String expectedText) {
+            CompletableFuture<String> expectation = new CompletableFuture<>();
+            expectedTexts.add(expectedText);
+            expectations.add(expectation);
+            return expectation;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            super.write(b);
+            checkExpectations();
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes, int off, int len) {
+            super.write(bytes, off, len);
+            checkExpectations();
+        }
+
+        private void checkExpectations() {
+            String text = new String(toByteArray(), StandardCharsets.UTF_8);
+            for (int i = 0; i < expectations.size(); i++) {
+                if (text.contains(expectedTexts.get(i))) {
+                    expectations.get(i).complete(text);
+                }
+            }
+        }
+    }
+}
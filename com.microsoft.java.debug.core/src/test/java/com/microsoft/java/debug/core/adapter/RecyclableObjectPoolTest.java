@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.Test;
+
+public class RecyclableObjectPoolTest {
+    @Test
+    public void testRemoveObjectsByOwner() {
+        RecyclableObjectPool<Long, String> pool = new RecyclableObjectPool<>();
+        int id = pool.addObject(1L, "a");
+        assertEquals(id, pool.addObject(2L, "a"));
+
+        pool.removeObjectsByOwner(1L);
+        assertEquals("a", pool.getObjectById(id));
+        assertTrue(pool.removeObjectsByOwner(2L));
+        assertNull(pool.getObjectById(id));
+    }
+
+    @Test
+    public void testIdsStableAcrossRecycling() {
+        RecyclableObjectPool<Long, String> pool = new RecyclableObjectPool<>();
+        int idA = pool.addObject(1L, "a");
+        int idB = pool.addObject(1L, "b");
+        pool.removeObjectsByOwner(1L);
+
+        int idC = pool.addObject(1L, "c");
+        assertEquals(idB, pool.addObject(1L, "b"));
+        assertNotEquals(idA, idC);
+        assertNotEquals(idB, idC);
+        assertNotEquals("The retired ids belong to their owner.", idA, pool.addObject(2L, "a"));
+    }
+
+    @Test
+    public void testRemoveRetiredIds() {
+        RecyclableObjectPool<Long, String> pool = new RecyclableObjectPool<>();
+        int id = pool.addObject(1L, "a");
+        pool.removeObjectsByOwner(1L);
+        pool.removeRetiredIds(1L);
+
+        assertNotEquals(id, pool.addObject(1L, "a"));
+    }
+
+    @Test
+    public void testRemoveAllObjects() {
+        RecyclableObjectPool<Long, String> pool = new RecyclableObjectPool<>();
+        pool.addObject(1L, "a");
+        pool.addObject(1L, "b");
+        pool.removeObjectsByOwner(1L);
+        pool.removeAllObjects();
+
+        int id = pool.addObject(1L, "c");
+        assertEquals("The ids restart without clashing with the retired ones.", id, pool.addObject(1L, "c"));
+        assertEquals("c", pool.getObjectById(id));
+        assertEquals(id + 1, pool.addObject(1L, "b"));
+    }
+
+    @Test
+    public void testConcurrentOwners() {
+        RecyclableObjectPool<Long, String> pool = new RecyclableObjectPool<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (long owner = 0; owner < 16; owner++) {
+            long currentOwner = owner;
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int step = 0; step < 20; step++) {
+                    List<Integer> ids = new ArrayList<>();
+                    for (int i = 0; i < 100; i++) {
+                        ids.add(pool.addObject(currentOwner, currentOwner + ":" + i));
+                    }
+                    for (int i = 0; i < 100; i++) {
+                        assertEquals(currentOwner + ":" + i, pool.getObjectById(ids.get(i)));
+                    }
+                    pool.removeObjectsByOwner(currentOwner);
+                    assertNull(pool.getObjectById(ids.get(0)));
+                }
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+}
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.microsoft.java.debug.core.adapter.variables.StackFrameReference;
+import com.sun.jdi.Location;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.StackFrame;
+import com.sun.jdi.ThreadReference;
+
+public class StackFrameManagerTest extends BaseJdiTestCase {
+    @Test
+    public void testWindowsAreCachedPerStop() throws Exception {
+        ThreadReference thread = staticBreakpointEvent.thread();
+        StackFrameManager manager = new StackFrameManager();
+        assertEquals(thread.frameCount(), manager.getFrameCount(thread));
+
+        StackFrame[] frames = manager.getStackFrames(thread, 0, 1);
+        assertEquals(1, frames.length);
+        assertSame(frames[0], manager.getStackFrames(thread, 0, 1)[0]);
+        assertSame(frames[0], manager.getStackFrame(new StackFrameReference(thread, 0)));
+        assertEquals("The deeper frames are fetched on demand.", thread.frame(1).location(),
+                manager.getStackFrame(new StackFrameReference(thread, 1)).location());
+    }
+
+    @Test
+    public void testInvalidatedByMethodInvocation() throws Exception {
+        ThreadReference thread = staticBreakpointEvent.thread();
+        StackFrameManager manager = new StackFrameManager();
+        StackFrame frame = manager.getStackFrames(thread, 0, 1)[0];
+        Location location = frame.location();
+
+        ObjectReference strList = (ObjectReference) getLocalValue("strList");
+        strList.invokeMethod(thread, strList.referenceType().methodsByName("size").get(0), Collections.emptyList(),
+                ObjectReference.INVOKE_SINGLE_THREADED);
+        StackFrame reloaded = manager.getStackFrame(new StackFrameReference(thread, 0));
+        assertNotSame("The frames are dropped once the thread has run.", frame, reloaded);
+        assertEquals(location, reloaded.location());
+    }
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+import com.sun.jdi.ThreadReference;
+
+public class ThreadCacheTest {
+    @Test
+    public void testResetWithoutTracking() {
+        ThreadCache cache = new ThreadCache();
+        ThreadReference thread1 = mockThread(1);
+        ThreadReference thread2 = mockThread(2);
+        cache.resetThreads(Arrays.asList(thread1, thread2));
+        assertFalse("The threads need to be fetched again without the thread events.", cache.isUpToDate());
+
+        cache.resetThreads(Arrays.asList(thread2));
+        assertEquals(Arrays.asList(thread2), cache.getThreads());
+        assertNull(cache.getThread(1));
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        ThreadCache cache = new ThreadCache();
+        cache.startTracking();
+        ThreadReference thread1 = mockThread(1);
+        ThreadReference thread2 = mockThread(2);
+        ThreadReference thread3 = mockThread(3);
+        cache.addThread(thread3);
+        cache.resetThreads(Arrays.asList(thread2, thread1));
+        assertTrue(cache.isUpToDate());
+        assertEquals("The threads are ordered by their ids.", Arrays.asList(thread1, thread2, thread3), cache.getThreads());
+
+        cache.addDeathThread(2);
+        assertNull(cache.getThread(2));
+        assertSame(thread3, cache.getThread(3));
+        cache.addThread(thread2);
+        assertEquals("A dead thread is not added again.", Arrays.asList(thread1, thread3), cache.getThreads());
+    }
+
+    @Test
+    public void testVirtualThreads() {
+        ThreadCache cache = new ThreadCache();
+        cache.startTracking();
+        ThreadReference platformThread = mockThread(1);
+        ThreadReference virtualThread1 = mockThread(2);
+        ThreadReference virtualThread2 = mockThread(3);
+        cache.addThread(platformThread, false);
+        cache.addThread(virtualThread1, true);
+        cache.addThread(virtualThread2, true);
+        assertEquals("The virtual threads are kept apart.", Arrays.asList(platformThread), cache.getThreads());
+        assertEquals(Arrays.asList(virtualThread1, virtualThread2), cache.getVirtualThreads());
+        assertEquals(2, cache.getVirtualThreadCount());
+        assertTrue(cache.isVirtualThread(3));
+        assertSame(virtualThread2, cache.getThread(3));
+
+        cache.addEventThread(platformThread);
+        cache.addEventThread(virtualThread2);
+        assertEquals(Arrays.asList(virtualThread2), cache.getEventThreads());
+        cache.addDeathThread(3);
+        assertTrue(cache.getEventThreads().isEmpty());
+        assertEquals(1, cache.getVirtualThreadCount());
+    }
+
+    private static ThreadReference mockThread(long id) {
+        ThreadReference thread = EasyMock.createNiceMock(ThreadReference.class);
+        EasyMock.expect(thread.uniqueID()).andReturn(id).anyTimes();
+        EasyMock.replay(thread);
+        return thread;
+    }
+}
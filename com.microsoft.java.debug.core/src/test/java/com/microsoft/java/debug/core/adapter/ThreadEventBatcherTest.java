@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+
+import com.microsoft.java.debug.core.protocol.Events;
+import com.microsoft.java.debug.core.protocol.IProtocolServer;
+import com.microsoft.java.debug.core.protocol.Messages.Request;
+import com.microsoft.java.debug.core.protocol.Messages.Response;
+
+public class ThreadEventBatcherTest {
+    private List<Events.DebugEvent> events = new CopyOnWriteArrayList<>();
+
+    private IProtocolServer server = new IProtocolServer() {
+        @Override
+        public CompletableFuture<Response> sendRequest(Request request) {
+            return null;
+        }
+
+        @Override
+        public CompletableFuture<Response> sendRequest(Request request, long timeout) {
+            return null;
+        }
+
+        @Override
+        public void sendEvent(Events.DebugEvent event) {
+            events.add(event);
+        }
+
+        @Override
+        public void sendResponse(Response response) {
+        }
+    };
+
+    @Test
+    public void testShortLivedThreadsAreDropped() {
+        ThreadEventBatcher batcher = new ThreadEventBatcher(server);
+        batcher.threadStarted(1);
+        batcher.threadStarted(2);
+        batcher.threadDied(1);
+        batcher.threadDied(3);
+        assertTrue("The events are sent in batches.", events.isEmpty());
+
+        batcher.flush();
+        assertEquals(2, events.size());
+        assertThreadEvent(events.get(0), ThreadEventBatcher.STARTED, 2);
+        assertThreadEvent(events.get(1), ThreadEventBatcher.EXITED, 3);
+    }
+
+    @Test
+    public void testLargeBatch() {
+        ThreadEventBatcher batcher = new ThreadEventBatcher(server);
+        for (long id = 1; id <= 1000; id++) {
+            batcher.threadStarted(id);
+        }
+        batcher.flush();
+        assertEquals(1, events.size());
+        assertTrue("A single event tells the client to fetch the threads.", events.get(0) instanceof Events.InvalidatedEvent);
+    }
+
+    @Test
+    public void testScheduledFlush() throws Exception {
+        ThreadEventBatcher batcher = new ThreadEventBatcher(server);
+        batcher.threadStarted(1);
+        for (int i = 0; i < 50 && events.isEmpty(); i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, events.size());
+        assertThreadEvent(events.get(0), ThreadEventBatcher.STARTED, 1);
+    }
+
+    private static void assertThreadEvent(Events.DebugEvent event, String reason, long threadId) {
+        Events.ThreadEvent threadEvent = (Events.ThreadEvent) event;
+        assertEquals(reason, threadEvent.reason);
+        assertEquals(threadId, threadEvent.threadId);
+    }
+}
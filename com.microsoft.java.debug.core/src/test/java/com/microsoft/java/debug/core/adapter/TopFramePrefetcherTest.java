@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.java.debug.core.DebugSettings;
+import com.microsoft.java.debug.core.adapter.variables.Variable;
+import com.sun.jdi.ThreadReference;
+
+public class TopFramePrefetcherTest extends BaseJdiTestCase {
+    private boolean prefetchTopFrameVariables;
+
+    @Before
+    public void enablePrefetch() {
+        prefetchTopFrameVariables = DebugSettings.getCurrent().prefetchTopFrameVariables;
+        DebugSettings.getCurrent().prefetchTopFrameVariables = true;
+    }
+
+    @After
+    public void restorePrefetch() {
+        DebugSettings.getCurrent().prefetchTopFrameVariables = prefetchTopFrameVariables;
+    }
+
+    @Test
+    public void testTakeOnce() throws Exception {
+        ThreadReference thread = staticBreakpointEvent.thread();
+        TopFramePrefetcher prefetcher = new TopFramePrefetcher();
+        prefetcher.prefetch(thread, new StackFrameManager());
+
+        List<Variable> variables = prefetcher.take(thread.uniqueID(), thread.frame(0));
+        assertNotNull(variables);
+        assertTrue(variables.stream().anyMatch(variable -> variable.name.equals("i")));
+        assertTrue(variables.stream().anyMatch(variable -> variable.name.equals("this")));
+        assertNull("The prefetched variables are handed out once.", prefetcher.take(thread.uniqueID(), thread.frame(0)));
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        ThreadReference thread = staticBreakpointEvent.thread();
+        TopFramePrefetcher prefetcher = new TopFramePrefetcher();
+        prefetcher.prefetch(thread, new StackFrameManager());
+        prefetcher.cancel(thread.uniqueID());
+
+        assertNull(prefetcher.take(thread.uniqueID(), thread.frame(0)));
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        DebugSettings.getCurrent().prefetchTopFrameVariables = false;
+        ThreadReference thread = staticBreakpointEvent.thread();
+        TopFramePrefetcher prefetcher = new TopFramePrefetcher();
+        prefetcher.prefetch(thread, new StackFrameManager());
+
+        assertNull(prefetcher.take(thread.uniqueID(), thread.frame(0)));
+    }
+}
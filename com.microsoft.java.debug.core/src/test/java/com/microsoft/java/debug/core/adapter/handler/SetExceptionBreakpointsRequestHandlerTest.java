@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter.handler;
+
+import static com.microsoft.java.debug.core.adapter.ExceptionEventFilterTest.mockEvent;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.easymock.Capture;
+import org.easymock.EasyMock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.java.debug.core.DebugSettings;
+import com.microsoft.java.debug.core.IDebugSession;
+import com.microsoft.java.debug.core.IEventHub;
+import com.microsoft.java.debug.core.adapter.ExceptionEventFilter;
+import com.microsoft.java.debug.core.adapter.IDebugAdapterContext;
+import com.microsoft.java.debug.core.protocol.Messages.Response;
+import com.microsoft.java.debug.core.protocol.Requests.Command;
+import com.microsoft.java.debug.core.protocol.Requests.SetExceptionBreakpointsArguments;
+import com.microsoft.java.debug.core.protocol.Types;
+import com.microsoft.java.debug.core.protocol.Types.ExceptionBreakMode;
+
+import io.reactivex.Observable;
+
+public class SetExceptionBreakpointsRequestHandlerTest {
+    private static final String CATCH_CLASS = "com.example.App";
+
+    private SetExceptionBreakpointsRequestHandler handler;
+    private ExceptionEventFilter filter;
+    private IDebugAdapterContext context;
+    private Capture<Boolean> notifyCaught;
+    private Capture<Boolean> notifyUncaught;
+
+    @Before
+    public void setup() {
+        handler = new SetExceptionBreakpointsRequestHandler();
+        filter = new ExceptionEventFilter();
+        notifyCaught = EasyMock.newCapture();
+        notifyUncaught = EasyMock.newCapture();
+        IEventHub eventHub = EasyMock.createNiceMock(IEventHub.class);
+        EasyMock.expect(eventHub.events()).andReturn(Observable.never()).anyTimes();
+        IDebugSession debugSession = EasyMock.createNiceMock(IDebugSession.class);
+        EasyMock.expect(debugSession.getEventHub()).andReturn(eventHub).anyTimes();
+        debugSession.setExceptionBreakpoints(EasyMock.captureBoolean(notifyCaught), EasyMock.captureBoolean(notifyUncaught),
+                EasyMock.anyObject(), EasyMock.anyObject(), EasyMock.anyObject());
+        EasyMock.expectLastCall().anyTimes();
+        context = EasyMock.createNiceMock(IDebugAdapterContext.class);
+        EasyMock.expect(context.getDebugSession()).andReturn(debugSession).anyTimes();
+        EasyMock.expect(context.getExceptionEventFilter()).andReturn(filter).anyTimes();
+        EasyMock.replay(eventHub, debugSession, context);
+    }
+
+    @After
+    public void tearDown() {
+        DebugSettings.removeDebugSettingChangeListener(handler);
+    }
+
+    @Test
+    public void testNegatedNever() throws Exception {
+        setExceptionBreakpoints(ExceptionBreakMode.NEVER, "java.io.IOException");
+
+        assertFalse(notifyCaught.getValue());
+        assertTrue(notifyUncaught.getValue());
+        assertTrue("The listed types keep breaking.", filter.shouldBreak(mockEvent("java.io.IOException", null)));
+        assertFalse(filter.shouldBreak(mockEvent("java.lang.NullPointerException", null)));
+    }
+
+    @Test
+    public void testNegatedAlways() throws Exception {
+        setExceptionBreakpoints(ExceptionBreakMode.ALWAYS, "java.io.IOException");
+
+        assertTrue(notifyCaught.getValue());
+        assertTrue(notifyUncaught.getValue());
+        assertTrue(filter.shouldBreak(mockEvent("java.lang.NullPointerException", CATCH_CLASS)));
+        assertFalse("The listed types fall back to the default filters.", filter.shouldBreak(mockEvent("java.io.IOException", CATCH_CLASS)));
+        assertTrue(filter.shouldBreak(mockEvent("java.io.IOException", null)));
+    }
+
+    @Test
+    public void testNegatedUnhandled() throws Exception {
+        setExceptionBreakpoints(ExceptionBreakMode.UNHANDLED, "java.io.IOException");
+
+        assertFalse(notifyCaught.getValue());
+        assertTrue(notifyUncaught.getValue());
+        assertTrue("The listed types fall back to the default filters.", filter.shouldBreak(mockEvent("java.io.IOException", null)));
+        assertTrue(filter.shouldBreak(mockEvent("java.lang.NullPointerException", null)));
+    }
+
+    /**
+     * Sets the uncaught exception filter and a negated exception option of the break mode for the listed types.
+     */
+    private void setExceptionBreakpoints(ExceptionBreakMode breakMode, String... typeNames) throws Exception {
+        Types.ExceptionPathSegment segment = new Types.ExceptionPathSegment();
+        segment.negate = true;
+        segment.names = typeNames;
+        Types.ExceptionOptions option = new Types.ExceptionOptions();
+        option.path = new Types.ExceptionPathSegment[] {segment};
+        option.breakMode = breakMode;
+        SetExceptionBreakpointsArguments arguments = new SetExceptionBreakpointsArguments();
+        arguments.filters = new String[] {Types.ExceptionBreakpointFilter.UNCAUGHT_EXCEPTION_FILTER_NAME};
+        arguments.exceptionOptions = new Types.ExceptionOptions[] {option};
+        handler.handle(Command.SETEXCEPTIONBREAKPOINTS, arguments, new Response(), context).get();
+    }
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter.variables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.microsoft.java.debug.core.DebugSettings;
+import com.microsoft.java.debug.core.adapter.BaseJdiTestCase;
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.ArrayType;
+import com.sun.jdi.Value;
+
+public class ArrayFetcherTest extends BaseJdiTestCase {
+    @Test
+    public void testGetValuesInChunks() throws Exception {
+        ArrayReference intarray = (ArrayReference) getLocalValue("intarray");
+        int limit = DebugSettings.getCurrent().limitOfVariablesPerJdwpRequest;
+        DebugSettings.getCurrent().limitOfVariablesPerJdwpRequest = 2;
+        try {
+            assertEquals("[1, 2, 3]", toString(ArrayFetcher.getValues(intarray, 0, 3)));
+            assertEquals("[2, 3]", toString(ArrayFetcher.getValues(intarray, 1, 2)));
+        } finally {
+            DebugSettings.getCurrent().limitOfVariablesPerJdwpRequest = limit;
+        }
+    }
+
+    @Test
+    public void testPrefetchNextPage() throws Exception {
+        ArrayReference intarray = (ArrayReference) getLocalValue("intarray");
+        VariableProxy container = new VariableProxy(staticBreakpointEvent.thread(), "Local", intarray, null, "intarray");
+
+        assertEquals("[1]", toString(ArrayFetcher.getPage(container, intarray, 0, 1)));
+        assertNull("A page other than the next one is not prefetched.", container.takePrefetchedPage(2, 1));
+        assertEquals("[2]", toString(ArrayFetcher.getPage(container, intarray, 1, 1)));
+        assertEquals("[3]", toString(ArrayFetcher.getPage(container, intarray, 2, 1)));
+        assertNull("There is no page after the last one.", container.takePrefetchedPage(3, 1));
+    }
+
+    @Test
+    public void testFormatPreview() throws Exception {
+        IVariableFormatter formatter = VariableFormatterFactory.createVariableFormatter();
+        assertEquals("[1, 2, 3]", ArrayFetcher.formatPreview((ArrayReference) getLocalValue("intarray"), formatter,
+                formatter.getDefaultOptions()));
+        assertNull(ArrayFetcher.formatPreview((ArrayReference) getLocalValue("genericArray"), formatter, formatter.getDefaultOptions()));
+
+        List<?> byteArrayTypes = getVM().classesByName("byte[]");
+        assertNotNull(byteArrayTypes);
+        ArrayReference bytes = ((ArrayType) byteArrayTypes.get(0)).newInstance(20);
+        bytes.setValue(0, getVM().mirrorOf((byte) 0xca));
+        bytes.setValue(1, getVM().mirrorOf((byte) 0xfe));
+        assertEquals("[ca fe 00 00 00 00 00 00 00 00 00 00 00 00 00 00 ...]",
+                ArrayFetcher.formatPreview(bytes, formatter, formatter.getDefaultOptions()));
+    }
+
+    private static String toString(List<Value> values) {
+        return values.stream().map(String::valueOf).collect(Collectors.joining(", ", "[", "]"));
+    }
+}
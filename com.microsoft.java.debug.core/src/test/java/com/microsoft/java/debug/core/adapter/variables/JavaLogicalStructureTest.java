@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter.variables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.microsoft.java.debug.core.adapter.BaseJdiTestCase;
+import com.microsoft.java.debug.core.adapter.IEvaluationProvider;
+import com.microsoft.java.debug.core.adapter.variables.JavaLogicalStructure.LogicalStructureWindowType;
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.Method;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.StringReference;
+import com.sun.jdi.ThreadReference;
+import com.sun.jdi.Value;
+
+public class JavaLogicalStructureTest extends BaseJdiTestCase {
+    private IEvaluationProvider evaluationEngine;
+
+    @Before
+    public void setup() throws Exception {
+        super.setup();
+        // Invoke the methods through JDI directly, as the evaluation provider does.
+        evaluationEngine = EasyMock.createNiceMock(IEvaluationProvider.class);
+        EasyMock.expect(evaluationEngine.invokeMethod(EasyMock.anyObject(), EasyMock.anyString(), EasyMock.anyString(),
+                EasyMock.anyObject(), EasyMock.anyObject(), EasyMock.anyBoolean())).andAnswer(() -> {
+                    Object[] args = EasyMock.getCurrentArguments();
+                    ObjectReference thisObject = (ObjectReference) args[0];
+                    Method method = thisObject.referenceType().methodsByName((String) args[1], (String) args[2]).get(0);
+                    Value[] methodArgs = args[3] == null ? new Value[0] : (Value[]) args[3];
+                    return CompletableFuture.completedFuture(thisObject.invokeMethod((ThreadReference) args[4], method,
+                            Arrays.asList(methodArgs), ObjectReference.INVOKE_SINGLE_THREADED));
+                }).anyTimes();
+        EasyMock.replay(evaluationEngine);
+    }
+
+    private ArrayReference getWindow(ObjectReference object, int start, int count) throws Exception {
+        JavaLogicalStructure structure = JavaLogicalStructureManager.getLogicalStructure(object);
+        return structure.getWindow(object, start, count, staticBreakpointEvent.thread(), evaluationEngine);
+    }
+
+    @Test
+    public void testListWindow() throws Exception {
+        ObjectReference strList = (ObjectReference) getLocalValue("strList");
+        assertEquals(LogicalStructureWindowType.SUB_LIST, JavaLogicalStructureManager.getLogicalStructure(strList).getWindowType());
+
+        ArrayReference window = getWindow(strList, 1, 1);
+        assertEquals(1, window.length());
+        assertNull(window.getValue(0));
+
+        window = getWindow(strList, 0, 2);
+        assertEquals(2, window.length());
+        assertTrue(((StringReference) window.getValue(0)).value().startsWith("string test"));
+    }
+
+    @Test
+    public void testCollectionWindow() throws Exception {
+        ObjectReference map = (ObjectReference) getLocalValue("map");
+        JavaLogicalStructure mapStructure = JavaLogicalStructureManager.getLogicalStructure(map);
+        ObjectReference entrySet = (ObjectReference) mapStructure.getValue(map, staticBreakpointEvent.thread(), evaluationEngine);
+        assertEquals(LogicalStructureWindowType.STREAM, JavaLogicalStructureManager.getLogicalStructure(entrySet).getWindowType());
+
+        ArrayReference window = getWindow(entrySet, 0, 10);
+        assertEquals("The window should be limited by the size of the collection.", 1, window.length());
+        assertEquals(0, getWindow(entrySet, 1, 10).length());
+    }
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter.variables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.microsoft.java.debug.core.adapter.BaseJdiTestCase;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.ReferenceType;
+
+public class ReferenceTypeTraitsTest extends BaseJdiTestCase {
+    @Test
+    public void testTraitsResolvedOnce() throws Exception {
+        ReferenceType type = ((ObjectReference) getLocalValue("strList")).referenceType();
+        AtomicInteger resolved = new AtomicInteger();
+        ReferenceTypeTraits.invalidate(getVM());
+        ReferenceTypeTraits traits = ReferenceTypeTraits.of(type);
+        assertSame(traits, ReferenceTypeTraits.of(type));
+
+        for (int i = 0; i < 3; i++) {
+            assertNull(ReferenceTypeTraits.of(type).getCollectionType(() -> {
+                resolved.incrementAndGet();
+                return null;
+            }));
+        }
+        assertEquals("The unresolved trait should be cached too.", 1, resolved.get());
+    }
+
+    @Test
+    public void testLogicalStructureCached() throws Exception {
+        ObjectReference strList = (ObjectReference) getLocalValue("strList");
+        JavaLogicalStructure structure = JavaLogicalStructureManager.getLogicalStructure(strList);
+        assertEquals("java.util.List", structure.getType());
+        assertSame(structure, ReferenceTypeTraits.of(strList.referenceType()).getLogicalStructure(() -> null));
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        ReferenceType type = ((ObjectReference) getLocalValue("map")).referenceType();
+        ReferenceTypeTraits traits = ReferenceTypeTraits.of(type);
+        ReferenceTypeTraits.invalidate(getVM());
+        assertNotSame(traits, ReferenceTypeTraits.of(type));
+    }
+}
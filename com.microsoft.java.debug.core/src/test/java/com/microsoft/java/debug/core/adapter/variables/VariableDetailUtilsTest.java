@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.adapter.variables;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import org.easymock.EasyMock;
+import org.junit.Test;
+
+import com.microsoft.java.debug.core.adapter.BaseJdiTestCase;
+import com.microsoft.java.debug.core.adapter.IEvaluationProvider;
+import com.sun.jdi.ArrayReference;
+import com.sun.jdi.InvocationException;
+import com.sun.jdi.Method;
+import com.sun.jdi.ObjectReference;
+import com.sun.jdi.ReferenceType;
+import com.sun.jdi.ThreadReference;
+import com.sun.jdi.Value;
+
+public class VariableDetailUtilsTest extends BaseJdiTestCase {
+    @Test
+    public void testPrefetchToStringValues() throws Exception {
+        ObjectReference boolVar = (ObjectReference) getLocalValue("boolVar");
+        ObjectReference clazz = (ObjectReference) getLocalValue("b");
+        ObjectReference map = (ObjectReference) getLocalValue("map");
+        Map<ObjectReference, String> toStringValues = new HashMap<>();
+
+        VariableDetailUtils.prefetchToStringValues(Arrays.asList(boolVar, clazz, map, getLocalValue("str"), null),
+                staticBreakpointEvent.thread(), createEvaluationEngine(null, new ArrayList<>()), toStringValues);
+
+        assertEquals(2, toStringValues.size());
+        assertEquals("false", toStringValues.get(boolVar));
+        assertTrue(toStringValues.get(clazz).startsWith("class "));
+        assertFalse("The collections are formatted by their logical structure.", toStringValues.containsKey(map));
+    }
+
+    @Test
+    public void testPrefetchToStringValuesKeepsSucceededBatches() throws Exception {
+        List<ObjectReference> classObjects = staticBreakpointEvent.virtualMachine().allClasses().stream()
+                .limit(VariableDetailUtils.TO_STRING_BATCH_SIZE + 4)
+                .map(ReferenceType::classObject)
+                .collect(Collectors.toList());
+        ObjectReference throwing = classObjects.get(VariableDetailUtils.TO_STRING_BATCH_SIZE + 2);
+        List<Value> invoked = new ArrayList<>();
+        Map<ObjectReference, String> toStringValues = new HashMap<>();
+
+        VariableDetailUtils.prefetchToStringValues(new ArrayList<>(classObjects), staticBreakpointEvent.thread(),
+                createEvaluationEngine(throwing, invoked), toStringValues);
+
+        assertEquals(VariableDetailUtils.TO_STRING_BATCH_SIZE, toStringValues.size());
+        assertTrue(toStringValues.keySet().containsAll(classObjects.subList(0, VariableDetailUtils.TO_STRING_BATCH_SIZE)));
+        assertFalse(toStringValues.containsKey(throwing));
+        assertEquals("The failed batch is not invoked again.", classObjects, invoked);
+    }
+
+    @Test
+    public void testFormatDetailsValueFromMemo() throws Exception {
+        ObjectReference boolVar = (ObjectReference) getLocalValue("boolVar");
+        Map<ObjectReference, String> toStringValues = new HashMap<>();
+        toStringValues.put(boolVar, "memo");
+        IVariableFormatter formatter = VariableFormatterFactory.createVariableFormatter();
+        // The evaluation provider is not expected to be invoked.
+        IEvaluationProvider evaluationEngine = EasyMock.createMock(IEvaluationProvider.class);
+        EasyMock.replay(evaluationEngine);
+
+        assertEquals("\"memo\"", VariableDetailUtils.formatDetailsValue(boolVar, staticBreakpointEvent.thread(), formatter,
+                formatter.getDefaultOptions(), evaluationEngine, toStringValues));
+        EasyMock.verify(evaluationEngine);
+    }
+
+    /**
+     * Creates an evaluation engine which invokes the methods through JDI, the batches containing <code>throwing</code>
+     * fail as if its <code>toString</code> threw in the debuggee. The arguments of the invocations are added to <code>invoked</code>.
+     */
+    private static IEvaluationProvider createEvaluationEngine(ObjectReference throwing, List<Value> invoked) {
+        IEvaluationProvider evaluationEngine = EasyMock.createNiceMock(IEvaluationProvider.class);
+        EasyMock.expect(evaluationEngine.invokeMethod(EasyMock.anyObject(), EasyMock.anyString(), EasyMock.anyString(),
+                EasyMock.anyObject(), EasyMock.anyObject(), EasyMock.eq(false))).andAnswer(() -> {
+                    Object[] arguments = EasyMock.getCurrentArguments();
+                    ObjectReference thisContext = (ObjectReference) arguments[0];
+                    Value[] args = (Value[]) arguments[3];
+                    invoked.addAll(((ArrayReference) args[1]).getValues());
+                    CompletableFuture<Value> result = new CompletableFuture<>();
+                    if (throwing != null && ((ArrayReference) args[1]).getValues().contains(throwing)) {
+                        result.completeExceptionally(new InvocationException(throwing));
+                        return result;
+                    }
+                    Method method = thisContext.referenceType().methodsByName((String) arguments[1], (String) arguments[2]).get(0);
+                    result.complete(thisContext.invokeMethod((ThreadReference) arguments[4], method, Arrays.asList(args),
+                            ObjectReference.INVOKE_SINGLE_THREADED));
+                    return result;
+                }).anyTimes();
+        EasyMock.replay(evaluationEngine);
+        return evaluationEngine;
+    }
+}
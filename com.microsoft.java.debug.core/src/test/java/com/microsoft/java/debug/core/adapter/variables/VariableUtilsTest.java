@@ -11,9 +11,12 @@
 
 package com.microsoft.java.debug.core.adapter.variables;
 
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
 
+import com.microsoft.java.debug.core.DebugSettings;
 import com.microsoft.java.debug.core.adapter.BaseJdiTestCase;
 import com.sun.jdi.ArrayReference;
 import com.sun.jdi.ArrayType;
@@ -87,4 +90,20 @@ public class VariableUtilsTest extends BaseJdiTestCase {
         assertNull("Should return null on main method.", VariableUtils.getThisVariable(getSecondLevelStackFrame()));
     }
 
+    @Test
+    public void testListAllElementsOfArray() throws Exception {
+        ArrayReference intarray = (ArrayReference) this.getLocalValue("intarray");
+        int limit = DebugSettings.getCurrent().limitOfVariablesPerJdwpRequest;
+        // The JDWP requests are chunked by the limit, the whole array is still listed.
+        DebugSettings.getCurrent().limitOfVariablesPerJdwpRequest = 2;
+        try {
+            List<Variable> variables = VariableUtils.listFieldVariables(intarray, true);
+            assertEquals(3, variables.size());
+            assertEquals("0", variables.get(0).name);
+            assertEquals("2", variables.get(2).name);
+        } finally {
+            DebugSettings.getCurrent().limitOfVariablesPerJdwpRequest = limit;
+        }
+    }
+
 }
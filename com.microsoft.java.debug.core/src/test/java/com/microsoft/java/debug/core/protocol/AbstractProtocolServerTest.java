@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AbstractProtocolServerTest {
+    private PipedOutputStream client;
+    private AbstractProtocolServer server;
+    private Thread serverThread;
+
+    @Before
+    public void setup() throws IOException {
+        PipedInputStream input = new PipedInputStream(64 * 1024);
+        client = new PipedOutputStream(input);
+        server = new AbstractProtocolServer(input, new ByteArrayOutputStream()) {
+            @Override
+            protected void dispatchRequest(Messages.Request request) {
+                // no request is expected
+            }
+        };
+        serverThread = new Thread(server::run);
+        serverThread.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+        serverThread.join(5000);
+    }
+
+    private void respond(int requestSeq) throws IOException {
+        String body = String.format("{\"type\":\"response\",\"seq\":%d,\"request_seq\":%d,\"command\":\"runInTerminal\",\"success\":true}",
+                requestSeq, requestSeq);
+        send(client, body);
+    }
+
+    private static void send(PipedOutputStream stream, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        stream.write(("Content-Length: " + bytes.length + "\r\n\r\n").getBytes(StandardCharsets.UTF_8));
+        stream.write(bytes);
+        stream.flush();
+    }
+
+    @Test
+    public void testConcurrentReverseRequests() throws Exception {
+        List<Messages.Request> requests = new ArrayList<>();
+        List<CompletableFuture<Messages.Response>> futures = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Messages.Request request = new Messages.Request("runInTerminal", null);
+            requests.add(request);
+            futures.add(server.sendRequest(request, 10000));
+        }
+
+        // Answer in the reverse order.
+        for (int i = requests.size() - 1; i >= 0; i--) {
+            respond(requests.get(i).seq);
+        }
+
+        for (int i = 0; i < requests.size(); i++) {
+            Messages.Response response = futures.get(i).get(5, TimeUnit.SECONDS);
+            assertEquals(requests.get(i).seq, response.request_seq);
+        }
+    }
+
+    @Test
+    public void testHandlerWaitsForReverseRequest() throws Exception {
+        PipedInputStream input = new PipedInputStream(64 * 1024);
+        PipedOutputStream otherClient = new PipedOutputStream(input);
+        CompletableFuture<Integer> reverseRequest = new CompletableFuture<>();
+        CompletableFuture<Messages.Response> handled = new CompletableFuture<>();
+        AbstractProtocolServer otherServer;
+        String threads = System.getProperty("debug.dap.dispatcher.threads");
+        System.setProperty("debug.dap.dispatcher.threads", "1");
+        try {
+            otherServer = new AbstractProtocolServer(input, new ByteArrayOutputStream()) {
+                @Override
+                protected void dispatchRequest(Messages.Request request) {
+                    // Block the only dispatcher thread until the reverse request is answered.
+                    Messages.Request runInTerminal = new Messages.Request("runInTerminal", null);
+                    CompletableFuture<Messages.Response> future = sendRequest(runInTerminal, 10000);
+                    reverseRequest.complete(runInTerminal.seq);
+                    handled.complete(future.join());
+                }
+            };
+        } finally {
+            if (threads == null) {
+                System.clearProperty("debug.dap.dispatcher.threads");
+            } else {
+                System.setProperty("debug.dap.dispatcher.threads", threads);
+            }
+        }
+        Thread otherThread = new Thread(otherServer::run);
+        otherThread.start();
+        try {
+            send(otherClient, "{\"type\":\"request\",\"seq\":1,\"command\":\"launch\",\"arguments\":{}}");
+            int seq = reverseRequest.get(5, TimeUnit.SECONDS);
+            send(otherClient, String.format("{\"type\":\"response\",\"seq\":2,\"request_seq\":%d,\"command\":\"runInTerminal\",\"success\":true}", seq));
+            assertEquals(seq, handled.get(5, TimeUnit.SECONDS).request_seq);
+        } finally {
+            otherClient.close();
+            otherThread.join(5000);
+        }
+    }
+
+    @Test
+    public void testReverseRequestTimeout() throws Exception {
+        CompletableFuture<Messages.Response> future = server.sendRequest(new Messages.Request("runInTerminal", null), 50);
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("The request should time out.");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof TimeoutException);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringReader;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.microsoft.java.debug.core.protocol.Requests.EvaluateArguments;
+import com.microsoft.java.debug.core.protocol.Requests.SetBreakpointArguments;
+import com.microsoft.java.debug.core.protocol.Requests.VariablesArguments;
+
+public class MessageDecoderTest {
+    private MessageDecoder decoder = new MessageDecoder();
+
+    @Test
+    public void testDecodeRequest() throws Exception {
+        Messages.ProtocolMessage message = decoder.decode(new StringReader(
+                "{\"command\":\"variables\",\"arguments\":{\"variablesReference\":5,\"start\":10,\"count\":20},\"type\":\"request\",\"seq\":7}"));
+        assertTrue(message instanceof Messages.Request);
+        Messages.Request request = (Messages.Request) message;
+        assertEquals(7, request.seq);
+        assertEquals("variables", request.command);
+        assertNull(request.arguments);
+        VariablesArguments arguments = (VariablesArguments) request.typedArguments;
+        assertEquals(5, arguments.variablesReference);
+        assertEquals(10, arguments.start);
+        assertEquals(20, arguments.count);
+    }
+
+    @Test
+    public void testDecodeArgumentsBeforeCommand() throws Exception {
+        Messages.Request request = (Messages.Request) decoder.decode(new StringReader(
+                "{\"seq\":3,\"type\":\"request\",\"arguments\":{\"expression\":\"a + b\",\"frameId\":2},\"command\":\"evaluate\"}"));
+        EvaluateArguments arguments = (EvaluateArguments) request.typedArguments;
+        assertEquals("a + b", arguments.expression);
+        assertEquals(2, arguments.frameId);
+    }
+
+    @Test
+    public void testDecodeNestedArguments() throws Exception {
+        Messages.Request request = (Messages.Request) decoder.decode(new StringReader(
+                "{\"seq\":1,\"type\":\"request\",\"command\":\"setBreakpoints\",\"unknown\":[1,{\"a\":null}],"
+                + "\"arguments\":{\"source\":{\"path\":\"/a/B.java\"},\"breakpoints\":[{\"line\":3},{\"line\":8,\"condition\":\"i > 1\"}]}}"));
+        SetBreakpointArguments arguments = (SetBreakpointArguments) request.typedArguments;
+        assertEquals("/a/B.java", arguments.source.path);
+        assertEquals(2, arguments.breakpoints.length);
+        assertEquals(8, arguments.breakpoints[1].line);
+        assertEquals("i > 1", arguments.breakpoints[1].condition);
+    }
+
+    @Test
+    public void testDecodeRequestWithoutArguments() throws Exception {
+        Messages.Request request = (Messages.Request) decoder.decode(new StringReader(
+                "{\"command\":\"threads\",\"type\":\"request\",\"seq\":9}"));
+        assertEquals("threads", request.command);
+        assertNull(request.typedArguments);
+    }
+
+    @Test
+    public void testDecodeResponse() throws Exception {
+        Messages.ProtocolMessage message = decoder.decode(new StringReader(
+                "{\"type\":\"response\",\"seq\":4,\"request_seq\":12,\"command\":\"runInTerminal\",\"success\":true,\"body\":{\"processId\":42}}"));
+        assertTrue(message instanceof Messages.Response);
+        Messages.Response response = (Messages.Response) message;
+        assertEquals(12, response.request_seq);
+        assertEquals("runInTerminal", response.command);
+        assertTrue(response.success);
+        assertEquals(42.0, ((Map<?, ?>) response.body).get("processId"));
+    }
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+public class MessageFramerTest {
+
+    private static byte[] frame(String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String header = "Content-Length: " + bytes.length + "\r\n\r\n";
+        byte[] headerBytes = header.getBytes(StandardCharsets.UTF_8);
+        byte[] result = new byte[headerBytes.length + bytes.length];
+        System.arraycopy(headerBytes, 0, result, 0, headerBytes.length);
+        System.arraycopy(bytes, 0, result, headerBytes.length, bytes.length);
+        return result;
+    }
+
+    private static List<String> drain(MessageFramer framer) throws IOException {
+        List<String> messages = new ArrayList<>();
+        int length;
+        while ((length = framer.nextMessage()) >= 0) {
+            messages.add(IOUtils.toString(new InputStreamReader(framer.openStream(length), StandardCharsets.UTF_8)));
+            framer.skip(length);
+        }
+        return messages;
+    }
+
+    @Test
+    public void testSingleMessage() throws Exception {
+        MessageFramer framer = new MessageFramer();
+        byte[] data = frame("{\"seq\":1,\"type\":\"request\"}");
+        framer.append(data, 0, data.length);
+        List<String> messages = drain(framer);
+        assertEquals(1, messages.size());
+        assertEquals("{\"seq\":1,\"type\":\"request\"}", messages.get(0));
+        assertEquals(0, framer.length());
+    }
+
+    @Test
+    public void testSplitByteByByte() throws Exception {
+        MessageFramer framer = new MessageFramer(16);
+        String body = "{\"command\":\"evaluate\",\"expression\":\"你好\"}";
+        byte[] data = frame(body);
+        List<String> messages = new ArrayList<>();
+        for (int i = 0; i < data.length; i++) {
+            framer.append(data, i, 1);
+            messages.addAll(drain(framer));
+        }
+        assertEquals(1, messages.size());
+        assertEquals(body, messages.get(0));
+    }
+
+    @Test
+    public void testPipelinedMessagesWrapAround() throws Exception {
+        MessageFramer framer = new MessageFramer(64);
+        List<String> expected = new ArrayList<>();
+        List<String> actual = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            String body = "{\"seq\":" + i + ",\"type\":\"request\",\"command\":\"variables\"}";
+            expected.add(body);
+            byte[] data = frame(body);
+            // Feed the message in two parts to exercise the partial header and body paths.
+            int half = data.length / 2;
+            framer.append(data, 0, half);
+            actual.addAll(drain(framer));
+            framer.append(data, half, data.length - half);
+            actual.addAll(drain(framer));
+        }
+        assertEquals(expected, actual);
+        assertTrue("The ring buffer should be reused.", framer.capacity() <= 128);
+    }
+
+    @Test
+    public void testLargeMessageFromStream() throws Exception {
+        StringBuilder builder = new StringBuilder("{\"data\":\"");
+        for (int i = 0; i < 1024 * 1024; i++) {
+            builder.append((char) ('a' + i % 26));
+        }
+        builder.append("\"}");
+        String body = builder.toString();
+        byte[] first = frame(body);
+        byte[] second = frame("{}");
+        byte[] data = new byte[first.length + second.length];
+        System.arraycopy(first, 0, data, 0, first.length);
+        System.arraycopy(second, 0, data, first.length, second.length);
+
+        MessageFramer framer = new MessageFramer();
+        ByteArrayInputStream input = new ByteArrayInputStream(data);
+        List<String> messages = new ArrayList<>();
+        while (framer.readFrom(input) != -1) {
+            messages.addAll(drain(framer));
+        }
+        assertEquals(2, messages.size());
+        assertEquals(body, messages.get(0));
+        assertEquals("{}", messages.get(1));
+    }
+
+    @Test
+    public void testAdditionalHeaderFields() throws Exception {
+        MessageFramer framer = new MessageFramer();
+        byte[] data = "Content-Type: application/vscode-jsonrpc\r\nContent-Length:2\r\n\r\n{}"
+                .getBytes(StandardCharsets.UTF_8);
+        framer.append(data, 0, data.length);
+        List<String> messages = drain(framer);
+        assertEquals(1, messages.size());
+        assertEquals("{}", messages.get(0));
+    }
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2017 Microsoft Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Microsoft Corporation - initial API and implementation
+ *******************************************************************************/
+
+package com.microsoft.java.debug.core.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class MessageWriterTest {
+    private static final int PRODUCERS = 4;
+    private static final int MESSAGES_PER_PRODUCER = 2000;
+
+    private static List<Messages.ProtocolMessage> readAll(byte[] data) throws Exception {
+        MessageFramer framer = new MessageFramer();
+        MessageDecoder decoder = new MessageDecoder();
+        framer.append(data, 0, data.length);
+        List<Messages.ProtocolMessage> messages = new ArrayList<>();
+        int length;
+        while ((length = framer.nextMessage()) >= 0) {
+            messages.add(decoder.decode(new InputStreamReader(framer.openStream(length), StandardCharsets.UTF_8)));
+            framer.skip(length);
+        }
+        return messages;
+    }
+
+    @Test
+    public void testOrderingPerProducer() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        // Use a small queue to exercise the backpressure path.
+        MessageWriter writer = new MessageWriter(output, 16, 5);
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            String producer = "producer" + p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < MESSAGES_PER_PRODUCER; i++) {
+                    writer.send(new Messages.Event(producer, String.valueOf(i)));
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+        for (Thread thread : producers) {
+            thread.join();
+        }
+        writer.close();
+
+        List<Messages.ProtocolMessage> messages = readAll(output.toByteArray());
+        assertEquals(PRODUCERS * MESSAGES_PER_PRODUCER, messages.size());
+        assertEquals(PRODUCERS * MESSAGES_PER_PRODUCER, writer.getSentCount());
+        assertTrue(writer.getFlushCount() >= 1);
+        assertTrue(writer.getMaxQueueSize() <= 16);
+
+        Map<String, Integer> lastIndex = new HashMap<>();
+        int lastSeq = 0;
+        for (Messages.ProtocolMessage message : messages) {
+            Messages.Event event = (Messages.Event) message;
+            int index = Integer.parseInt((String) event.body);
+            assertEquals("Messages of the same producer should keep their order.",
+                    lastIndex.getOrDefault(event.event, -1) + 1, index);
+            lastIndex.put(event.event, index);
+            assertTrue("The sequence numbers should be increasing.", event.seq > lastSeq);
+            lastSeq = event.seq;
+        }
+    }
+
+    @Test
+    public void testSendAfterClose() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        MessageWriter writer = new MessageWriter(output);
+        writer.send(new Messages.Response(1, "threads", true));
+        writer.close();
+        writer.send(new Messages.Event("terminated", null));
+
+        List<Messages.ProtocolMessage> messages = readAll(output.toByteArray());
+        assertEquals(2, messages.size());
+        assertEquals("response", messages.get(0).type);
+        assertEquals("event", messages.get(1).type);
+        assertEquals(1, messages.get(0).seq);
+        assertEquals(2, messages.get(1).seq);
+    }
+}